@@ -0,0 +1,22 @@
+import benchmarks.ConcurrentRoster;
+import benchmarks.Roster;
+
+/** {@link ConcurrentRoster} implementation over {@link ConcurrentGradeTracker}. */
+public class ConcurrentRosterFixture implements ConcurrentRoster {
+    private final ConcurrentGradeTracker tracker = new ConcurrentGradeTracker();
+
+    @Override
+    public void add(int id) {
+        tracker.addStudent(id, Roster.nameOf(id), id % (GradeStatistics.MAX_GRADE + 1));
+    }
+
+    @Override
+    public void remove(int id) {
+        tracker.removeStudent(id);
+    }
+
+    @Override
+    public int averageGrade() {
+        return tracker.averageGrade();
+    }
+}
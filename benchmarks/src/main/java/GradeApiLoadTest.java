@@ -0,0 +1,300 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test for {@link GradeApiServer}: each client is a virtual thread that
+ * sends its next request as soon as the previous one is answered. Without {@code --url}
+ * the server runs in this process over a generated roster, bound to localhost.
+ * <p>
+ * Reads are spread over lookups by id, roster pages, searches and statistics. Each
+ * client's writes create a student, update it and delete it again, so the roster keeps
+ * its size. Latencies are reported per endpoint after the warmup.
+ */
+public class GradeApiLoadTest {
+    private static final String USAGE = """
+            Usage: java -cp benchmarks/target/benchmarks.jar GradeApiLoadTest [options]
+              --url URL            server to test (default: start one in this process)
+              --students N         roster size for the in-process server (default 100000)
+              --clients N          concurrent clients (default 1000)
+              --duration SECONDS   measured time (default 20)
+              --warmup SECONDS     unmeasured time before it (default 5)
+              --write-percent P    share of requests that change the roster (default 5)""";
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final String[] OPERATIONS = {"GET /students/{id}", "GET /students", "GET /search",
+            "GET /statistics", "POST /students", "PUT /students/{id}", "DELETE /students/{id}"};
+    private static final int GET = 0, LIST = 1, SEARCH = 2, STATISTICS = 3, CREATE = 4, UPDATE = 5, DELETE = 6;
+
+    private final URI base;
+    private final int clients;
+    private final int writePercent;
+    private final HttpClient http;
+    private final AtomicLong errors = new AtomicLong();
+    private int[] knownIds;
+    private int knownTotal;
+
+    private GradeApiLoadTest(URI base, int clients, int writePercent, ExecutorService executor) {
+        this.base = base;
+        this.clients = clients;
+        this.writePercent = writePercent;
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int students = 100_000;
+        int clients = 1000;
+        int duration = 20;
+        int warmup = 5;
+        int writePercent = 5;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--url" -> url = valueOf(args, ++i);
+                    case "--students" -> students = Integer.parseInt(valueOf(args, ++i));
+                    case "--clients" -> clients = Integer.parseInt(valueOf(args, ++i));
+                    case "--duration" -> duration = Integer.parseInt(valueOf(args, ++i));
+                    case "--warmup" -> warmup = Integer.parseInt(valueOf(args, ++i));
+                    case "--write-percent" -> writePercent = Integer.parseInt(valueOf(args, ++i));
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (clients <= 0 || students <= 0 || duration <= 0 || warmup < 0 || writePercent < 0 || writePercent > 100) {
+                throw new IllegalArgumentException("Option out of range");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        GradeApiServer server = null;
+        if (url == null) {
+            server = startServer(students);
+            url = "http://localhost:" + server.getAddress().getPort();
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            GradeApiLoadTest test = new GradeApiLoadTest(URI.create(url), clients, writePercent, executor);
+            test.sampleIds();
+            test.run(warmup * 1_000_000_000L, duration * 1_000_000_000L);
+        } finally {
+            if (server != null) server.stop();
+        }
+    }
+
+    private static String valueOf(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static GradeApiServer startServer(int size) throws IOException {
+        StudentRepository students = new IndexedStudentRepository();
+        List<Student> generated = new ArrayList<>(size);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int id = 1; id <= size; id++) {
+            generated.add(new Student(id, "Student " + id, random.nextInt(GradeStatistics.MAX_GRADE + 1)));
+        }
+        students.addAll(generated);
+        StudentSearchIndex searchIndex = new StudentSearchIndex(students);
+        searchIndex.ensureBuilt();
+
+        int[] nextStudentId = {size + 1};
+        RosterChangeFeed changes = new RosterChangeFeed(students, RosterChangeFeed.DEFAULT_CAPACITY);
+        GradeApiServer server = new GradeApiServer(students, searchIndex, changes, new GradeApiServer.LockedAccess(),
+                () -> nextStudentId[0]++, () -> { });
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return server;
+    }
+
+    /** Reads a page of existing ids for the lookups, and the roster size for the page offsets. */
+    private void sampleIds() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(base.resolve("/students?limit=1000")).GET());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET /students answered " + response.statusCode() + ": " + response.body());
+        }
+        Matcher total = Pattern.compile("\"total\":(\\d+)").matcher(response.body());
+        knownTotal = total.find() ? Integer.parseInt(total.group(1)) : 0;
+        List<Integer> ids = new ArrayList<>();
+        Matcher id = ID.matcher(response.body());
+        while (id.find()) ids.add(Integer.parseInt(id.group(1)));
+        if (ids.isEmpty()) {
+            throw new IOException("The roster at " + base + " is empty; add some students first");
+        }
+        knownIds = ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void run(long warmupNanos, long durationNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        Client[] workers = new Client[clients];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            workers[i] = new Client(i, measureFrom, end);
+            threads.add(Thread.ofVirtual().name("client-" + i).start(workers[i]));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[][] merged = new long[OPERATIONS.length][];
+        long total = 0;
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            int count = 0;
+            for (Client worker : workers) count += worker.counts[operation];
+            long[] samples = new long[count];
+            int offset = 0;
+            for (Client worker : workers) {
+                System.arraycopy(worker.samples[operation], 0, samples, offset, worker.counts[operation]);
+                offset += worker.counts[operation];
+            }
+            Arrays.sort(samples);
+            merged[operation] = samples;
+            total += count;
+        }
+        long[] all = new long[(int) total];
+        int offset = 0;
+        for (long[] samples : merged) {
+            System.arraycopy(samples, 0, all, offset, samples.length);
+            offset += samples.length;
+        }
+        Arrays.sort(all);
+
+        double seconds = durationNanos / 1e9;
+        System.out.printf(Locale.ROOT, "Target:    %s%n", base);
+        System.out.printf(Locale.ROOT, "Clients:   %d, %.0f s measured after %.0f s warmup%n",
+                clients, seconds, warmupNanos / 1e9);
+        System.out.printf(Locale.ROOT, "Requests:  %d (%.0f per second), %d errors%n",
+                total, total / seconds, errors.get());
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-24s %10s %9s %9s %9s %9s %9s%n",
+                "Latency (ms)", "count", "p50", "p90", "p99", "p99.9", "max");
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            printRow(OPERATIONS[operation], merged[operation]);
+        }
+        printRow("all", all);
+    }
+
+    private static void printRow(String label, long[] sorted) {
+        if (sorted.length == 0) {
+            System.out.printf(Locale.ROOT, "%-24s %10d%n", label, 0);
+            return;
+        }
+        System.out.printf(Locale.ROOT, "%-24s %10d %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, sorted.length,
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                percentile(sorted, 99.9), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return http.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private final class Client implements Runnable {
+        private final SplittableRandom random;
+        private final long measureFrom;
+        private final long end;
+        private final long[][] samples = new long[OPERATIONS.length][64];
+        private final int[] counts = new int[OPERATIONS.length];
+        private int ownId = -1;
+
+        Client(int index, long measureFrom, long end) {
+            random = new SplittableRandom(index);
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                int operation = nextOperation();
+                HttpRequest.Builder request = request(operation);
+                try {
+                    HttpResponse<String> response = send(request);
+                    long latency = System.nanoTime() - now;
+                    if (response.statusCode() / 100 != 2) {
+                        errors.incrementAndGet();
+                    } else if (operation == CREATE) {
+                        Matcher id = ID.matcher(response.body());
+                        if (id.find()) ownId = Integer.parseInt(id.group(1));
+                    } else if (operation == DELETE) {
+                        ownId = -1;
+                    }
+                    if (now >= measureFrom) record(operation, latency);
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private int nextOperation() {
+            if (random.nextInt(100) < writePercent) {
+                if (ownId < 0) return CREATE;
+                return random.nextBoolean() ? UPDATE : DELETE;
+            }
+            int read = random.nextInt(100);
+            if (read < 70) return GET;
+            if (read < 80) return LIST;
+            if (read < 90) return SEARCH;
+            return STATISTICS;
+        }
+
+        private HttpRequest.Builder request(int operation) {
+            return switch (operation) {
+                case GET -> HttpRequest.newBuilder(base.resolve("/students/" + knownIds[random.nextInt(knownIds.length)]));
+                case LIST -> HttpRequest.newBuilder(base.resolve("/students?limit=50&offset="
+                        + random.nextInt(Math.max(1, knownTotal))));
+                case SEARCH -> HttpRequest.newBuilder(base.resolve("/search?limit=20&q=" + random.nextInt(1000)));
+                case STATISTICS -> HttpRequest.newBuilder(base.resolve("/statistics"));
+                case CREATE -> HttpRequest.newBuilder(base.resolve("/students"))
+                        .POST(HttpRequest.BodyPublishers.ofString(body()));
+                case UPDATE -> HttpRequest.newBuilder(base.resolve("/students/" + ownId))
+                        .PUT(HttpRequest.BodyPublishers.ofString(body()));
+                default -> HttpRequest.newBuilder(base.resolve("/students/" + ownId)).DELETE();
+            };
+        }
+
+        private String body() {
+            return "{\"name\":\"Load Test " + random.nextInt(1_000_000) + "\",\"grade\":"
+                    + random.nextInt(GradeStatistics.MAX_GRADE + 1) + "}";
+        }
+
+        private void record(int operation, long latency) {
+            if (counts[operation] == samples[operation].length) {
+                samples[operation] = Arrays.copyOf(samples[operation], counts[operation] * 2);
+            }
+            samples[operation][counts[operation]++] = latency;
+        }
+    }
+}
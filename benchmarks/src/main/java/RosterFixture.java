@@ -0,0 +1,114 @@
+import benchmarks.Roster;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * {@link Roster} implementation over the tracker's own classes. It lives in the default
+ * package so that it can reach them.
+ */
+public class RosterFixture implements Roster {
+    private final List<Student> students;
+    private GradeTracker tracker;
+    private StudentRepository repository;
+
+    public RosterFixture(int size) {
+        students = new ArrayList<>(size);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int id = 1; id <= size; id++) {
+            students.add(new Student(id, Roster.nameOf(id), random.nextInt(GradeStatistics.MAX_GRADE + 1)));
+        }
+    }
+
+    @Override
+    public void fillTracker() {
+        tracker = null;
+        GradeTracker filled = new GradeTracker();
+        for (Student student : students) {
+            filled.addStudent(student.getId(), student.getName(), student.getGrade());
+        }
+        tracker = filled;
+    }
+
+    @Override
+    public int averageGrade() {
+        return tracker.averageGrade();
+    }
+
+    @Override
+    public int highestGrade() {
+        return tracker.highestGrade();
+    }
+
+    @Override
+    public int lowestGrade() {
+        return tracker.lowestGrade();
+    }
+
+    @Override
+    public void fillRepository() {
+        repository = null;
+        StudentRepository filled = new IndexedStudentRepository();
+        filled.addAll(students);
+        repository = filled;
+    }
+
+    @Override
+    public String letterGrade(int grade) {
+        return GradingScale.current().letterGradeFor(grade);
+    }
+
+    @Override
+    public String statisticsSummary() {
+        GradeStatistics statistics = repository.statistics();
+        return "Total Students: " + statistics.getCount()
+                + String.format(" Average Grade: %.1f", statistics.getMean())
+                + " Highest Grade: " + statistics.getMax()
+                + " Lowest Grade: " + statistics.getMin();
+    }
+
+    @Override
+    public Object findStudentById(int id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public boolean containsName(String name) {
+        return repository.containsName(name);
+    }
+
+    @Override
+    public void exportCsv(Path target) throws IOException {
+        new CsvExporter(Runtime.getRuntime().availableProcessors())
+                .export(repository.toList(), target, false, written -> { }, () -> false);
+    }
+
+    @Override
+    public void writeSnapshot(Path target) throws IOException {
+        RosterSnapshot.write(target, students, students.size() + 1, 0);
+    }
+
+    @Override
+    public int readSnapshot(Path source) throws IOException {
+        return RosterSnapshot.read(source).getStudents().size();
+    }
+
+    @Override
+    public void writeLegacy(Path target) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            out.writeObject(new ArrayList<>(students));
+            out.writeInt(students.size() + 1);
+        }
+    }
+
+    @Override
+    public int readLegacy(Path source) throws IOException {
+        return RosterStore.readLegacy(source).getStudents().size();
+    }
+}
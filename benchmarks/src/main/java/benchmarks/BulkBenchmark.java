@@ -0,0 +1,92 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/** Whole-roster operations, each timed as one shot over the full roster. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BulkBenchmark {
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    private Roster roster;
+    private Path directory;
+    private Path csvFile;
+    private Path snapshotFile;
+    private Path legacyFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        roster = Roster.create(size);
+        roster.fillRepository();
+
+        directory = Files.createTempDirectory("grade-tracker-bench");
+        csvFile = directory.resolve("student_grades.csv");
+        snapshotFile = directory.resolve("student_grades.roster");
+        legacyFile = directory.resolve("student_grades.dat");
+        roster.writeSnapshot(snapshotFile);
+        roster.writeLegacy(legacyFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void addStudents() {
+        roster.fillTracker();
+    }
+
+    @Benchmark
+    public void exportCsv() throws IOException {
+        roster.exportCsv(csvFile);
+    }
+
+    @Benchmark
+    public void writeSnapshot() throws IOException {
+        roster.writeSnapshot(snapshotFile);
+    }
+
+    @Benchmark
+    public int readSnapshot() throws IOException {
+        return roster.readSnapshot(snapshotFile);
+    }
+
+    @Benchmark
+    public void serializeLegacy() throws IOException {
+        roster.writeLegacy(legacyFile);
+    }
+
+    @Benchmark
+    public int deserializeLegacy() throws IOException {
+        return roster.readLegacy(legacyFile);
+    }
+}
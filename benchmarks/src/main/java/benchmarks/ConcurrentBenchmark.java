@@ -0,0 +1,108 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Producer throughput of {@code ConcurrentGradeTracker} at 1, 2, 4 and 8 producer threads,
+ * and with a reader taking statistics snapshots alongside three producers. JMH reports the
+ * total over all threads, so the producer benchmarks should rise with the thread count up
+ * to the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConcurrentBenchmark {
+    private ConcurrentRoster tracker;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        tracker = ConcurrentRoster.create();
+    }
+
+    /**
+     * A producer adds ids from its own range and removes the one it added {@code WINDOW} adds
+     * earlier, so the roster stays at a steady size however long the iteration runs.
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+        private static final AtomicInteger PRODUCERS = new AtomicInteger();
+        private static final int RANGE = 1 << 20;
+        private static final int WINDOW = 1 << 16;
+
+        private int first;
+        private int added;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            first = 1 + (PRODUCERS.getAndIncrement() % 1024) * RANGE;
+            added = 0;
+        }
+
+        int produce(ConcurrentRoster tracker) {
+            int id = first + added % RANGE;
+            tracker.add(id);
+            if (added >= WINDOW) {
+                tracker.remove(first + (added - WINDOW) % RANGE);
+            }
+            added++;
+            return id;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int produce1(Producer producer) {
+        return producer.produce(tracker);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public int produce2(Producer producer) {
+        return producer.produce(tracker);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int produce4(Producer producer) {
+        return producer.produce(tracker);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int produce8(Producer producer) {
+        return producer.produce(tracker);
+    }
+
+    @Benchmark
+    @Group("readWhileProducing")
+    @GroupThreads(3)
+    public int producer(Producer producer) {
+        return producer.produce(tracker);
+    }
+
+    @Benchmark
+    @Group("readWhileProducing")
+    @GroupThreads(1)
+    public int statistics() {
+        return tracker.averageGrade();
+    }
+}
@@ -0,0 +1,25 @@
+package benchmarks;
+
+/**
+ * The {@code ConcurrentGradeTracker} operations under benchmark, reached through an
+ * interface for the same reason as {@link Roster}. It is implemented by
+ * {@code ConcurrentRosterFixture} in the default package.
+ */
+public interface ConcurrentRoster {
+
+    static ConcurrentRoster create() {
+        try {
+            return (ConcurrentRoster) Class.forName("ConcurrentRosterFixture").getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("ConcurrentRosterFixture is missing from the benchmark classpath", e);
+        }
+    }
+
+    /** Adds a student named with {@link Roster#nameOf} and a grade derived from the id. */
+    void add(int id);
+
+    void remove(int id);
+
+    /** Takes a statistics snapshot and returns its average. */
+    int averageGrade();
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Queries that run on every table refresh or user action, against a filled roster. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QueryBenchmark {
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    private Roster roster;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        roster = Roster.create(size);
+        roster.fillTracker();
+        roster.fillRepository();
+    }
+
+    /** Cycles through every id, so lookups do not all hit the same cache line. */
+    private int nextId() {
+        next = next == size ? 1 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public int averageGrade() {
+        return roster.averageGrade();
+    }
+
+    @Benchmark
+    public int highestGrade() {
+        return roster.highestGrade();
+    }
+
+    @Benchmark
+    public int lowestGrade() {
+        return roster.lowestGrade();
+    }
+
+    @Benchmark
+    public String letterGrade() {
+        return roster.letterGrade(nextId() % 101);
+    }
+
+    @Benchmark
+    public String updateStatistics() {
+        return roster.statisticsSummary();
+    }
+
+    @Benchmark
+    public Object findStudentById() {
+        return roster.findStudentById(nextId());
+    }
+
+    @Benchmark
+    public boolean duplicateNameHit() {
+        return roster.containsName(Roster.nameOf(nextId()));
+    }
+
+    @Benchmark
+    public boolean duplicateNameMiss() {
+        return roster.containsName("Nobody " + nextId());
+    }
+}
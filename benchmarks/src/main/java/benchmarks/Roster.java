@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The tracker operations under benchmark. The tracker's classes live in the default
+ * package, which code in a named package cannot refer to and JMH cannot generate
+ * benchmarks for, so they are reached through this interface. It is implemented by
+ * {@code RosterFixture} in the default package and loaded reflectively once per trial;
+ * the calls themselves are plain monomorphic interface calls.
+ * <p>
+ * A fixture generates {@code size} students with ids {@code 1..size}, named
+ * {@code "Student <id>"}, with deterministic pseudo-random grades.
+ */
+public interface Roster {
+
+    static Roster create(int size) {
+        try {
+            return (Roster) Class.forName("RosterFixture").getConstructor(int.class).newInstance(size);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("RosterFixture is missing from the benchmark classpath", e);
+        }
+    }
+
+    static String nameOf(int id) {
+        return "Student " + id;
+    }
+
+    /** Replaces the {@code GradeTracker} with a new one and adds every generated student to it. */
+    void fillTracker();
+
+    int averageGrade();
+
+    int highestGrade();
+
+    int lowestGrade();
+
+    /** Replaces the roster repository with a new one holding every generated student. */
+    void fillRepository();
+
+    String letterGrade(int grade);
+
+    /** Computes what the statistics panel shows after every change. */
+    String statisticsSummary();
+
+    Object findStudentById(int id);
+
+    boolean containsName(String name);
+
+    void exportCsv(Path target) throws IOException;
+
+    void writeSnapshot(Path target) throws IOException;
+
+    /** Returns the number of students read. */
+    int readSnapshot(Path source) throws IOException;
+
+    /** Writes the roster in the Java-serialized {@code student_grades.dat} format. */
+    void writeLegacy(Path target) throws IOException;
+
+    /** Returns the number of students read. */
+    int readLegacy(Path source) throws IOException;
+}
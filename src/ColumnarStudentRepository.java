@@ -0,0 +1,668 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Struct-of-arrays repository for very large rosters. Ids and grades live in primitive
+ * columns and names are stored as UTF-8 in one shared byte arena, so a record costs a few
+ * dozen bytes and no objects. The id index is a {@link DenseIdIndex}, one int per id while
+ * ids are handed out in sequence, and the duplicate-name index is an open-addressed table
+ * of row numbers keyed by the hash of the case-folded name.
+ * <p>
+ * {@link #get} returns a lightweight {@link Student} view bound to the student's id, which
+ * reads the columns on every call while the student exists and keeps the values it last
+ * saw, so it still reads correctly after a removal or clear. Setters on a view go through
+ * {@link #update}. Students handed out by {@link #remove} and {@link #toList} are detached copies.
+ */
+class ColumnarStudentRepository implements StudentRepository {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_COMPACTION_BYTES = 1024 * 1024;
+
+    private int[] ids;
+    private byte[] grades;
+    private int[] nameOffsets;
+    private int[] nameLengths;
+    private int size;
+
+    private byte[] arena;
+    private int arenaLength;
+    private int arenaGarbage;
+
+    private DenseIdIndex positionsById;
+    private NameIndex names;
+    private final GradeStatistics statistics;
+    private final List<RosterListener> listeners;
+
+    public ColumnarStudentRepository() {
+        ids = new int[INITIAL_CAPACITY];
+        grades = new byte[INITIAL_CAPACITY];
+        nameOffsets = new int[INITIAL_CAPACITY];
+        nameLengths = new int[INITIAL_CAPACITY];
+        arena = new byte[INITIAL_CAPACITY * 16];
+        positionsById = new DenseIdIndex();
+        names = new NameIndex();
+        statistics = new GradeStatistics();
+        listeners = new ArrayList<>();
+    }
+
+    @Override
+    public void add(Student student) {
+        append(student);
+        for (RosterListener listener : listeners) {
+            listener.studentAdded(view(size - 1), size - 1);
+        }
+    }
+
+    @Override
+    public void addAll(List<Student> batch) {
+        if (batch.isEmpty()) return;
+
+        int firstIndex = size;
+        ensureCapacity(size + batch.size());
+        positionsById.ensureCapacity(size + batch.size());
+        names.ensureCapacity(size + batch.size());
+        try {
+            for (Student student : batch) {
+                append(student);
+            }
+        } finally {
+            if (size > firstIndex) {
+                for (RosterListener listener : listeners) {
+                    listener.studentsAdded(firstIndex, size - 1);
+                }
+            }
+        }
+    }
+
+    private void append(Student student) {
+        int id = student.getId();
+        int grade = student.getGrade();
+        String name = student.getName();
+        GradeStatistics.checkGrade(grade);
+        if (positionsById.containsKey(id)) {
+            throw new IllegalArgumentException("Duplicate student id: " + id);
+        }
+        ensureCapacity(size + 1);
+        int index = size;
+        ids[index] = id;
+        grades[index] = (byte) grade;
+        storeName(index, name);
+        positionsById.put(id, index);
+        size++;
+        names.insert(index);
+        statistics.add(grade);
+    }
+
+    @Override
+    public Student findById(int id) {
+        int index = indexOf(id);
+        return index == -1 ? null : new Row(index);
+    }
+
+    @Override
+    public boolean containsName(String name) {
+        return names.contains(IndexedStudentRepository.foldName(name));
+    }
+
+    @Override
+    public Student update(int id, String name, int grade) {
+        GradeStatistics.checkGrade(grade);
+        int index = indexOf(id);
+        if (index == -1) return null;
+
+        String oldName = nameAt(index);
+        int oldGrade = grades[index];
+        if (!oldName.equals(name)) {
+            names.remove(index);
+            arenaGarbage += nameLengths[index];
+            nameLengths[index] = 0;
+            storeName(index, name);
+            names.insert(index);
+            compactArenaIfSparse();
+        }
+        statistics.replace(oldGrade, grade);
+        grades[index] = (byte) grade;
+
+        Student student = view(index);
+        for (RosterListener listener : listeners) {
+            listener.studentUpdated(student, index, oldName, oldGrade);
+        }
+        return student;
+    }
+
+    @Override
+    public Student remove(int id) {
+        int index = positionsById.remove(id);
+        if (index == IntIntHashMap.NO_VALUE) return null;
+
+        Student removed = detach(index);
+        names.remove(index);
+        arenaGarbage += nameLengths[index];
+
+        int last = --size;
+        int movedFrom = -1;
+        if (index != last) {
+            names.move(last, index);
+            ids[index] = ids[last];
+            grades[index] = grades[last];
+            nameOffsets[index] = nameOffsets[last];
+            nameLengths[index] = nameLengths[last];
+            positionsById.put(ids[index], index);
+            movedFrom = last;
+        }
+        statistics.remove(removed.getGrade());
+        compactArenaIfSparse();
+
+        for (RosterListener listener : listeners) {
+            listener.studentRemoved(removed, index, movedFrom);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        int previousSize = size;
+        size = 0;
+        arenaLength = 0;
+        arenaGarbage = 0;
+        positionsById.clear();
+        names.clear();
+        statistics.clear();
+
+        for (RosterListener listener : listeners) {
+            listener.rosterCleared(previousSize);
+        }
+    }
+
+    /** Hands the columns and their indexes over without copying them and starts again with empty ones. */
+    @Override
+    public StudentColumns detachAll() {
+        Detached detached = new Detached(this, size, ids, grades, nameOffsets, nameLengths, arena, arenaLength,
+                arenaGarbage, positionsById, names);
+        ids = new int[INITIAL_CAPACITY];
+        grades = new byte[INITIAL_CAPACITY];
+        nameOffsets = new int[INITIAL_CAPACITY];
+        nameLengths = new int[INITIAL_CAPACITY];
+        arena = new byte[INITIAL_CAPACITY * 16];
+        positionsById = new DenseIdIndex();
+        names = new NameIndex();
+        clear();
+        return detached;
+    }
+
+    /**
+     * Copies the columns in bulk; only the id, name and statistics indexes are filled row by row.
+     * Columns this repository detached are taken back as they are when it is empty, after which
+     * they must not be used again.
+     */
+    @Override
+    public void addAll(StudentColumns batch) {
+        if (batch.size == 0) return;
+        if (size == 0 && batch instanceof Detached detached && detached.owner == this) {
+            reattach(detached);
+            return;
+        }
+        batch = batch.packed();
+        long nameBytes = 0;
+        for (int row = 0; row < batch.size; row++) {
+            if (positionsById.containsKey(batch.ids[row])) {
+                throw new IllegalArgumentException("Duplicate student id: " + batch.ids[row]);
+            }
+            nameBytes += batch.nameLengths[row];
+        }
+        if (arenaLength + nameBytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("The name arena cannot hold more than 2 GB of names");
+        }
+
+        int firstIndex = size;
+        ensureCapacity(size + batch.size);
+        positionsById.ensureCapacity(size + batch.size);
+        names.ensureCapacity(size + batch.size);
+        if (arenaLength + nameBytes > arena.length) {
+            growArena((int) nameBytes);
+        }
+        System.arraycopy(batch.ids, 0, ids, firstIndex, batch.size);
+        System.arraycopy(batch.grades, 0, grades, firstIndex, batch.size);
+        System.arraycopy(batch.nameLengths, 0, nameLengths, firstIndex, batch.size);
+        for (int row = 0; row < batch.size; row++) {
+            System.arraycopy(batch.arena, batch.nameOffsets[row], arena, arenaLength, batch.nameLengths[row]);
+            nameOffsets[firstIndex + row] = arenaLength;
+            arenaLength += batch.nameLengths[row];
+        }
+        for (int index = firstIndex; index < firstIndex + batch.size; index++) {
+            positionsById.put(ids[index], index);
+            size++;
+            names.insert(index);
+            statistics.add(grades[index]);
+        }
+
+        for (RosterListener listener : listeners) {
+            listener.studentsAdded(firstIndex, size - 1);
+        }
+    }
+
+    private void reattach(Detached detached) {
+        if (detached.reattached) {
+            throw new IllegalStateException("These columns were already taken back");
+        }
+        detached.reattached = true;
+        ids = detached.ids;
+        grades = detached.grades;
+        nameOffsets = detached.nameOffsets;
+        nameLengths = detached.nameLengths;
+        arena = detached.arena;
+        arenaLength = detached.arenaLength;
+        arenaGarbage = detached.arenaGarbage;
+        positionsById = detached.positionsById;
+        names = detached.names;
+        size = detached.size;
+
+        long[] histogram = new long[GradeStatistics.MAX_GRADE + 1];
+        for (int index = 0; index < size; index++) {
+            histogram[grades[index]]++;
+        }
+        for (int grade = 0; grade < histogram.length; grade++) {
+            statistics.add(grade, histogram[grade]);
+        }
+
+        for (RosterListener listener : listeners) {
+            listener.studentsAdded(0, size - 1);
+        }
+    }
+
+    /**
+     * Removes the batch in one step when its students fill the end of the roster in any
+     * order, which is where a bulk insert left them; otherwise removes them one by one.
+     */
+    @Override
+    public void removeAll(StudentColumns batch) {
+        int firstIndex = size - batch.size;
+        if (batch.size == 0 || !fillsEnd(batch.packed().ids, batch.size, firstIndex)) {
+            StudentRepository.super.removeAll(batch);
+            return;
+        }
+
+        List<Student> removed = new ArrayList<>(batch.size);
+        for (int index = firstIndex; index < size; index++) {
+            removed.add(detach(index));
+            positionsById.remove(ids[index]);
+            names.remove(index);
+            arenaGarbage += nameLengths[index];
+            statistics.remove(grades[index]);
+        }
+        size = firstIndex;
+        compactArenaIfSparse();
+
+        for (RosterListener listener : listeners) {
+            listener.studentsRemoved(firstIndex, removed);
+        }
+    }
+
+    /** Whether {@code ids} are all in the roster at {@code firstIndex} or later; ids never repeat. */
+    private boolean fillsEnd(int[] batchIds, int count, int firstIndex) {
+        if (firstIndex < 0) return false;
+        for (int row = 0; row < count; row++) {
+            int index = positionsById.get(batchIds[row]);
+            if (index == IntIntHashMap.NO_VALUE || index < firstIndex) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Student get(int index) {
+        checkIndex(index);
+        return view(index);
+    }
+
+    @Override
+    public int idAt(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    @Override
+    public int gradeAt(int index) {
+        checkIndex(index);
+        return grades[index];
+    }
+
+    @Override
+    public void copyColumns(int[] ids, byte[] grades) {
+        System.arraycopy(this.ids, 0, ids, 0, size);
+        System.arraycopy(this.grades, 0, grades, 0, size);
+    }
+
+    /** Decodes the name of the student at {@code index}. */
+    public String nameAt(int index) {
+        checkIndex(index);
+        return new String(arena, nameOffsets[index], nameLengths[index], StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int indexOf(int id) {
+        int index = positionsById.get(id);
+        return index == IntIntHashMap.NO_VALUE ? -1 : index;
+    }
+
+    @Override
+    public List<Student> toList() {
+        List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(detach(i));
+        }
+        return students;
+    }
+
+    @Override
+    public GradeStatistics statistics() {
+        return statistics;
+    }
+
+    @Override
+    public void addListener(RosterListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(RosterListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public Iterator<Student> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Student next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return view(next++);
+            }
+        };
+    }
+
+    private Student view(int index) {
+        return new Row(index);
+    }
+
+    /**
+     * Hash of the case-folded name at {@code index}, equal to {@code foldName(nameAt(index)).hashCode()}.
+     * ASCII names are hashed straight from the arena; others are decoded first.
+     */
+    private int nameHash(int index) {
+        int offset = nameOffsets[index];
+        int end = offset + nameLengths[index];
+        int hash = 0;
+        for (int i = offset; i < end; i++) {
+            int b = arena[i];
+            if (b < 0) {
+                String name = new String(arena, offset, nameLengths[index], StandardCharsets.UTF_8);
+                return IndexedStudentRepository.foldName(name).hashCode();
+            }
+            hash = 31 * hash + (b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b);
+        }
+        return hash;
+    }
+
+    private Student detach(int index) {
+        return new Student(ids[index], nameAt(index), grades[index]);
+    }
+
+    private void storeName(int index, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (arenaLength + bytes.length > arena.length || arenaLength + bytes.length < 0) {
+            growArena(bytes.length);
+        }
+        System.arraycopy(bytes, 0, arena, arenaLength, bytes.length);
+        nameOffsets[index] = arenaLength;
+        nameLengths[index] = bytes.length;
+        arenaLength += bytes.length;
+    }
+
+    private void growArena(int extra) {
+        if (arenaGarbage > arenaLength / 4) {
+            compactArena(extra);
+            if (arenaLength + extra <= arena.length) return;
+        }
+        long needed = (long) arenaLength + extra;
+        if (needed > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("The name arena cannot hold more than 2 GB of names");
+        }
+        long grown = Math.max(needed, arena.length + (arena.length >> 1));
+        arena = Arrays.copyOf(arena, (int) Math.min(Integer.MAX_VALUE - 8, grown));
+    }
+
+    private void compactArenaIfSparse() {
+        if (arenaGarbage >= MIN_COMPACTION_BYTES && arenaGarbage > arenaLength / 2) {
+            compactArena(0);
+        }
+    }
+
+    /** Rewrites the live names contiguously, in row order, leaving room for {@code extra} more bytes. */
+    private void compactArena(int extra) {
+        long live = 0;
+        for (int i = 0; i < size; i++) {
+            live += nameLengths[i];
+        }
+        long capacity = Math.max(INITIAL_CAPACITY * 16, live + extra + (live >> 2));
+        byte[] compacted = new byte[(int) Math.min(Integer.MAX_VALUE - 8, capacity)];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(arena, nameOffsets[i], compacted, length, nameLengths[i]);
+            nameOffsets[i] = length;
+            length += nameLengths[i];
+        }
+        arena = compacted;
+        arenaLength = length;
+        arenaGarbage = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, newCapacity);
+            grades = Arrays.copyOf(grades, newCapacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, newCapacity);
+            nameLengths = Arrays.copyOf(nameLengths, newCapacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /** Columns handed over by {@link #detachAll()}, with the indexes that were built over them. */
+    private static final class Detached extends StudentColumns {
+        private final ColumnarStudentRepository owner;
+        private final int arenaLength;
+        private final int arenaGarbage;
+        private final DenseIdIndex positionsById;
+        private final NameIndex names;
+        private boolean reattached;
+
+        Detached(ColumnarStudentRepository owner, int size, int[] ids, byte[] grades, int[] nameOffsets,
+                 int[] nameLengths, byte[] arena, int arenaLength, int arenaGarbage, DenseIdIndex positionsById,
+                 NameIndex names) {
+            super(size, ids, grades, nameOffsets, nameLengths, arena);
+            this.owner = owner;
+            this.arenaLength = arenaLength;
+            this.arenaGarbage = arenaGarbage;
+            this.positionsById = positionsById;
+            this.names = names;
+        }
+
+        /** Adds the id table, at about one int per student while ids are dense, and the name table. */
+        @Override
+        public long estimatedBytes() {
+            return super.estimatedBytes() + 16L * size;
+        }
+    }
+
+    /**
+     * Student view over one row. It follows the student when a removal moves the row, and
+     * reports the last known values once the student is gone: those it was created with,
+     * or read since. The row it last read is checked first, so a view read in a scan never
+     * looks its id up.
+     */
+    private final class Row extends Student {
+        private int index;
+        private String lastName;
+        private int lastGrade;
+
+        Row(int index) {
+            super(ids[index], null, 0);
+            this.index = index;
+            lastName = nameAt(index);
+            lastGrade = grades[index];
+        }
+
+        /** The student's row now, or -1 once it is gone. */
+        private int index() {
+            if (index < 0 || index >= size || ids[index] != getId()) {
+                index = indexOf(getId());
+            }
+            return index;
+        }
+
+        @Override
+        public String getName() {
+            int index = index();
+            if (index != -1) lastName = nameAt(index);
+            return lastName;
+        }
+
+        @Override
+        public int getGrade() {
+            int index = index();
+            if (index != -1) lastGrade = grades[index];
+            return lastGrade;
+        }
+
+        @Override
+        public void setName(String name) {
+            update(getId(), name, getGrade());
+        }
+
+        @Override
+        public void setGrade(int grade) {
+            update(getId(), getName(), grade);
+        }
+
+        @java.io.Serial
+        private Object writeReplace() {
+            return new Student(getId(), getName(), getGrade());
+        }
+    }
+
+    /**
+     * Multiset of rows keyed by case-folded name, stored as an open-addressed table of row
+     * numbers. Hashes are recomputed from the arena rather than stored per row, and names are
+     * only decoded to confirm a hash match.
+     */
+    private final class NameIndex {
+        private static final int EMPTY = -1;
+
+        private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+        private int count;
+
+        void insert(int row) {
+            ensureCapacity(count + 1);
+            int mask = slots.length - 1;
+            int slot = mix(nameHash(row)) & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = row;
+            count++;
+        }
+
+        boolean contains(String foldedName) {
+            int hash = foldedName.hashCode();
+            int mask = slots.length - 1;
+            for (int slot = mix(hash) & mask; slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+                int row = slots[slot];
+                if (nameHash(row) == hash && IndexedStudentRepository.foldName(nameAt(row)).equals(foldedName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void remove(int row) {
+            int slot = find(row);
+            int mask = slots.length - 1;
+            int next = (slot + 1) & mask;
+            while (slots[next] != EMPTY) {
+                int home = mix(nameHash(slots[next])) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    slots[slot] = slots[next];
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+            slots[slot] = EMPTY;
+            count--;
+        }
+
+        /** Renumbers {@code from} to {@code to}; both rows must share the name hash of {@code from}. */
+        void move(int from, int to) {
+            slots[find(from)] = to;
+        }
+
+        void clear() {
+            Arrays.fill(slots, EMPTY);
+            count = 0;
+        }
+
+        void ensureCapacity(int expected) {
+            if (expected * 2 <= slots.length) return;
+
+            int capacity = slots.length;
+            while (expected * 2 > capacity) capacity <<= 1;
+            int[] old = slots;
+            slots = newSlots(capacity);
+            int mask = capacity - 1;
+            for (int row : old) {
+                if (row == EMPTY) continue;
+                int slot = mix(nameHash(row)) & mask;
+                while (slots[slot] != EMPTY) slot = (slot + 1) & mask;
+                slots[slot] = row;
+            }
+        }
+
+        private int find(int row) {
+            int mask = slots.length - 1;
+            int slot = mix(nameHash(row)) & mask;
+            while (slots[slot] != row) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int[] newSlots(int capacity) {
+            int[] table = new int[capacity];
+            Arrays.fill(table, EMPTY);
+            return table;
+        }
+
+        private static int mix(int hash) {
+            int h = hash * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
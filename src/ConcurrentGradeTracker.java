@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe counterpart of {@link GradeTracker} for several producers adding students
+ * at once. Students live in a {@link ConcurrentHashMap}, so lookups and duplicate-name
+ * checks never lock.
+ * <p>
+ * Grades are also counted in histograms striped by id, each with the count and sum of its
+ * students. A producer holds its stripe's {@link StampedLock} while it puts the student in
+ * the map and counts the grade, and a remove takes the same lock, so a student is never
+ * removed from a stripe before it was counted there. Producers on different stripes never
+ * contend. {@link #statistics()} copies each stripe under an optimistic read and retries
+ * the copy if a producer got in, without ever taking the lock, so readers never block
+ * writers. Every stripe contributes a consistent state; stripes are not frozen together,
+ * so concurrent adds may be partly included.
+ */
+public class ConcurrentGradeTracker {
+    private static final int BUCKETS = GradeStatistics.MAX_GRADE + 1;
+
+    private final ConcurrentHashMap<Integer, Student> studentsById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> nameCounts = new ConcurrentHashMap<>();
+    private final Stripe[] stripes;
+
+    public ConcurrentGradeTracker() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public ConcurrentGradeTracker(int concurrency) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, concurrency) * 2 - 1);
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /** Throws {@link IllegalArgumentException} if the id is taken or the grade is out of range. */
+    public void addStudent(int id, String name, int grade) {
+        GradeStatistics.checkGrade(grade);
+        Stripe stripe = stripes[stripeIndex(id)];
+        long stamp = stripe.lock.writeLock();
+        try {
+            insert(stripe, new Student(id, name, grade));
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds a batch, taking each affected stripe's lock once. Grades are checked before anything
+     * is added; if an id is taken, students of the batch in other stripes may already be added.
+     */
+    public void addStudents(List<Student> batch) {
+        List<List<Student>> byStripe = new ArrayList<>(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            byStripe.add(new ArrayList<>());
+        }
+        for (Student student : batch) {
+            GradeStatistics.checkGrade(student.getGrade());
+            byStripe.get(stripeIndex(student.getId())).add(student);
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            List<Student> students = byStripe.get(i);
+            if (students.isEmpty()) continue;
+            Stripe stripe = stripes[i];
+            long stamp = stripe.lock.writeLock();
+            try {
+                for (Student student : students) {
+                    insert(stripe, student);
+                }
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /** Publishes the student and counts it in {@code stripe}, whose write lock the caller holds. */
+    private void insert(Stripe stripe, Student student) {
+        if (studentsById.putIfAbsent(student.getId(), student) != null) {
+            throw new IllegalArgumentException("Duplicate student id: " + student.getId());
+        }
+        nameCounts.merge(IndexedStudentRepository.foldName(student.getName()), 1, Integer::sum);
+        stripe.histogram[student.getGrade()]++;
+        stripe.count++;
+        stripe.sum += student.getGrade();
+    }
+
+    public Student findStudent(int id) {
+        return studentsById.get(id);
+    }
+
+    public boolean hasStudentNamed(String name) {
+        return nameCounts.containsKey(IndexedStudentRepository.foldName(name));
+    }
+
+    public boolean removeStudent(int id) {
+        Stripe stripe = stripes[stripeIndex(id)];
+        long stamp = stripe.lock.writeLock();
+        try {
+            Student removed = studentsById.remove(id);
+            if (removed == null) return false;
+
+            nameCounts.computeIfPresent(IndexedStudentRepository.foldName(removed.getName()),
+                    (name, students) -> students == 1 ? null : students - 1);
+            stripe.histogram[removed.getGrade()]--;
+            stripe.count--;
+            stripe.sum -= removed.getGrade();
+            return true;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Number of students, without taking any lock. May lag behind writers still in progress. */
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.totals()[0];
+        }
+        return size;
+    }
+
+    /** Sum of all grades, without taking any lock. May lag behind writers still in progress. */
+    public long gradeSum() {
+        long sum = 0;
+        for (Stripe stripe : stripes) {
+            sum += stripe.totals()[1];
+        }
+        return sum;
+    }
+
+    /** Returns a snapshot of the statistics; see the class comment for its consistency. */
+    public GradeStatistics statistics() {
+        GradeStatistics snapshot = new GradeStatistics();
+        long[] histogram = new long[BUCKETS];
+        for (Stripe stripe : stripes) {
+            stripe.copyInto(histogram);
+            for (int grade = GradeStatistics.MIN_GRADE; grade <= GradeStatistics.MAX_GRADE; grade++) {
+                snapshot.add(grade, histogram[grade]);
+            }
+        }
+        return snapshot;
+    }
+
+    public int averageGrade() {
+        return (int) statistics().getMean();
+    }
+
+    public int highestGrade() {
+        return statistics().getMax();
+    }
+
+    public int lowestGrade() {
+        return statistics().getMin();
+    }
+
+    public void display() {
+        for (Student student : studentsById.values()) {
+            System.out.println("Name: " + student.getName() + ", Grade: " + student.getGrade());
+        }
+        GradeStatistics statistics = statistics();
+        System.out.println();
+        System.out.println("Average: " + (int) statistics.getMean());
+        System.out.println("Highest Grade: " + statistics.getMax());
+        System.out.println("Lowest Grade: " + statistics.getMin());
+    }
+
+    private int stripeIndex(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    /** One stripe's histogram and totals, written under {@link #lock}. */
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final long[] histogram = new long[BUCKETS];
+        private long count;
+        private long sum;
+
+        /** Copies the histogram as it stood between two writes, retrying until no write overlapped the copy. */
+        void copyInto(long[] target) {
+            while (true) {
+                long stamp = lock.tryOptimisticRead();
+                if (stamp != 0) {
+                    System.arraycopy(histogram, 0, target, 0, BUCKETS);
+                    if (lock.validate(stamp)) return;
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        /** The count and sum as they stood between two writes. */
+        long[] totals() {
+            while (true) {
+                long stamp = lock.tryOptimisticRead();
+                if (stamp != 0) {
+                    long[] totals = {count, sum};
+                    if (lock.validate(stamp)) return totals;
+                }
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the roster as CSV. The rows are split into chunks that worker threads format
+ * straight into pooled byte buffers; the calling thread writes the finished chunks in
+ * order through a {@link FileChannel}, optionally gzip-compressed. Names are always
+ * quoted, with embedded quotes doubled. Control characters in names saved before they were
+ * refused are written as spaces, so every row stays on one line and can be imported again.
+ */
+final class CsvExporter {
+    static final String HEADER = "ID,Student Name,Grade,Letter Grade,Status\n";
+
+    private static final int CHUNK_ROWS = 16_384;
+    private static final int INITIAL_BUFFER_SIZE = CHUNK_ROWS * 48;
+
+    private final int threads;
+    private final byte[][] rowSuffixes = new byte[GradeStatistics.MAX_GRADE + 1][];
+    private final ConcurrentLinkedQueue<Chunk> pool = new ConcurrentLinkedQueue<>();
+
+    public CsvExporter(int threads) {
+        this(threads, GradingScale.current());
+    }
+
+    public CsvExporter(int threads, GradingScale scale) {
+        this.threads = Math.max(1, threads);
+        for (int grade = GradeStatistics.MIN_GRADE; grade <= GradeStatistics.MAX_GRADE; grade++) {
+            String suffix = "\"," + grade + "," + scale.letterGradeFor(grade) + "," + scale.statusFor(grade) + "\n";
+            rowSuffixes[grade] = suffix.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Exports {@code rows} to {@code target}. {@code progress} receives the number of rows
+     * written so far. Returns false if {@code cancelled} reported true, in which case the
+     * file is incomplete.
+     */
+    public boolean export(List<Student> rows, Path target, boolean gzip, IntConsumer progress,
+                          BooleanSupplier cancelled) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "csv-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream gzipStream = gzip ? new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024) : null) {
+            write(channel, gzipStream, HEADER.getBytes(StandardCharsets.US_ASCII), HEADER.length());
+
+            Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            int nextRow = 0;
+            int written = 0;
+            while (written < rows.size()) {
+                while (nextRow < rows.size() && inFlight.size() < threads * 2) {
+                    int from = nextRow;
+                    int to = Math.min(from + CHUNK_ROWS, rows.size());
+                    inFlight.add(workers.submit(() -> format(rows, from, to)));
+                    nextRow = to;
+                }
+                if (cancelled.getAsBoolean()) {
+                    return false;
+                }
+
+                Chunk chunk = await(inFlight.poll());
+                write(channel, gzipStream, chunk.bytes, chunk.length);
+                written += chunk.rows;
+                pool.add(chunk);
+                progress.accept(written);
+            }
+            return true;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private Chunk format(List<Student> rows, int from, int to) {
+        Chunk chunk = pool.poll();
+        if (chunk == null) {
+            chunk = new Chunk();
+        }
+        chunk.length = 0;
+        chunk.rows = to - from;
+        for (int i = from; i < to; i++) {
+            Student student = rows.get(i);
+            appendRow(chunk, student.getId(), student.getName(), student.getGrade());
+        }
+        return chunk;
+    }
+
+    private void appendRow(Chunk chunk, int id, String name, int grade) {
+        chunk.appendInt(id);
+        chunk.append((byte) ',');
+        chunk.append((byte) '"');
+        chunk.appendQuoted(name);
+        chunk.append(rowSuffixes[grade]);
+    }
+
+    /**
+     * Opens a writer that formats rows on the calling thread as they are pushed to it, for
+     * rosters that are streamed rather than held as a list. The header is written up front.
+     */
+    public RowWriter openWriter(Path target, boolean gzip) throws IOException {
+        return new RowWriter(target, gzip);
+    }
+
+    /** Sequential CSV writer; see {@link #openWriter}. */
+    final class RowWriter implements Closeable {
+        private final FileChannel channel;
+        private final OutputStream gzipStream;
+        private final Chunk chunk = new Chunk();
+        private long rowCount;
+
+        private RowWriter(Path target, boolean gzip) throws IOException {
+            channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            OutputStream stream = null;
+            try {
+                if (gzip) {
+                    stream = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            gzipStream = stream;
+            chunk.append(HEADER.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        public void write(int id, String name, int grade) throws IOException {
+            appendRow(chunk, id, name, grade);
+            rowCount++;
+            if (chunk.length >= INITIAL_BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        public void write(Student student) throws IOException {
+            write(student.getId(), student.getName(), student.getGrade());
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        private void flush() throws IOException {
+            CsvExporter.write(channel, gzipStream, chunk.bytes, chunk.length);
+            chunk.length = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                if (gzipStream != null) {
+                    gzipStream.close();
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static void write(FileChannel channel, OutputStream gzipStream, byte[] bytes, int length) throws IOException {
+        if (gzipStream != null) {
+            gzipStream.write(bytes, 0, length);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not format rows", e.getCause());
+        }
+    }
+
+    /** A reusable output buffer holding one formatted chunk of rows. */
+    private static final class Chunk {
+        private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+        private int length;
+        private int rows;
+
+        void append(byte b) {
+            ensureCapacity(1);
+            bytes[length++] = b;
+        }
+
+        void append(byte[] source) {
+            ensureCapacity(source.length);
+            System.arraycopy(source, 0, bytes, length, source.length);
+            length += source.length;
+        }
+
+        void appendInt(int value) {
+            ensureCapacity(11);
+            if (value < 0) {
+                bytes[length++] = '-';
+                if (value == Integer.MIN_VALUE) {
+                    append("2147483648".getBytes(StandardCharsets.US_ASCII));
+                    return;
+                }
+                value = -value;
+            }
+            int start = length;
+            do {
+                bytes[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            for (int i = start, j = length - 1; i < j; i++, j--) {
+                byte swap = bytes[i];
+                bytes[i] = bytes[j];
+                bytes[j] = swap;
+            }
+        }
+
+        /** Appends {@code text} as UTF-8, doubling every quote character and writing control characters as spaces. */
+        void appendQuoted(String text) {
+            ensureCapacity(text.length() * 3);
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    bytes[length++] = '"';
+                    bytes[length++] = '"';
+                } else if (Character.isISOControl(c)) {
+                    bytes[length++] = ' ';
+                } else if (c < 0x80) {
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xC0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[length++] = '?';
+                } else {
+                    bytes[length++] = (byte) (0xE0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,410 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Parses grade dumps in CSV form. The first line must be a header naming a
+ * {@code Name} (or {@code Student Name}) and a {@code Grade} column; other columns,
+ * such as those written by {@link CsvExporter}, are ignored. The file is split into
+ * byte ranges aligned to line breaks, and each range is memory-mapped and parsed on a
+ * worker thread. Invalid rows, including lines longer than 64 KB, are collected as
+ * problems instead of failing the import. Quoted fields cannot span lines; names never
+ * hold line breaks (see {@link Student#isValidName}).
+ */
+final class CsvImporter {
+    private static final int CHUNK_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final int STREAM_BUFFER_BYTES = MAX_LINE_BYTES * 4;
+
+    private final int threads;
+
+    public CsvImporter(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    static final class Row {
+        final String name;
+        final int grade;
+        long line;
+
+        Row(String name, int grade, long line) {
+            this.name = name;
+            this.grade = grade;
+            this.line = line;
+        }
+    }
+
+    static final class Problem {
+        long line;
+        final String message;
+
+        Problem(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    static final class Result {
+        final List<Row> rows;
+        final List<Problem> problems;
+
+        Result(List<Row> rows, List<Problem> problems) {
+            this.rows = rows;
+            this.problems = problems;
+        }
+    }
+
+    /**
+     * Parses {@code file}. {@code progress} receives the completed percentage. Returns
+     * {@code null} if {@code cancelled} reported true.
+     */
+    public Result parse(Path file, IntConsumer progress, BooleanSupplier cancelled) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] head = map(channel, 0, Math.min(size, MAX_LINE_BYTES));
+            int headerEnd = 0;
+            while (headerEnd < head.length && head[headerEnd] != '\n') headerEnd++;
+            if (headerEnd == head.length && size > MAX_LINE_BYTES) {
+                throw new IOException("The header line of " + file.getFileName() + " is too long");
+            }
+
+            int[] columns = headerColumns(new LineParser(head), 0, headerEnd, file.getFileName().toString());
+            int nameColumn = columns[0];
+            int gradeColumn = columns[1];
+
+            long dataStart = Math.min(size, headerEnd + 1L);
+            ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "csv-import");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<Chunk>> chunks = new ArrayList<>();
+                for (long start = dataStart; start < size; start += CHUNK_BYTES) {
+                    long from = start;
+                    long to = Math.min(start + CHUNK_BYTES, size);
+                    chunks.add(workers.submit(() -> parseRange(channel, from, to, size, from == dataStart,
+                            nameColumn, gradeColumn, cancelled)));
+                }
+
+                List<Row> rows = new ArrayList<>();
+                List<Problem> problems = new ArrayList<>();
+                long linesBefore = 1;
+                for (int i = 0; i < chunks.size(); i++) {
+                    Chunk chunk = await(chunks.get(i));
+                    if (chunk == null || cancelled.getAsBoolean()) return null;
+
+                    for (Row row : chunk.rows) {
+                        row.line += linesBefore;
+                    }
+                    for (Problem problem : chunk.problems) {
+                        problem.line += linesBefore;
+                    }
+                    rows.addAll(chunk.rows);
+                    problems.addAll(chunk.problems);
+                    linesBefore += chunk.lines;
+                    progress.accept((int) (100L * (i + 1) / chunks.size()));
+                }
+                return new Result(rows, problems);
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Parses CSV from {@code in} sequentially, holding only one buffer of it in memory, and hands
+     * each row and problem to the given consumers as soon as it is parsed. A line that does not
+     * fit the buffer is reported and skipped. Returns the number of lines read, including the
+     * header. {@code source} names the input in error messages.
+     */
+    public static long stream(InputStream in, String source, Consumer<Row> rows, Consumer<Problem> problems)
+            throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER_BYTES];
+        int length = 0;
+        int position = 0;
+        long line = 0;
+        int[] columns = null;
+        LineParser parser = new LineParser(buffer);
+        List<String> fields = new ArrayList<>();
+
+        boolean eof = false;
+        boolean skipping = false;
+        while (true) {
+            int lineEnd = position;
+            while (lineEnd < length && buffer[lineEnd] != '\n') lineEnd++;
+
+            if (lineEnd >= length && !eof) {
+                if (position > 0) {
+                    System.arraycopy(buffer, position, buffer, 0, length - position);
+                    length -= position;
+                    position = 0;
+                }
+                if (length == buffer.length) {
+                    if (columns == null) {
+                        throw new IOException("The header line of " + source + " is too long");
+                    }
+                    // Drop what is buffered of the line; the rest is dropped up to its line break.
+                    if (!skipping) {
+                        line++;
+                        problems.accept(new Problem(line, "line is longer than " + buffer.length + " bytes"));
+                        skipping = true;
+                    }
+                    length = 0;
+                }
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    length += read;
+                }
+                continue;
+            }
+            if (position >= length) break;
+            if (skipping) {
+                skipping = false;
+                position = lineEnd + 1;
+                continue;
+            }
+
+            line++;
+            if (columns == null) {
+                columns = headerColumns(parser, position, lineEnd, source);
+            } else {
+                fields.clear();
+                String error = parser.fields(position, lineEnd, Math.max(columns[0], columns[1]), fields);
+                boolean blank = error == null && fields.size() == 1 && fields.get(0).isBlank();
+                if (!blank && error == null) {
+                    error = parseRow(fields, columns[0], columns[1], line, rows);
+                }
+                if (error != null) {
+                    problems.accept(new Problem(line, error));
+                }
+            }
+            position = lineEnd + 1;
+        }
+        if (columns == null) {
+            throw new IOException(source + " is empty; expected a header with Name and Grade columns");
+        }
+        return line;
+    }
+
+    /**
+     * Returns the rows whose name already exists in {@code students} or appears on an earlier
+     * row of the same import, compared case-insensitively. Must be called on the EDT.
+     */
+    static List<Row> findDuplicateNames(List<Row> rows, StudentRepository students) {
+        List<Row> duplicates = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Row row : rows) {
+            if (students.containsName(row.name) || !seen.add(IndexedStudentRepository.foldName(row.name))) {
+                duplicates.add(row);
+            }
+        }
+        return duplicates;
+    }
+
+    /** Returns the name and grade column indexes named by the header line {@code [start, end)}. */
+    private static int[] headerColumns(LineParser parser, int start, int end, String source) throws IOException {
+        List<String> header = new ArrayList<>();
+        parser.fields(start, end, Integer.MAX_VALUE, header);
+        int nameColumn = columnOf(header, "student name", "name");
+        int gradeColumn = columnOf(header, "grade");
+        if (nameColumn < 0 || gradeColumn < 0) {
+            throw new IOException("The first line of " + source + " must be a header with Name and Grade columns");
+        }
+        return new int[]{nameColumn, gradeColumn};
+    }
+
+    private static int columnOf(List<String> header, String... names) {
+        for (String name : names) {
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).trim().toLowerCase(Locale.ROOT).equals(name)) return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the lines that start inside {@code [from, to)}. Unless this is the first range,
+     * the line cut by {@code from} belongs to the previous range and is skipped. Line numbers
+     * in the returned chunk are relative to the range. The mapped range is copied to the heap
+     * once so the scan runs over a plain array.
+     */
+    private static Chunk parseRange(FileChannel channel, long from, long to, long size, boolean first,
+                                    int nameColumn, int gradeColumn, BooleanSupplier cancelled) throws IOException {
+        long mapFrom = first ? from : from - 1;
+        long mapTo = Math.min(size, to + MAX_LINE_BYTES);
+        byte[] data = map(channel, mapFrom, mapTo - mapFrom);
+        LineParser parser = new LineParser(data);
+        int end = (int) (to - mapFrom);
+        int lastColumn = Math.max(nameColumn, gradeColumn);
+
+        int position = 0;
+        if (!first) {
+            while (position < data.length && data[position] != '\n') position++;
+            position++;
+        }
+
+        Chunk chunk = new Chunk();
+        List<String> fields = new ArrayList<>();
+        while (position < end && position < data.length) {
+            if ((chunk.lines & 0xFFF) == 0 && cancelled.getAsBoolean()) return null;
+
+            int lineEnd = position;
+            while (lineEnd < data.length && data[lineEnd] != '\n') lineEnd++;
+            chunk.lines++;
+            if (lineEnd - position > MAX_LINE_BYTES) {
+                // A line with no break before the end of the mapping runs past this range, which
+                // leaves nothing more to parse here; the next range skips the rest of it.
+                chunk.problems.add(new Problem(chunk.lines, "line is longer than " + MAX_LINE_BYTES + " bytes"));
+                position = lineEnd + 1;
+                continue;
+            }
+
+            fields.clear();
+            String error = parser.fields(position, lineEnd, lastColumn, fields);
+            position = lineEnd + 1;
+            if (error == null && fields.size() == 1 && fields.get(0).isBlank()) continue;
+
+            if (error == null) {
+                error = parseRow(fields, nameColumn, gradeColumn, chunk.lines, chunk.rows::add);
+            }
+            if (error != null) {
+                chunk.problems.add(new Problem(chunk.lines, error));
+            }
+        }
+        return chunk;
+    }
+
+    /** Hands a valid row to {@code rows}, or returns why the row is invalid. */
+    private static String parseRow(List<String> fields, int nameColumn, int gradeColumn, long line,
+                                   Consumer<Row> rows) {
+        if (fields.size() <= Math.max(nameColumn, gradeColumn)) {
+            return "expected at least " + (Math.max(nameColumn, gradeColumn) + 1) + " columns";
+        }
+        String name = fields.get(nameColumn).trim();
+        if (name.isEmpty()) {
+            return "student name is empty";
+        }
+        if (!Student.isValidName(name)) {
+            return "student name contains a control character";
+        }
+        String gradeText = fields.get(gradeColumn).trim();
+        int grade;
+        try {
+            grade = Integer.parseInt(gradeText);
+        } catch (NumberFormatException e) {
+            return "grade '" + gradeText + "' is not a whole number";
+        }
+        if (grade < GradeStatistics.MIN_GRADE || grade > GradeStatistics.MAX_GRADE) {
+            return "grade " + grade + " is outside " + GradeStatistics.MIN_GRADE + "-" + GradeStatistics.MAX_GRADE;
+        }
+        rows.accept(new Row(name, grade, line));
+        return null;
+    }
+
+    private static byte[] map(FileChannel channel, long position, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        byte[] data = new byte[(int) length];
+        buffer.get(0, data);
+        return data;
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Could not parse the file", e.getCause());
+        }
+    }
+
+    private static final class Chunk {
+        private final List<Row> rows = new ArrayList<>();
+        private final List<Problem> problems = new ArrayList<>();
+        private long lines;
+    }
+
+    /** Splits one line into fields, handling quoted fields with doubled quotes. */
+    private static final class LineParser {
+        private final byte[] data;
+        private byte[] scratch = new byte[256];
+
+        LineParser(byte[] data) {
+            this.data = data;
+        }
+
+        /**
+         * Adds the fields of {@code [start, end)} up to {@code lastColumn} to {@code fields};
+         * returns an error message or null.
+         */
+        String fields(int start, int end, int lastColumn, List<String> fields) {
+            if (end > start && data[end - 1] == '\r') end--;
+
+            int position = start;
+            while (true) {
+                int length = 0;
+                if (position < end && data[position] == '"') {
+                    position++;
+                    while (true) {
+                        if (position >= end) return "unterminated quoted field";
+                        byte b = data[position++];
+                        if (b == '"') {
+                            if (position < end && data[position] == '"') {
+                                position++;
+                            } else {
+                                break;
+                            }
+                        }
+                        length = put(length, b);
+                    }
+                    while (position < end && data[position] != ',') {
+                        length = put(length, data[position++]);
+                    }
+                } else {
+                    while (position < end && data[position] != ',') {
+                        length = put(length, data[position++]);
+                    }
+                }
+                fields.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+
+                if (position >= end || fields.size() > lastColumn) return null;
+                position++;
+            }
+        }
+
+        private int put(int length, byte b) {
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, length * 2);
+            }
+            scratch[length] = b;
+            return length + 1;
+        }
+    }
+}
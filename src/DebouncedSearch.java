@@ -0,0 +1,103 @@
+import javax.swing.*;
+import java.util.BitSet;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs {@link StudentSearchIndex} queries off the EDT. Requests are debounced, a newer
+ * request cancels the one in flight, and only the latest result is published back on
+ * the EDT. A {@code null} result means the search was cleared.
+ */
+class DebouncedSearch implements RosterListener {
+    private static final Metrics.Timer SEARCH_TIMER = Metrics.timer("search", "Name index queries off the EDT");
+    private static final Metrics.Counter CANCELLED = Metrics.counter("search_cancelled",
+            "Searches superseded by a newer query before they finished");
+
+    private final StudentSearchIndex index;
+    private final Consumer<BitSet> onResult;
+    private final Timer debounceTimer;
+
+    private String query = "";
+    private SwingWorker<BitSet, Void> running;
+
+    public DebouncedSearch(StudentSearchIndex index, int delayMillis, Consumer<BitSet> onResult) {
+        this.index = index;
+        this.onResult = onResult;
+        debounceTimer = new Timer(delayMillis, e -> startSearch());
+        debounceTimer.setRepeats(false);
+    }
+
+    public void setQuery(String query) {
+        this.query = query.trim();
+        if (this.query.isEmpty()) {
+            debounceTimer.stop();
+            cancelRunning();
+            onResult.accept(null);
+        } else {
+            debounceTimer.restart();
+        }
+    }
+
+    @Override
+    public void studentAdded(Student student, int index) {
+        refresh();
+    }
+
+    @Override
+    public void studentsAdded(int firstIndex, int lastIndex) {
+        refresh();
+    }
+
+    @Override
+    public void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+        if (!oldName.equals(student.getName())) {
+            refresh();
+        }
+    }
+
+    private void refresh() {
+        if (!query.isEmpty()) {
+            debounceTimer.restart();
+        }
+    }
+
+    private void startSearch() {
+        cancelRunning();
+        index.ensureBuilt();
+        String searchFor = query;
+        running = new SwingWorker<>() {
+            @Override
+            protected BitSet doInBackground() {
+                Metrics.Sample sample = SEARCH_TIMER.start();
+                try {
+                    return index.search(searchFor, this::isCancelled);
+                } finally {
+                    sample.stop();
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || running != this) return;
+                running = null;
+                try {
+                    BitSet matches = get();
+                    if (matches != null) {
+                        onResult.accept(matches);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new IllegalStateException("Search failed for '" + searchFor + "'", e);
+                }
+            }
+        };
+        running.execute();
+    }
+
+    private void cancelRunning() {
+        if (running != null) {
+            if (!running.isDone()) CANCELLED.increment();
+            running.cancel(false);
+            running = null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+/**
+ * Id-to-row index that is a plain array over the id range while ids are dense, as ids
+ * handed out in sequence are: one int per id instead of a hash slot pair. Once an id is
+ * negative or too far beyond the others it switches to an {@link IntIntHashMap} for good,
+ * or until {@link #clear()}.
+ */
+class DenseIdIndex {
+    private static final int MIN_LENGTH = 1024;
+    /** The table may span at most this many ids per entry before the index turns sparse. */
+    private static final int MAX_SPREAD = 4;
+
+    /** Row plus one for every id in range, so that 0 means absent. */
+    private int[] rows = new int[0];
+    private IntIntHashMap sparse;
+    private int size;
+
+    public int size() {
+        return sparse != null ? sparse.size() : size;
+    }
+
+    public boolean containsKey(int id) {
+        return get(id) != IntIntHashMap.NO_VALUE;
+    }
+
+    public int get(int id) {
+        if (sparse != null) return sparse.get(id);
+        return id >= 0 && id < rows.length ? rows[id] - 1 : IntIntHashMap.NO_VALUE;
+    }
+
+    /** Associates {@code row} with {@code id} and returns the previous row, or {@link IntIntHashMap#NO_VALUE}. */
+    public int put(int id, int row) {
+        if (sparse == null && (id < 0 || id >= rows.length && !grow(id))) {
+            toSparse();
+        }
+        if (sparse != null) return sparse.put(id, row);
+
+        int previous = rows[id] - 1;
+        rows[id] = row + 1;
+        if (previous == IntIntHashMap.NO_VALUE) size++;
+        return previous;
+    }
+
+    public int remove(int id) {
+        if (sparse != null) return sparse.remove(id);
+        if (id < 0 || id >= rows.length || rows[id] == 0) return IntIntHashMap.NO_VALUE;
+
+        int previous = rows[id] - 1;
+        rows[id] = 0;
+        size--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(rows, 0);
+        sparse = null;
+        size = 0;
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        if (sparse != null) sparse.ensureCapacity(expectedSize);
+    }
+
+    private boolean grow(int id) {
+        long limit = Math.max(MIN_LENGTH, (long) MAX_SPREAD * (size + 1));
+        if (id >= limit) return false;
+        long length = Math.max(id + 1L, Math.min(limit, rows.length + (rows.length >> 1)));
+        rows = Arrays.copyOf(rows, (int) length);
+        return true;
+    }
+
+    private void toSparse() {
+        sparse = new IntIntHashMap(size + 1);
+        for (int id = 0; id < rows.length; id++) {
+            if (rows[id] != 0) sparse.put(id, rows[id] - 1);
+        }
+        rows = new int[0];
+        size = 0;
+    }
+}
@@ -0,0 +1,159 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Live view of the {@link Metrics} registry: call counts and latency percentiles of the
+ * timed operations, counters and gauges. Refreshes every second while it is showing and
+ * can export a Prometheus text dump.
+ */
+class DiagnosticsPanel extends JPanel {
+    private static final int REFRESH_MILLIS = 1000;
+    private static final String[] COLUMNS = {"Metric", "Count / Value", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms"};
+
+    private final MetricsTableModel model = new MetricsTableModel();
+    private final Timer refreshTimer = new Timer(REFRESH_MILLIS, e -> model.refresh());
+
+    public DiagnosticsPanel() {
+        super(new BorderLayout(0, 10));
+        setBorder(new EmptyBorder(10, 10, 10, 10));
+
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(260);
+        DefaultTableCellRenderer right = new DefaultTableCellRenderer();
+        right.setHorizontalAlignment(SwingConstants.RIGHT);
+        for (int column = 1; column < COLUMNS.length; column++) {
+            table.getColumnModel().getColumn(column).setCellRenderer(right);
+        }
+        table.addMouseMotionListener(new java.awt.event.MouseMotionAdapter() {
+            @Override
+            public void mouseMoved(java.awt.event.MouseEvent e) {
+                int row = table.rowAtPoint(e.getPoint());
+                table.setToolTipText(row < 0 ? null : model.helpAt(row));
+            }
+        });
+
+        JLabel status = new JLabel(Metrics.ENABLED
+                ? "Hover a metric for its description. Refreshes every second."
+                : "Metrics are disabled (-Dgradetracker.metrics=false). Only the gauges are live.");
+        status.setFont(new Font("SansSerif", Font.PLAIN, 11));
+
+        JButton exportButton = new JButton("Export Prometheus...");
+        exportButton.addActionListener(e -> exportPrometheus());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        buttons.add(exportButton);
+
+        JPanel south = new JPanel(new BorderLayout(10, 0));
+        south.add(status, BorderLayout.CENTER);
+        south.add(buttons, BorderLayout.EAST);
+
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(south, BorderLayout.SOUTH);
+        setPreferredSize(new Dimension(820, 420));
+        model.refresh();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        model.refresh();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private void exportPrometheus() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setSelectedFile(new File("gradetracker.prom"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File file = fileChooser.getSelectedFile();
+        try {
+            Metrics.writePrometheus(file.toPath());
+            JOptionPane.showMessageDialog(this, "Metrics written to " + file.getName(),
+                    "Export", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Error writing metrics: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static final class MetricsTableModel extends AbstractTableModel {
+        private List<Metrics.Metric> metrics = List.of();
+        private Object[][] rows = new Object[0][];
+
+        void refresh() {
+            metrics = Metrics.all();
+            rows = new Object[metrics.size()][];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = rowFor(metrics.get(i));
+            }
+            fireTableDataChanged();
+        }
+
+        String helpAt(int row) {
+            return row < metrics.size() ? metrics.get(row).getHelp() : null;
+        }
+
+        private static Object[] rowFor(Metrics.Metric metric) {
+            Object[] row = new Object[COLUMNS.length];
+            row[0] = metric.getName();
+            if (metric instanceof Metrics.Timer timer) {
+                LatencyHistogram.Snapshot snapshot = timer.snapshot();
+                row[1] = String.format(Locale.ROOT, "%,d", snapshot.getCount());
+                if (snapshot.getCount() > 0) {
+                    row[2] = millis(Math.round(snapshot.getMeanNanos()));
+                    row[3] = millis(snapshot.getPercentileNanos(50));
+                    row[4] = millis(snapshot.getPercentileNanos(90));
+                    row[5] = millis(snapshot.getPercentileNanos(99));
+                    row[6] = millis(snapshot.getMaxNanos());
+                }
+            } else if (metric instanceof Metrics.Counter counter) {
+                row[1] = String.format(Locale.ROOT, "%,d", counter.get());
+            } else if (metric instanceof Metrics.Gauge gauge) {
+                double value = gauge.get();
+                row[1] = metric.getName().endsWith("_bytes")
+                        ? String.format(Locale.ROOT, "%,.1f MB", value / (1024 * 1024))
+                        : value == Math.rint(value)
+                        ? String.format(Locale.ROOT, "%,d", (long) value)
+                        : String.format(Locale.ROOT, "%,.3f", value);
+            }
+            return row;
+        }
+
+        private static String millis(long nanos) {
+            return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return rows[row][column];
+        }
+    }
+}
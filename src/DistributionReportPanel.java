@@ -0,0 +1,325 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Grade distribution of the roster: spread, quartiles, pass rate and a bar per letter grade,
+ * read from the running histogram whenever the statistics refresh. Cohort comparisons and
+ * the CSV export copy the ids and grades on the EDT and run {@link GradeAnalytics} in the background.
+ */
+class DistributionReportPanel extends JPanel {
+    static final int ENROLLMENT_PERIODS = 5;
+
+    private static final Metrics.Timer REPORT_TIMER = Metrics.timer("distribution_report",
+            "Computing cohort histograms with fork/join, after the grades were copied");
+    private static final String[] GROUPINGS = {"Enrollment period", "Search matches"};
+    private static final int ENROLLMENT = 0;
+    private static final int SEARCH = 1;
+    private static final String[] COLUMNS = {"Cohort", "Students", "Average", "Std Dev", "Q1", "Median", "Q3", "Pass Rate"};
+
+    private final StudentRepository students;
+    private final Supplier<BitSet> searchMatches;
+    private final JLabel spreadLabel = createLabel();
+    private final JLabel quartilesLabel = createLabel();
+    private final JLabel passRateLabel = createLabel();
+    private final LetterBars letterBars = new LetterBars();
+
+    /** {@code searchMatches} returns the ids matching the current search, or {@code null} without one. */
+    public DistributionReportPanel(StudentRepository students, Supplier<BitSet> searchMatches) {
+        super(new BorderLayout(0, 5));
+        this.students = students;
+        this.searchMatches = searchMatches;
+        setBackground(Color.WHITE);
+
+        JPanel summary = new JPanel(new FlowLayout(FlowLayout.LEFT, 15, 0));
+        summary.setBackground(Color.WHITE);
+        summary.setBorder(new EmptyBorder(5, 0, 0, 0));
+        summary.add(spreadLabel);
+        summary.add(quartilesLabel);
+        summary.add(passRateLabel);
+
+        JButton compareButton = new JButton("Compare Cohorts...");
+        compareButton.addActionListener(e -> showCohortComparison());
+        JButton exportButton = new JButton("Export Report...");
+        exportButton.addActionListener(e -> exportReport());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        buttons.setBackground(Color.WHITE);
+        buttons.add(compareButton);
+        buttons.add(exportButton);
+
+        add(summary, BorderLayout.NORTH);
+        add(letterBars, BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+        refresh();
+    }
+
+    private static JLabel createLabel() {
+        JLabel label = new JLabel();
+        label.setFont(new Font("SansSerif", Font.BOLD, 12));
+        return label;
+    }
+
+    /** Rereads the roster's statistics. Runs in a few microseconds, whatever the roster size. */
+    public void refresh() {
+        GradeStatistics statistics = students.statistics();
+        GradeAnalytics.Report report = new GradeAnalytics.Report("All students", statistics, GradingScale.current());
+        if (statistics.isEmpty()) {
+            spreadLabel.setText("Std Dev: N/A");
+            quartilesLabel.setText("Quartiles: N/A");
+            passRateLabel.setText("Pass Rate: N/A");
+        } else {
+            spreadLabel.setText(String.format("Std Dev: %.1f", statistics.getStandardDeviation()));
+            quartilesLabel.setText("Quartiles: " + statistics.getPercentile(25) + " / "
+                    + statistics.getMedian() + " / " + statistics.getPercentile(75));
+            passRateLabel.setText(String.format("Pass Rate: %.1f%%", 100 * report.getPassRate()));
+        }
+        letterBars.show(report);
+    }
+
+    private void showCohortComparison() {
+        JComboBox<String> grouping = new JComboBox<>(GROUPINGS);
+        CohortTableModel model = new CohortTableModel();
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(180);
+        DefaultTableCellRenderer right = new DefaultTableCellRenderer();
+        right.setHorizontalAlignment(SwingConstants.RIGHT);
+        for (int column = 1; column < COLUMNS.length; column++) {
+            table.getColumnModel().getColumn(column).setCellRenderer(right);
+        }
+        JLabel status = new JLabel(" ");
+        status.setFont(new Font("SansSerif", Font.PLAIN, 11));
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        top.add(new JLabel("Compare by:"));
+        top.add(grouping);
+        JPanel content = new JPanel(new BorderLayout(0, 10));
+        content.setBorder(new EmptyBorder(10, 10, 10, 10));
+        content.add(top, BorderLayout.NORTH);
+        content.add(new JScrollPane(table), BorderLayout.CENTER);
+        content.add(status, BorderLayout.SOUTH);
+        content.setPreferredSize(new Dimension(720, 300));
+
+        List<ReportWorker> running = new ArrayList<>(1);
+        Runnable recompute = () -> {
+            running.forEach(worker -> worker.cancel(false));
+            running.clear();
+            int selected = grouping.getSelectedIndex();
+            if (selected == SEARCH && searchMatches.get() == null) {
+                model.show(List.of());
+                status.setText("Type a search first to compare its matches with everyone else.");
+                return;
+            }
+            status.setText("Computing...");
+            GradeAnalytics.Columns columns = GradeAnalytics.copyColumns(students);
+            ReportWorker worker = new ReportWorker(columns, List.of(selected), searchMatches.get()) {
+                @Override
+                protected void done() {
+                    if (isCancelled() || !grouping.isDisplayable()) return;
+                    try {
+                        model.show(get());
+                        status.setText(String.format(Locale.ROOT, "%,d grades counted in %.1f ms",
+                                columns.size(), elapsedNanos / 1e6));
+                    } catch (InterruptedException | ExecutionException e) {
+                        status.setText("Error computing the report: " + e.getMessage());
+                    }
+                }
+            };
+            running.add(worker);
+            worker.execute();
+        };
+        grouping.addActionListener(e -> recompute.run());
+
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this), "Cohort Comparison",
+                Dialog.ModalityType.MODELESS);
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setContentPane(content);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+        recompute.run();
+    }
+
+    private void exportReport() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setSelectedFile(new File("grade_distribution_" +
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File file = fileChooser.getSelectedFile();
+        BitSet matches = searchMatches.get();
+        List<Integer> groupings = matches == null ? List.of(ENROLLMENT) : List.of(ENROLLMENT, SEARCH);
+        new ReportWorker(GradeAnalytics.copyColumns(students), groupings, matches) {
+            @Override
+            protected List<GradeAnalytics.Report> doInBackground() throws Exception {
+                List<GradeAnalytics.Report> reports = super.doInBackground();
+                GradeAnalytics.writeCsv(reports, file.toPath());
+                return reports;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(DistributionReportPanel.this,
+                            "Report exported successfully to " + file.getName(), "Success",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(DistributionReportPanel.this,
+                            "Error exporting report: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Compares the cohorts of each grouping off the EDT. The report of all students comes
+     * first, followed by every grouping's cohorts.
+     */
+    private static class ReportWorker extends SwingWorker<List<GradeAnalytics.Report>, Void> {
+        private final GradeAnalytics.Columns columns;
+        private final List<Integer> groupings;
+        private final GradeAnalytics.Cohorts searchCohorts;
+        protected volatile long elapsedNanos;
+
+        /** Copies {@code matches} on the EDT, so the search can move on meanwhile. */
+        ReportWorker(GradeAnalytics.Columns columns, List<Integer> groupings, BitSet matches) {
+            this.columns = columns;
+            this.groupings = groupings;
+            searchCohorts = matches == null ? null : GradeAnalytics.searchMatches(matches);
+        }
+
+        @Override
+        protected List<GradeAnalytics.Report> doInBackground() throws Exception {
+            Metrics.Sample sample = REPORT_TIMER.start();
+            long started = System.nanoTime();
+            try {
+                List<GradeAnalytics.Report> reports = new ArrayList<>();
+                for (int grouping : groupings) {
+                    GradeAnalytics.Cohorts cohorts = grouping == ENROLLMENT
+                            ? GradeAnalytics.enrollmentPeriods(columns, ENROLLMENT_PERIODS)
+                            : searchCohorts;
+                    List<GradeAnalytics.Report> compared = GradeAnalytics.compare(columns, cohorts,
+                            GradingScale.current(), ForkJoinPool.commonPool());
+                    reports.addAll(reports.isEmpty() ? compared : compared.subList(1, compared.size()));
+                }
+                return reports;
+            } finally {
+                elapsedNanos = System.nanoTime() - started;
+                sample.stop();
+            }
+        }
+    }
+
+    private static final class CohortTableModel extends AbstractTableModel {
+        private List<GradeAnalytics.Report> reports = List.of();
+
+        void show(List<GradeAnalytics.Report> reports) {
+            this.reports = reports;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return reports.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            GradeAnalytics.Report report = reports.get(row);
+            GradeStatistics statistics = report.statistics;
+            if (column == 0) return report.name;
+            if (column == 1) return String.format(Locale.ROOT, "%,d", statistics.getCount());
+            if (statistics.isEmpty()) return "-";
+            return switch (column) {
+                case 2 -> String.format(Locale.ROOT, "%.1f", statistics.getMean());
+                case 3 -> String.format(Locale.ROOT, "%.1f", statistics.getStandardDeviation());
+                case 4 -> statistics.getPercentile(25);
+                case 5 -> statistics.getMedian();
+                case 6 -> statistics.getPercentile(75);
+                default -> String.format(Locale.ROOT, "%.1f%%", 100 * report.getPassRate());
+            };
+        }
+    }
+
+    /** One bar per letter grade, scaled to the most common letter. */
+    private static final class LetterBars extends JComponent {
+        private static final Color BAR_COLOR = new Color(52, 152, 219);
+
+        private Map<String, Long> letterCounts = Map.of();
+        private long total;
+
+        LetterBars() {
+            setPreferredSize(new Dimension(360, 70));
+            setFont(new Font("SansSerif", Font.PLAIN, 10));
+        }
+
+        void show(GradeAnalytics.Report report) {
+            letterCounts = report.letterCounts;
+            total = report.statistics.getCount();
+            StringBuilder tooltip = new StringBuilder("<html>");
+            for (Map.Entry<String, Long> letter : letterCounts.entrySet()) {
+                tooltip.append(letter.getKey()).append(": ").append(String.format("%,d", letter.getValue()));
+                if (total > 0) tooltip.append(String.format(" (%.1f%%)", 100.0 * letter.getValue() / total));
+                tooltip.append("<br>");
+            }
+            setToolTipText(tooltip.append("</html>").toString());
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (letterCounts.isEmpty()) return;
+
+            Graphics2D g2 = (Graphics2D) g.create();
+            try {
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                FontMetrics metrics = g2.getFontMetrics();
+                Insets insets = new Insets(4, 10, 2, 10);
+                int width = getWidth() - insets.left - insets.right;
+                int height = getHeight() - insets.top - insets.bottom - metrics.getHeight();
+                int slot = width / letterCounts.size();
+                long most = 1;
+                for (long count : letterCounts.values()) most = Math.max(most, count);
+
+                int x = insets.left;
+                for (Map.Entry<String, Long> letter : letterCounts.entrySet()) {
+                    int bar = (int) Math.round((double) height * letter.getValue() / most);
+                    if (letter.getValue() > 0) bar = Math.max(bar, 1);
+                    g2.setColor(BAR_COLOR);
+                    g2.fillRect(x + 2, insets.top + height - bar, Math.max(1, slot - 4), bar);
+                    g2.setColor(Color.DARK_GRAY);
+                    int labelX = x + (slot - metrics.stringWidth(letter.getKey())) / 2;
+                    g2.drawString(letter.getKey(), labelX, insets.top + height + metrics.getAscent());
+                    x += slot;
+                }
+            } finally {
+                g2.dispose();
+            }
+        }
+    }
+}
@@ -1,16 +1,28 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Enhanced Student Grade Tracker Application
@@ -21,7 +33,7 @@ import java.util.List;
  * - Data persistence (save/load)
  * - Advanced filtering and search
  * - Grade statistics and analytics
- * - Export functionality
+ * - CSV import and export
  * - Input validation and error handling
  *
  * @author Zeka Demirli
@@ -35,26 +47,56 @@ public class EnhancedStudentGradeTracker extends JFrame {
     private static final Color WARNING_COLOR = new Color(241, 196, 15);
     private static final Color DANGER_COLOR = new Color(231, 76, 60);
 
-    private static final String[] COLUMN_NAMES = {"ID", "Student Name", "Grade", "Letter Grade", "Status"};
-    private static final String DATA_FILE = "student_grades.dat";
-
-    private final List<Student> student;
+    private static final String DATA_FILE = "student_grades.roster";
+    private static final String LEGACY_DATA_FILE = "student_grades.dat";
+    private static final int SEARCH_DEBOUNCE_MILLIS = 150;
+    private static final int PUBLISH_CHUNK_SIZE = 10_000;
+    private static final int IMPORT_REPORT_LIMIT = 500;
+    private static final String STORAGE = System.getProperty("gradetracker.storage", "");
+
+    private static final Metrics.Timer LOAD_TIMER = Metrics.timer("load", "Loading the saved roster");
+    private static final Metrics.Timer SAVE_TIMER = Metrics.timer("save", "Saving the roster");
+    private static final Metrics.Timer EXPORT_TIMER = Metrics.timer("export", "Exporting the roster to CSV");
+    private static final Metrics.Timer IMPORT_TIMER = Metrics.timer("import", "Parsing a CSV import");
+    private static final Metrics.Timer FILTER_TIMER = Metrics.timer("filter_table",
+            "Applying a search result to the table on the EDT");
+    private static final Metrics.Timer STATISTICS_TIMER = Metrics.timer("update_statistics",
+            "Refreshing the statistics panel on the EDT");
+
+    private final StudentRepository students;
+    private final RosterStore store;
     private int nextStudentId;
 
     private JTextField nameField;
     private JSpinner gradeSpinner;
     private JTextField searchField;
     private JTable studentsTable;
-    private DefaultTableModel tableModel;
+    private RosterUpdateBus updates;
+    private RosterHistory history;
+    private JMenuItem undoMenuItem;
+    private JMenuItem redoMenuItem;
+    private StudentTableModel tableModel;
+    private TableRowSorter<StudentTableModel> rowSorter;
+    private StudentSearchIndex searchIndex;
+    private GradeRankIndex ranks;
+    private RosterChangeFeed changeFeed;
+    private DebouncedSearch search;
+    private BitSet searchMatches;
+    private GradeApiServer apiServer;
+    private JMenuItem apiServerMenuItem;
     private JLabel totalStudentsLabel;
     private JLabel averageGradeLabel;
     private JLabel highestGradeLabel;
     private JLabel lowestGradeLabel;
     private JProgressBar averageProgressBar;
+    private DistributionReportPanel distributionReportPanel;
+    private TaskProgressPanel taskProgressPanel;
 
     public EnhancedStudentGradeTracker() {
-        student = new ArrayList<>();
+        students = openRepository();
+        store = new RosterStore(Path.of(DATA_FILE), Path.of(LEGACY_DATA_FILE));
         nextStudentId = 1;
+        Metrics.gauge("roster_students", "Students in the roster", students::size);
         initializeComponents();
         setupLayout();
         attachEventListeners();
@@ -75,6 +117,23 @@ public class EnhancedStudentGradeTracker extends JFrame {
         });
     }
 
+    private StudentRepository openRepository() {
+        Path dataFile = Path.of(DATA_FILE);
+        if (STORAGE.equals("mapped") && Files.exists(dataFile)) {
+            try {
+                if (RosterShards.isManifest(dataFile)) {
+                    showErrorDialog("The saved data is split into shards, which cannot be memory-mapped. "
+                            + "Loading it into memory instead.");
+                } else {
+                    return MappedStudentRepository.open(dataFile);
+                }
+            } catch (IOException e) {
+                showErrorDialog("Error mapping data file, loading it into memory instead: " + e.getMessage());
+            }
+        }
+        return STORAGE.equals("columnar") ? new ColumnarStudentRepository() : new IndexedStudentRepository();
+    }
+
     private void initializeComponents() {
         nameField = new JTextField(20);
         nameField.setFont(new Font("SansSerif", Font.PLAIN, 14));
@@ -87,19 +146,28 @@ public class EnhancedStudentGradeTracker extends JFrame {
         searchField.setFont(new Font("SansSerif", Font.PLAIN, 14));
         searchField.setToolTipText("Search by student name...");
 
-        tableModel = new DefaultTableModel(COLUMN_NAMES, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        updates = new RosterUpdateBus(students);
+        tableModel = new StudentTableModel(students, updates);
+        updates.subscribe(batch -> updateStatistics());
+        history = new RosterHistory(students, RosterHistory.DEFAULT_BUDGET_BYTES);
+        rowSorter = new TableRowSorter<>(tableModel);
+
+        searchIndex = new StudentSearchIndex(students);
+        ranks = new GradeRankIndex(students);
+        changeFeed = new RosterChangeFeed(students, RosterChangeFeed.DEFAULT_CAPACITY);
+        search = new DebouncedSearch(searchIndex, SEARCH_DEBOUNCE_MILLIS, this::applySearchResult);
+        students.addListener(search);
 
         studentsTable = new JTable(tableModel);
         studentsTable.setFont(new Font("SansSerif", Font.PLAIN, 12));
         studentsTable.setRowHeight(25);
         studentsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        studentsTable.setRowSorter(new TableRowSorter<>(tableModel));
+        studentsTable.setRowSorter(rowSorter);
 
+        StudentTableModel.CachedTextRenderer cellRenderer = new StudentTableModel.CachedTextRenderer();
+        for (int column = 0; column < tableModel.getColumnCount(); column++) {
+            studentsTable.getColumnModel().getColumn(column).setCellRenderer(cellRenderer);
+        }
         studentsTable.getColumnModel().getColumn(0).setMaxWidth(50);
         studentsTable.getColumnModel().getColumn(2).setMaxWidth(80);
         studentsTable.getColumnModel().getColumn(3).setMaxWidth(100);
@@ -113,6 +181,11 @@ public class EnhancedStudentGradeTracker extends JFrame {
         averageProgressBar = new JProgressBar(0, 100);
         averageProgressBar.setStringPainted(true);
         averageProgressBar.setForeground(PRIMARY_COLOR);
+
+        distributionReportPanel = new DistributionReportPanel(students, () -> searchMatches);
+        distributionReportPanel.setBorder(createTitledBorder("Grade Distribution"));
+
+        taskProgressPanel = new TaskProgressPanel(PRIMARY_COLOR);
     }
 
     private JLabel createStatLabel(String text) {
@@ -137,10 +210,14 @@ public class EnhancedStudentGradeTracker extends JFrame {
         JPanel tablePanel = createTablePanel();
         mainPanel.add(tablePanel, BorderLayout.CENTER);
 
-        JPanel statsPanel = createStatisticsPanel();
-        mainPanel.add(statsPanel, BorderLayout.SOUTH);
+        JPanel reportsPanel = new JPanel(new GridLayout(1, 2, 10, 0));
+        reportsPanel.setBackground(Color.WHITE);
+        reportsPanel.add(createStatisticsPanel());
+        reportsPanel.add(distributionReportPanel);
+        mainPanel.add(reportsPanel, BorderLayout.SOUTH);
 
         add(mainPanel, BorderLayout.CENTER);
+        add(taskProgressPanel, BorderLayout.SOUTH);
 
         setJMenuBar(createMenuBar());
     }
@@ -242,18 +319,36 @@ public class EnhancedStudentGradeTracker extends JFrame {
         fileMenu.add(createMenuItem("Save Data", e -> saveData()));
         fileMenu.add(createMenuItem("Load Data", e -> loadData()));
         fileMenu.addSeparator();
+        fileMenu.add(createMenuItem("Import CSV...", e -> importCsv()));
         fileMenu.add(createMenuItem("Export to CSV", e -> exportToCsv()));
         fileMenu.addSeparator();
         fileMenu.add(createMenuItem("Exit", e -> handleApplicationExit()));
 
+        JMenu editMenu = new JMenu("Edit");
+        int shortcut = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        undoMenuItem = createMenuItem("Undo", e -> undo());
+        undoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcut));
+        redoMenuItem = createMenuItem("Redo", e -> redo());
+        redoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, shortcut));
+        editMenu.add(undoMenuItem);
+        editMenu.add(redoMenuItem);
+        history.addChangeListener(this::updateUndoMenuItems);
+        updateUndoMenuItems();
+
         JMenu toolsMenu = new JMenu("Tools");
         toolsMenu.add(createMenuItem("Clear All Data", e -> clearAllData()));
         toolsMenu.add(createMenuItem("Generate Sample Data", e -> generateSampleData()));
+        toolsMenu.addSeparator();
+        toolsMenu.add(createMenuItem("Rankings...", e -> showRankings()));
+        apiServerMenuItem = createMenuItem("Start API Server...", e -> toggleApiServer());
+        toolsMenu.add(apiServerMenuItem);
+        toolsMenu.add(createMenuItem("Diagnostics...", e -> showDiagnostics()));
 
         JMenu helpMenu = new JMenu("Help");
         helpMenu.add(createMenuItem("About", e -> showAboutDialog()));
 
         menuBar.add(fileMenu);
+        menuBar.add(editMenu);
         menuBar.add(toolsMenu);
         menuBar.add(helpMenu);
 
@@ -270,24 +365,33 @@ public class EnhancedStudentGradeTracker extends JFrame {
             }
         });
 
-        searchField.addKeyListener(new KeyAdapter() {
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public void keyReleased(KeyEvent e) {
+            public void insertUpdate(DocumentEvent e) {
+                filterTable();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterTable();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
                 filterTable();
             }
         });
 
         findButtonByText("Add Student").addActionListener(e -> addStudent());
-        findButtonByText("Clear").addActionListener(e -> {
-            searchField.setText("");
-            filterTable();
-        });
+        findButtonByText("Clear").addActionListener(e -> searchField.setText(""));
         findButtonByText("Update Selected").addActionListener(e -> updateSelectedStudent());
         findButtonByText("Delete Selected").addActionListener(e -> deleteSelectedStudent());
         findButtonByText("Export Data").addActionListener(e -> exportToCsv());
     }
 
     private void addStudent() {
+        if (!ensureIdle()) return;
+
         String name = nameField.getText().trim();
         int grade = (Integer) gradeSpinner.getValue();
 
@@ -296,11 +400,13 @@ public class EnhancedStudentGradeTracker extends JFrame {
             nameField.requestFocus();
             return;
         }
+        if (!Student.isValidName(name)) {
+            showErrorDialog("Student names cannot contain line breaks or other control characters.");
+            nameField.requestFocus();
+            return;
+        }
 
-        boolean nameExists = this.student.stream()
-                .anyMatch(s -> s.getName().equalsIgnoreCase(name));
-
-        if (nameExists) {
+        if (students.containsName(name)) {
             int choice = JOptionPane.showConfirmDialog(
                     this,
                     "A student with this name already exists. Add anyway?",
@@ -312,10 +418,7 @@ public class EnhancedStudentGradeTracker extends JFrame {
             }
         }
 
-        Student student = new Student(nextStudentId++, name, grade);
-        this.student.add(student);
-        addStudentToTable(student);
-        updateStatistics();
+        students.add(new Student(nextStudentId++, name, grade));
 
         nameField.setText("");
         gradeSpinner.setValue(0);
@@ -324,18 +427,10 @@ public class EnhancedStudentGradeTracker extends JFrame {
         showSuccessMessage("Student added successfully!");
     }
 
-    private void addStudentToTable(Student student) {
-        Object[] rowData = {
-                student.getId(),
-                student.getName(),
-                student.getGrade(),
-                student.getLetterGrade(),
-                student.getStatus()
-        };
-        tableModel.addRow(rowData);
-    }
-
     private void updateSelectedStudent() {
+        if (!ensureIdle()) return;
+
+        updates.flush();
         int selectedRow = studentsTable.getSelectedRow();
         if (selectedRow == -1) {
             showErrorDialog("Please select a student to update.");
@@ -343,20 +438,19 @@ public class EnhancedStudentGradeTracker extends JFrame {
         }
 
         int modelRow = studentsTable.convertRowIndexToModel(selectedRow);
-        int studentId = (Integer) tableModel.getValueAt(modelRow, 0);
-
-        Student student = findStudentById(studentId);
-        if (student == null) return;
+        Student student = tableModel.getStudentAt(modelRow);
 
         UpdateStudentDialog dialog = new UpdateStudentDialog(this, student);
         if (dialog.showDialog()) {
-            refreshTable();
-            updateStatistics();
+            students.update(student.getId(), dialog.getUpdatedName(), dialog.getUpdatedGrade());
             showSuccessMessage("Student updated successfully!");
         }
     }
 
     private void deleteSelectedStudent() {
+        if (!ensureIdle()) return;
+
+        updates.flush();
         int selectedRow = studentsTable.getSelectedRow();
         if (selectedRow == -1) {
             showErrorDialog("Please select a student to delete.");
@@ -364,8 +458,9 @@ public class EnhancedStudentGradeTracker extends JFrame {
         }
 
         int modelRow = studentsTable.convertRowIndexToModel(selectedRow);
-        int studentId = (Integer) tableModel.getValueAt(modelRow, 0);
-        String studentName = (String) tableModel.getValueAt(modelRow, 1);
+        Student selected = tableModel.getStudentAt(modelRow);
+        int studentId = selected.getId();
+        String studentName = selected.getName();
 
         int choice = JOptionPane.showConfirmDialog(
                 this,
@@ -376,27 +471,48 @@ public class EnhancedStudentGradeTracker extends JFrame {
         );
 
         if (choice == JOptionPane.YES_OPTION) {
-            student.removeIf(s -> s.getId() == studentId);
-            tableModel.removeRow(modelRow);
-            updateStatistics();
+            students.remove(studentId);
             showSuccessMessage("Student deleted successfully!");
         }
     }
 
     private void filterTable() {
-        String searchText = searchField.getText().toLowerCase();
-        TableRowSorter<DefaultTableModel> sorter =
-                (TableRowSorter<DefaultTableModel>) studentsTable.getRowSorter();
+        search.setQuery(searchField.getText());
+    }
 
-        if (searchText.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + searchText));
+    private void applySearchResult(BitSet matchingIds) {
+        Metrics.Sample sample = FILTER_TIMER.start();
+        try {
+            // The filter reads ids by model row, so the table must be in step with the roster.
+            updates.flush();
+            searchMatches = matchingIds;
+            if (matchingIds == null) {
+                rowSorter.setRowFilter(null);
+            } else {
+                rowSorter.setRowFilter(new RowFilter<>() {
+                    @Override
+                    public boolean include(Entry<? extends StudentTableModel, ? extends Integer> entry) {
+                        return matchingIds.get(students.idAt(entry.getIdentifier()));
+                    }
+                });
+            }
+        } finally {
+            sample.stop();
         }
     }
 
     private void updateStatistics() {
-        if (student.isEmpty()) {
+        Metrics.Sample sample = STATISTICS_TIMER.start();
+        try {
+            showStatistics(students.statistics());
+            distributionReportPanel.refresh();
+        } finally {
+            sample.stop();
+        }
+    }
+
+    private void showStatistics(GradeStatistics statistics) {
+        if (statistics.isEmpty()) {
             totalStudentsLabel.setText("Total Students: 0");
             averageGradeLabel.setText("Average Grade: N/A");
             highestGradeLabel.setText("Highest Grade: N/A");
@@ -406,10 +522,10 @@ public class EnhancedStudentGradeTracker extends JFrame {
             return;
         }
 
-        int total = student.size();
-        double average = student.stream().mapToInt(Student::getGrade).average().orElse(0);
-        int highest = student.stream().mapToInt(Student::getGrade).max().orElse(0);
-        int lowest = student.stream().mapToInt(Student::getGrade).min().orElse(0);
+        long total = statistics.getCount();
+        double average = statistics.getMean();
+        int highest = statistics.getMax();
+        int lowest = statistics.getMin();
 
         totalStudentsLabel.setText("Total Students: " + total);
         averageGradeLabel.setText(String.format("Average Grade: %.1f", average));
@@ -428,14 +544,9 @@ public class EnhancedStudentGradeTracker extends JFrame {
         }
     }
 
-    private void refreshTable() {
-        tableModel.setRowCount(0);
-        for (Student student : this.student) {
-            addStudentToTable(student);
-        }
-    }
-
     private void clearAllData() {
+        if (!ensureIdle()) return;
+
         int choice = JOptionPane.showConfirmDialog(
                 this,
                 "This will delete all student data. Are you sure?",
@@ -445,84 +556,235 @@ public class EnhancedStudentGradeTracker extends JFrame {
         );
 
         if (choice == JOptionPane.YES_OPTION) {
-            student.clear();
-            tableModel.setRowCount(0);
-            nextStudentId = 1;
-            updateStatistics();
-            showSuccessMessage("All data cleared successfully!");
+            // Ids keep counting up, so an undone clear cannot collide with students added since.
+            history.clear();
+            showSuccessMessage(history.canUndo()
+                    ? "All data cleared successfully! Use Edit > Undo to restore it."
+                    : "All data cleared successfully!");
+        }
+    }
+
+    private void undo() {
+        if (!ensureIdle() || !history.canUndo()) return;
+
+        try {
+            history.undo();
+        } catch (RuntimeException e) {
+            showErrorDialog("Could not undo: " + e.getMessage() + ". The undo history has been cleared.");
+        }
+    }
+
+    private void redo() {
+        if (!ensureIdle() || !history.canRedo()) return;
+
+        try {
+            history.redo();
+        } catch (RuntimeException e) {
+            showErrorDialog("Could not redo: " + e.getMessage() + ". The undo history has been cleared.");
         }
     }
 
+    private void updateUndoMenuItems() {
+        undoMenuItem.setEnabled(history.canUndo());
+        undoMenuItem.setText(history.canUndo() ? "Undo " + history.getUndoLabel() : "Undo");
+        redoMenuItem.setEnabled(history.canRedo());
+        redoMenuItem.setText(history.canRedo() ? "Redo " + history.getRedoLabel() : "Redo");
+    }
+
     private void generateSampleData() {
-        String[] names = {"Alice Johnson", "Bob Smith", "Carol Davis", "David Wilson",
-                "Emma Brown", "Frank Miller", "Grace Lee", "Henry Taylor"};
-        int[] grades = {95, 87, 92, 78, 85, 90, 88, 93};
+        if (!ensureIdle()) return;
+
+        String input = JOptionPane.showInputDialog(this, "How many students should be generated?", 8);
+        if (input == null) return;
 
-        for (int i = 0; i < names.length; i++) {
-            Student student = new Student(nextStudentId++, names[i], grades[i]);
-            this.student.add(student);
-            addStudentToTable(student);
+        int count;
+        try {
+            count = Integer.parseInt(input.trim());
+        } catch (NumberFormatException e) {
+            showErrorDialog("Please enter a whole number of students.");
+            return;
+        }
+        if (count <= 0) {
+            showErrorDialog("Please enter a positive number of students.");
+            return;
         }
 
-        updateStatistics();
-        showSuccessMessage("Sample data generated successfully!");
+        int firstId = nextStudentId;
+        nextStudentId += count;
+        history.beginGroup("Generate Sample Data");
+        taskProgressPanel.run("Generating sample data...", new SampleDataWorker(firstId, count));
+    }
+
+    private void toggleApiServer() {
+        if (apiServer != null) {
+            stopApiServer();
+            apiServerMenuItem.setText("Start API Server...");
+            showSuccessMessage("API server stopped.");
+            return;
+        }
+
+        String input = JOptionPane.showInputDialog(this, "Port for the local HTTP API:", GradeApiServer.DEFAULT_PORT);
+        if (input == null) return;
+
+        int port;
+        try {
+            port = Integer.parseInt(input.trim());
+        } catch (NumberFormatException e) {
+            showErrorDialog("Please enter a whole port number.");
+            return;
+        }
+
+        searchIndex.ensureBuilt();
+        GradeApiServer server = new GradeApiServer(students, searchIndex, changeFeed,
+                new GradeApiServer.EventDispatchAccess(taskProgressPanel::isBusy),
+                () -> nextStudentId++, () -> { });
+        try {
+            server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (IOException | IllegalArgumentException e) {
+            showErrorDialog("Error starting the API server: " + e.getMessage());
+            return;
+        }
+        apiServer = server;
+        apiServerMenuItem.setText("Stop API Server");
+        showSuccessMessage("API server listening on http://localhost:" + server.getAddress().getPort());
     }
 
     private void exportToCsv() {
+        if (!ensureIdle()) return;
+
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setSelectedFile(new File("student_grades_" +
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv"));
 
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (PrintWriter writer = new PrintWriter(fileChooser.getSelectedFile())) {
-                writer.println("ID,Student Name,Grade,Letter Grade,Status");
-
-                for (Student student : this.student) {
-                    writer.printf("%d,\"%s\",%d,%s,%s%n",
-                            student.getId(),
-                            student.getName(),
-                            student.getGrade(),
-                            student.getLetterGrade(),
-                            student.getStatus()
-                    );
-                }
+            taskProgressPanel.run("Exporting...", new ExportWorker(fileChooser.getSelectedFile(), students.toList()));
+        }
+    }
 
-                showSuccessMessage("Data exported successfully to " + fileChooser.getSelectedFile().getName());
-            } catch (IOException e) {
-                showErrorDialog("Error exporting data: " + e.getMessage());
+    private void importCsv() {
+        if (!ensureIdle()) return;
+
+        JFileChooser fileChooser = new JFileChooser();
+        if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            taskProgressPanel.run("Importing...", new ImportWorker(fileChooser.getSelectedFile()));
+        }
+    }
+
+    /**
+     * Shows every invalid row and duplicate name of an import in one report. Returns the rows
+     * to insert, or {@code null} if the user cancelled the import.
+     */
+    private List<CsvImporter.Row> confirmImport(CsvImporter.Result result) {
+        List<CsvImporter.Row> duplicates = CsvImporter.findDuplicateNames(result.rows, students);
+        if (result.problems.isEmpty() && duplicates.isEmpty()) {
+            return result.rows;
+        }
+
+        StringBuilder report = new StringBuilder();
+        int listed = 0;
+        for (CsvImporter.Problem problem : result.problems) {
+            if (listed++ == IMPORT_REPORT_LIMIT) break;
+            report.append(problem).append(" (skipped)\n");
+        }
+        for (CsvImporter.Row row : duplicates) {
+            if (listed++ >= IMPORT_REPORT_LIMIT) break;
+            report.append("Line ").append(row.line).append(": a student named '")
+                    .append(row.name).append("' already exists\n");
+        }
+        int total = result.problems.size() + duplicates.size();
+        if (total > IMPORT_REPORT_LIMIT) {
+            report.append("... and ").append(total - IMPORT_REPORT_LIMIT).append(" more\n");
+        }
+
+        JTextArea reportArea = new JTextArea(report.toString(), 15, 60);
+        reportArea.setEditable(false);
+        reportArea.setCaretPosition(0);
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.add(new JLabel(result.rows.size() + " valid rows, " + result.problems.size()
+                + " invalid rows, " + duplicates.size() + " duplicate names."), BorderLayout.NORTH);
+        panel.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+
+        String[] options = duplicates.isEmpty()
+                ? new String[]{"Import Valid Rows", "Cancel"}
+                : new String[]{"Import All", "Skip Duplicates", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(this, panel, "Import Report",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.WARNING_MESSAGE, null, options, options[0]);
+        if (choice < 0 || options[choice].equals("Cancel")) {
+            return null;
+        }
+        if (options[choice].equals("Skip Duplicates")) {
+            Set<CsvImporter.Row> skipped = Collections.newSetFromMap(new IdentityHashMap<>());
+            skipped.addAll(duplicates);
+            List<CsvImporter.Row> rows = new ArrayList<>(result.rows.size() - duplicates.size());
+            for (CsvImporter.Row row : result.rows) {
+                if (!skipped.contains(row)) rows.add(row);
             }
+            return rows;
         }
+        return result.rows;
     }
 
     private void saveData() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(student);
-            oos.writeInt(nextStudentId);
-            showSuccessMessage("Data saved successfully!");
+        if (!ensureIdle() || !confirmReplacingUnloadedData()) return;
+
+        try {
+            taskProgressPanel.run("Saving...", new SaveWorker(store.prepareSave(students, nextStudentId)));
         } catch (IOException e) {
             showErrorDialog("Error saving data: " + e.getMessage());
         }
     }
 
-    @SuppressWarnings("unchecked")
     private void loadData() {
-        File file = new File(DATA_FILE);
-        if (!file.exists()) return;
+        if (!ensureIdle()) return;
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(DATA_FILE))) {
-            List<Student> loadedStudents = (List<Student>) ois.readObject();
-            nextStudentId = ois.readInt();
-
-            student.clear();
-            student.addAll(loadedStudents);
-            refreshTable();
-            updateStatistics();
+        try {
+            if (students instanceof MappedStudentRepository) {
+                Metrics.Sample sample = LOAD_TIMER.start();
+                history.suspend();
+                try {
+                    nextStudentId = store.open(students);
+                } finally {
+                    history.resume();
+                    sample.stop();
+                }
+                return;
+            }
 
-        } catch (IOException | ClassNotFoundException e) {
+            store.beginOpen();
+            history.suspend();
+            students.clear();
+            taskProgressPanel.run("Loading...", new LoadWorker());
+        } catch (IOException e) {
             showErrorDialog("Error loading data: " + e.getMessage());
         }
     }
 
+    private boolean confirmReplacingUnloadedData() {
+        if (store.isOpen()) return true;
+
+        int choice = JOptionPane.showConfirmDialog(
+                this,
+                "The saved data was not loaded. Saving will replace it. Continue?",
+                "Replace Saved Data",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE
+        );
+        return choice == JOptionPane.YES_OPTION;
+    }
+
+    private static String describe(Exception e) {
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage();
+    }
+
+    private boolean ensureIdle() {
+        if (taskProgressPanel.isBusy()) {
+            showErrorDialog("Please wait for the current operation to finish or cancel it.");
+            return false;
+        }
+        return true;
+    }
+
     private void handleApplicationExit() {
         int choice = JOptionPane.showConfirmDialog(
                 this,
@@ -532,13 +794,60 @@ public class EnhancedStudentGradeTracker extends JFrame {
         );
 
         if (choice == JOptionPane.YES_OPTION) {
-            saveData();
+            if (!ensureIdle() || !confirmReplacingUnloadedData()) return;
+            stopApiServer();
+            try {
+                store.save(students, nextStudentId);
+            } catch (IOException e) {
+                showErrorDialog("Error saving data: " + e.getMessage());
+                return;
+            }
+            closeStore(true);
             System.exit(0);
         } else if (choice == JOptionPane.NO_OPTION) {
+            stopApiServer();
+            closeStore(false);
             System.exit(0);
         }
     }
 
+    private void stopApiServer() {
+        if (apiServer != null) {
+            apiServer.stop();
+            apiServer = null;
+        }
+    }
+
+    private void closeStore(boolean keepChanges) {
+        try {
+            store.close(keepChanges);
+        } catch (IOException e) {
+            showErrorDialog("Error closing data files: " + e.getMessage());
+        }
+    }
+
+    private void showRankings() {
+        updates.flush();
+        int selectedRow = studentsTable.getSelectedRow();
+        int selectedId = selectedRow == -1 ? 0
+                : tableModel.getStudentAt(studentsTable.convertRowIndexToModel(selectedRow)).getId();
+        JDialog dialog = new JDialog(this, "Rankings", false);
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setContentPane(new RankingsPanel(students, ranks, selectedId));
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    private void showDiagnostics() {
+        JDialog dialog = new JDialog(this, "Diagnostics", false);
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setContentPane(new DiagnosticsPanel());
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
     private void showAboutDialog() {
         String message = """
                 Enhanced Student Grade Tracker v2.0
@@ -596,13 +905,6 @@ public class EnhancedStudentGradeTracker extends JFrame {
         return null;
     }
 
-    private Student findStudentById(int id) {
-        return student.stream()
-                .filter(s -> s.getId() == id)
-                .findFirst()
-                .orElse(null);
-    }
-
     private void showSuccessMessage(String message) {
         JOptionPane.showMessageDialog(this, message, "Success", JOptionPane.INFORMATION_MESSAGE);
     }
@@ -611,10 +913,244 @@ public class EnhancedStudentGradeTracker extends JFrame {
         JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
     }
 
+    /**
+     * Produces students off the EDT and appends them to the roster in chunks on the EDT.
+     * Chunks are published as end indexes, so whatever is still pending when the worker
+     * finishes can be appended from {@link #done()}.
+     */
+    private abstract class AppendWorker<T> extends SwingWorker<T, Integer> {
+        private volatile List<Student> produced = List.of();
+        private int appended;
+
+        /** Called from {@code doInBackground}. Returns false if the worker was cancelled. */
+        protected boolean publishInChunks(List<Student> batch) {
+            produced = batch;
+            for (int end = 0; end < batch.size(); ) {
+                if (isCancelled()) return false;
+                end = Math.min(end + PUBLISH_CHUNK_SIZE, batch.size());
+                publish(end);
+                setProgress((int) (100L * end / batch.size()));
+            }
+            return true;
+        }
+
+        @Override
+        protected void process(List<Integer> ends) {
+            appendUpTo(ends.get(ends.size() - 1));
+        }
+
+        protected void appendRemaining() {
+            appendUpTo(produced.size());
+        }
+
+        private void appendUpTo(int end) {
+            if (isCancelled() || end <= appended) return;
+            students.addAll(produced.subList(appended, end));
+            appended = end;
+        }
+    }
+
+    private class LoadWorker extends AppendWorker<RosterSnapshot> {
+        private final Metrics.Sample sample = LOAD_TIMER.start();
+
+        @Override
+        protected RosterSnapshot doInBackground() throws IOException {
+            RosterSnapshot snapshot = store.load();
+            if (snapshot != null) {
+                publishInChunks(snapshot.getStudents());
+            }
+            return snapshot;
+        }
+
+        @Override
+        protected void done() {
+            history.resume();
+            if (isCancelled()) {
+                sample.stop();
+                students.clear();
+                showErrorDialog("Loading was cancelled. No data has been loaded.");
+                return;
+            }
+            try {
+                RosterSnapshot snapshot = get();
+                appendRemaining();
+                nextStudentId = snapshot == null
+                        ? store.finishOpen(students, 0, 1)
+                        : store.finishOpen(students, snapshot.getJournalGeneration(), snapshot.getNextStudentId());
+                sample.stop();
+                if (!store.getLoadProblems().isEmpty()) {
+                    showErrorDialog("Some saved data could not be read and was skipped:\n"
+                            + String.join("\n", store.getLoadProblems())
+                            + "\nThe damaged files will be kept with a .corrupt suffix when the roster is next rewritten.");
+                }
+            } catch (IOException e) {
+                sample.stop();
+                showErrorDialog("Error loading data: " + e.getMessage());
+            } catch (InterruptedException | ExecutionException e) {
+                sample.stop();
+                showErrorDialog("Error loading data: " + describe(e));
+            }
+        }
+    }
+
+    private class SampleDataWorker extends AppendWorker<Void> {
+        private final int firstId;
+        private final int count;
+
+        SampleDataWorker(int firstId, int count) {
+            this.firstId = firstId;
+            this.count = count;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            String[] names = {"Alice Johnson", "Bob Smith", "Carol Davis", "David Wilson",
+                    "Emma Brown", "Frank Miller", "Grace Lee", "Henry Taylor"};
+            int[] grades = {95, 87, 92, 78, 85, 90, 88, 93};
+
+            List<Student> sample = new ArrayList<>(count);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < count && !isCancelled(); i++) {
+                if (i < names.length) {
+                    sample.add(new Student(firstId + i, names[i], grades[i]));
+                } else {
+                    String name = names[i % names.length] + " " + (i / names.length + 1);
+                    sample.add(new Student(firstId + i, name, random.nextInt(50, 101)));
+                }
+            }
+            publishInChunks(sample);
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                history.endGroup();
+                showErrorDialog("Sample data generation was cancelled.");
+                return;
+            }
+            appendRemaining();
+            history.endGroup();
+            showSuccessMessage("Sample data generated successfully!");
+        }
+    }
+
+    private class ExportWorker extends SwingWorker<Void, Void> {
+        private final File file;
+        private final List<Student> rows;
+        private final Metrics.Sample sample = EXPORT_TIMER.start();
+
+        ExportWorker(File file, List<Student> rows) {
+            this.file = file;
+            this.rows = rows;
+        }
+
+        @Override
+        protected Void doInBackground() throws IOException {
+            CsvExporter exporter = new CsvExporter(Runtime.getRuntime().availableProcessors());
+            boolean gzip = file.getName().toLowerCase().endsWith(".gz");
+            boolean completed = exporter.export(rows, file.toPath(), gzip,
+                    written -> setProgress((int) (100L * written / rows.size())), this::isCancelled);
+            if (!completed) {
+                Files.deleteIfExists(file.toPath());
+            }
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            sample.stop();
+            if (isCancelled()) {
+                showErrorDialog("Export was cancelled.");
+                return;
+            }
+            try {
+                get();
+                showSuccessMessage("Data exported successfully to " + file.getName());
+            } catch (InterruptedException | ExecutionException e) {
+                showErrorDialog("Error exporting data: " + describe(e));
+            }
+        }
+    }
+
+    private class ImportWorker extends SwingWorker<CsvImporter.Result, Void> {
+        private final File file;
+        private final Metrics.Sample sample = IMPORT_TIMER.start();
+
+        ImportWorker(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected CsvImporter.Result doInBackground() throws IOException {
+            CsvImporter importer = new CsvImporter(Runtime.getRuntime().availableProcessors());
+            return importer.parse(file.toPath(), this::setProgress, this::isCancelled);
+        }
+
+        @Override
+        protected void done() {
+            sample.stop();
+            if (isCancelled()) {
+                showErrorDialog("Import was cancelled. No students have been added.");
+                return;
+            }
+            CsvImporter.Result result;
+            try {
+                result = get();
+            } catch (InterruptedException | ExecutionException e) {
+                showErrorDialog("Error importing data: " + describe(e));
+                return;
+            }
+
+            List<CsvImporter.Row> rows = confirmImport(result);
+            if (rows == null) return;
+
+            List<Student> batch = new ArrayList<>(rows.size());
+            for (CsvImporter.Row row : rows) {
+                batch.add(new Student(nextStudentId++, row.name, row.grade));
+            }
+            history.beginGroup("Import " + file.getName());
+            students.addAll(batch);
+            history.endGroup();
+            showSuccessMessage(batch.size() + " students imported from " + file.getName());
+        }
+    }
+
+    private class SaveWorker extends SwingWorker<Void, Void> {
+        private final Callable<Void> save;
+        private final Metrics.Sample sample = SAVE_TIMER.start();
+
+        SaveWorker(Callable<Void> save) {
+            this.save = save;
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            return save.call();
+        }
+
+        @Override
+        protected void done() {
+            sample.stop();
+            if (isCancelled()) {
+                showErrorDialog("Save was cancelled; changes may not have been saved.");
+                return;
+            }
+            try {
+                get();
+                showSuccessMessage("Data saved successfully!");
+            } catch (InterruptedException | ExecutionException e) {
+                showErrorDialog("Error saving data: " + describe(e));
+            }
+        }
+    }
+
     private static class UpdateStudentDialog extends JDialog {
         private final Student student;
         private JTextField nameField;
         private JSpinner gradeSpinner;
+        private String updatedName;
+        private int updatedGrade;
         private boolean confirmed = false;
 
         public UpdateStudentDialog(JFrame parent, Student student) {
@@ -656,8 +1192,15 @@ public class EnhancedStudentGradeTracker extends JFrame {
             JButton cancelButton = new JButton("Cancel");
 
             okButton.addActionListener(e -> {
-                student.setName(nameField.getText().trim());
-                student.setGrade((Integer) gradeSpinner.getValue());
+                if (!Student.isValidName(nameField.getText().trim())) {
+                    JOptionPane.showMessageDialog(this,
+                            "Please enter a student name without line breaks or other control characters.",
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    nameField.requestFocus();
+                    return;
+                }
+                updatedName = nameField.getText().trim();
+                updatedGrade = (Integer) gradeSpinner.getValue();
                 confirmed = true;
                 dispose();
             });
@@ -675,6 +1218,14 @@ public class EnhancedStudentGradeTracker extends JFrame {
             setVisible(true);
             return confirmed;
         }
+
+        public String getUpdatedName() {
+            return updatedName;
+        }
+
+        public int getUpdatedGrade() {
+            return updatedGrade;
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,261 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Distribution reports and cohort comparisons. The roster's ids and grades are copied into
+ * primitive columns on the EDT, then a fork/join pass counts every grade into its cohort's
+ * 101-bucket histogram: each leaf counts its slice into private histograms and halves are
+ * added on the way back up, so the pass scales with the cores and never boxes a grade.
+ * Everything in a {@link Report} is then read from those histograms.
+ */
+final class GradeAnalytics {
+    static final int LEAF_SIZE = 1 << 16;
+    static final int MAX_COHORTS = 100;
+
+    private static final int BUCKETS = GradeStatistics.MAX_GRADE + 1;
+    private static final String CSV_HEADER = "Cohort,Students,Average,Std Dev,Lowest,Q1,Median,Q3,Highest,Pass Rate";
+
+    private GradeAnalytics() {
+    }
+
+    /** Splits students into cohorts by id. */
+    interface Cohorts {
+        String[] names();
+
+        /**
+         * Adds the grade of every row in {@code [from, to)} to {@code counts[cohort * 101 + grade]}.
+         * Called concurrently from the fork/join workers.
+         */
+        void count(int[] ids, byte[] grades, int from, int to, long[] counts);
+    }
+
+    /**
+     * Up to {@code periods} cohorts covering equal ranges of the copied ids. Ids are handed out
+     * in order, so each range is a period of enrollment.
+     */
+    static Cohorts enrollmentPeriods(Columns columns, int periods) {
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        for (int id : columns.ids) {
+            if (id < lowest) lowest = id;
+            if (id > highest) highest = id;
+        }
+        if (columns.size() == 0) {
+            lowest = highest = 0;
+        }
+
+        long span = (long) highest - lowest + 1;
+        int count = (int) Math.max(1, Math.min(Math.min(periods, MAX_COHORTS), span));
+        String[] names = new String[count];
+        int[] starts = new int[count];
+        for (int cohort = 0; cohort < count; cohort++) {
+            starts[cohort] = (int) (lowest + span * cohort / count);
+            names[cohort] = "IDs " + starts[cohort] + "-" + (lowest + span * (cohort + 1) / count - 1);
+        }
+        return new Cohorts() {
+            @Override
+            public String[] names() {
+                return names.clone();
+            }
+
+            @Override
+            public void count(int[] ids, byte[] grades, int from, int to, long[] counts) {
+                int last = starts.length - 1;
+                for (int i = from; i < to; i++) {
+                    int id = ids[i];
+                    int cohort = 0;
+                    while (cohort < last && id >= starts[cohort + 1]) cohort++;
+                    counts[cohort * BUCKETS + grades[i]]++;
+                }
+            }
+        };
+    }
+
+    /** Students matching a search against everyone else. {@code matchingIds} is copied. */
+    static Cohorts searchMatches(BitSet matchingIds) {
+        long[] words = matchingIds.toLongArray();
+        return new Cohorts() {
+            @Override
+            public String[] names() {
+                return new String[]{"Search matches", "Other students"};
+            }
+
+            @Override
+            public void count(int[] ids, byte[] grades, int from, int to, long[] counts) {
+                for (int i = from; i < to; i++) {
+                    int id = ids[i];
+                    int word = id >>> 6;
+                    boolean matches = word < words.length && (words[word] & (1L << id)) != 0;
+                    counts[(matches ? 0 : BUCKETS) + grades[i]]++;
+                }
+            }
+        };
+    }
+
+    /** Copies the id and grade of every student. Call it on the thread that mutates the roster. */
+    static Columns copyColumns(StudentRepository students) {
+        int size = students.size();
+        int[] ids = new int[size];
+        byte[] grades = new byte[size];
+        students.copyColumns(ids, grades);
+        return new Columns(ids, grades);
+    }
+
+    /**
+     * Counts the columns into one histogram per cohort on {@code pool} and returns the report
+     * of all students followed by one report per cohort.
+     */
+    static List<Report> compare(Columns columns, Cohorts cohorts, GradingScale scale, ForkJoinPool pool) {
+        String[] names = cohorts.names();
+        if (names.length == 0 || names.length > MAX_COHORTS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_COHORTS + " cohorts are supported: " + names.length);
+        }
+        int cohortCount = names.length;
+        long[] counts = columns.size() == 0
+                ? new long[cohortCount * BUCKETS]
+                : pool.invoke(new HistogramTask(columns, cohorts, cohortCount, 0, columns.size()));
+
+        GradeStatistics all = new GradeStatistics();
+        List<Report> cohortReports = new ArrayList<>(cohortCount);
+        for (int cohort = 0; cohort < cohortCount; cohort++) {
+            GradeStatistics statistics = new GradeStatistics();
+            for (int grade = 0; grade < BUCKETS; grade++) {
+                long count = counts[cohort * BUCKETS + grade];
+                statistics.add(grade, count);
+                all.add(grade, count);
+            }
+            cohortReports.add(new Report(names[cohort], statistics, scale));
+        }
+
+        List<Report> reports = new ArrayList<>(cohortCount + 1);
+        reports.add(new Report("All students", all, scale));
+        reports.addAll(cohortReports);
+        return reports;
+    }
+
+    /** Writes one CSV row per report, with the share of every letter grade as extra columns. */
+    static void writeCsv(List<Report> reports, Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder header = new StringBuilder(CSV_HEADER);
+            if (!reports.isEmpty()) {
+                for (String letter : reports.get(0).letterCounts.keySet()) {
+                    header.append(',').append(quote(letter));
+                }
+            }
+            out.write(header.append('\n').toString());
+
+            for (Report report : reports) {
+                GradeStatistics statistics = report.statistics;
+                StringBuilder row = new StringBuilder(quote(report.name)).append(',').append(statistics.getCount());
+                if (statistics.isEmpty()) {
+                    row.append(",".repeat(8 + report.letterCounts.size()));
+                } else {
+                    row.append(String.format(Locale.ROOT, ",%.2f,%.2f,%d,%d,%d,%d,%d,%.4f",
+                            statistics.getMean(), statistics.getStandardDeviation(), statistics.getMin(),
+                            statistics.getPercentile(25), statistics.getMedian(), statistics.getPercentile(75),
+                            statistics.getMax(), report.getPassRate()));
+                    for (long count : report.letterCounts.values()) {
+                        row.append(String.format(Locale.ROOT, ",%.4f", (double) count / statistics.getCount()));
+                    }
+                }
+                out.write(row.append('\n').toString());
+            }
+        }
+    }
+
+    private static String quote(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /** A copy of the roster's ids and grades, in roster order. */
+    static final class Columns {
+        final int[] ids;
+        final byte[] grades;
+
+        Columns(int[] ids, byte[] grades) {
+            if (ids.length != grades.length) {
+                throw new IllegalArgumentException("Every grade needs exactly one id");
+            }
+            this.ids = ids;
+            this.grades = grades;
+        }
+
+        public int size() {
+            return grades.length;
+        }
+    }
+
+    /** The distribution of one cohort's grades. */
+    static final class Report {
+        final String name;
+        final GradeStatistics statistics;
+        /** Students per letter grade, best letter first. Letters nobody earned count zero. */
+        final Map<String, Long> letterCounts = new LinkedHashMap<>();
+        final long passing;
+
+        Report(String name, GradeStatistics statistics, GradingScale scale) {
+            this.name = name;
+            this.statistics = statistics;
+            long passed = 0;
+            for (int grade = GradeStatistics.MAX_GRADE; grade >= GradeStatistics.MIN_GRADE; grade--) {
+                long count = statistics.countOf(grade);
+                letterCounts.merge(scale.letterGradeFor(grade), count, Long::sum);
+                if (grade >= scale.getPassingGrade()) passed += count;
+            }
+            passing = passed;
+        }
+
+        /** Share of the cohort at or above the passing grade, from 0 to 1. */
+        public double getPassRate() {
+            return statistics.isEmpty() ? 0 : (double) passing / statistics.getCount();
+        }
+    }
+
+    /** Counts a slice of the columns into {@code cohortCount} histograms laid out back to back. */
+    private static final class HistogramTask extends RecursiveTask<long[]> {
+        private final Columns columns;
+        private final Cohorts cohorts;
+        private final int cohortCount;
+        private final int from;
+        private final int to;
+
+        HistogramTask(Columns columns, Cohorts cohorts, int cohortCount, int from, int to) {
+            this.columns = columns;
+            this.cohorts = cohorts;
+            this.cohortCount = cohortCount;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= LEAF_SIZE) {
+                long[] counts = new long[cohortCount * BUCKETS];
+                cohorts.count(columns.ids, columns.grades, from, to, counts);
+                return counts;
+            }
+
+            int middle = (from + to) >>> 1;
+            HistogramTask left = new HistogramTask(columns, cohorts, cohortCount, from, middle);
+            left.fork();
+            long[] counts = new HistogramTask(columns, cohorts, cohortCount, middle, to).compute();
+            long[] leftCounts = left.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += leftCounts[i];
+            }
+            return counts;
+        }
+    }
+}
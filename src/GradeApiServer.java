@@ -0,0 +1,780 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Embedded HTTP/JSON API over a roster. It runs on the JDK's {@link HttpServer}, and every
+ * exchange gets its own virtual thread, so a client waiting on the roster costs no
+ * platform thread.
+ * <p>
+ * Handlers touch the repository only through a {@link RosterAccess}. Inside it they copy
+ * out what they need and serialize after it returns, so the roster is held no longer than
+ * a lookup. Searches use the thread-safe {@link StudentSearchIndex} and only enter the
+ * roster to copy the page of matches. Mirrors follow the roster through {@code /changes},
+ * which long-polls a {@link RosterChangeFeed}. They resync by paging in id order with
+ * {@code after_id}, which removals cannot shift, and read on from the sequence number the
+ * first page carries.
+ * <pre>
+ * GET    /students?offset=0&amp;limit=50   page of the roster, in storage order
+ * GET    /students?after_id=0&amp;limit=50 page of the students with higher ids, in id order
+ * POST   /students                     {"name": ..., "grade": ...}, returns 201 with the new id
+ * GET    /students/{id}
+ * PUT    /students/{id}                {"name": ..., "grade": ...}
+ * DELETE /students/{id}
+ * GET    /search?q=...&amp;offset=0&amp;limit=50 case-insensitive name search, in id order
+ * GET    /statistics
+ * GET    /changes?after=0&amp;limit=1000&amp;wait=30  changes after a sequence number, waiting up to
+ *                                      wait seconds for one; without after, only the next changes.
+ *                                      With feed=..., a different feed id reports missed changes
+ * </pre>
+ */
+public class GradeApiServer {
+    static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 4096;
+    private static final int MAX_IDLE_CONNECTIONS = 4096;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_CHANGES_WAIT_SECONDS = 30;
+    private static final int MAX_CHANGES_WAIT_SECONDS = 120;
+    private static final long AUTOSAVE_INTERVAL_SECONDS = 10;
+
+    private static final Metrics.Timer REQUEST_TIMER = Metrics.timer("api_request", "HTTP API requests, start to response");
+    private static final Metrics.Counter FAILURES = Metrics.counter("api_failed_requests",
+            "HTTP API requests answered with a 5xx status");
+
+    private static final String USAGE = """
+            Usage: java GradeApiServer [options]
+              --roster FILE    saved roster to serve (default student_grades.roster)
+              --host HOST      address to listen on (default 127.0.0.1)
+              --port PORT      port to listen on (default 8080; 0 picks a free one)""";
+
+    /** Serializes handler access to the roster with its owner. */
+    interface RosterAccess {
+        <T> T read(Supplier<T> action);
+
+        /** Runs a mutation. Throws {@link IllegalStateException} if the roster cannot be changed right now. */
+        <T> T write(Supplier<T> action);
+    }
+
+    /** For a roster owned by the server itself: concurrent reads, exclusive writes. */
+    static final class LockedAccess implements RosterAccess {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        @Override
+        public <T> T read(Supplier<T> action) {
+            lock.readLock().lock();
+            try {
+                return action.get();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public <T> T write(Supplier<T> action) {
+            lock.writeLock().lock();
+            try {
+                return action.get();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * For the roster shown in the window: every action runs on the EDT, like the frame's own
+     * changes. The calling virtual thread parks on a future rather than blocking in
+     * {@code invokeAndWait}. Writes are refused while {@code busy} reports a background task.
+     */
+    static final class EventDispatchAccess implements RosterAccess {
+        private final BooleanSupplier busy;
+
+        EventDispatchAccess(BooleanSupplier busy) {
+            this.busy = busy;
+        }
+
+        @Override
+        public <T> T read(Supplier<T> action) {
+            return onEventDispatchThread(action);
+        }
+
+        @Override
+        public <T> T write(Supplier<T> action) {
+            return onEventDispatchThread(() -> {
+                if (busy.getAsBoolean()) {
+                    throw new IllegalStateException("The roster is busy with another operation");
+                }
+                return action.get();
+            });
+        }
+
+        private static <T> T onEventDispatchThread(Supplier<T> action) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                return action.get();
+            }
+            CompletableFuture<T> result = new CompletableFuture<>();
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    result.complete(action.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                if (e.getCause() instanceof Error cause) throw cause;
+                throw e;
+            }
+        }
+    }
+
+    private final StudentRepository students;
+    private final StudentSearchIndex searchIndex;
+    private final RosterChangeFeed changes;
+    private final RosterAccess access;
+    private final IntSupplier idAllocator;
+    private final Runnable onChange;
+    /** Ids in the roster, for paging in id order. Kept on the thread that changes the roster; read it inside {@link #access}. */
+    private final BitSet liveIds = new BitSet();
+    private final RosterListener idTracker = new RosterListener() {
+        @Override
+        public void studentAdded(Student student, int index) {
+            liveIds.set(student.getId());
+        }
+
+        @Override
+        public void studentsAdded(int firstIndex, int lastIndex) {
+            for (int index = firstIndex; index <= lastIndex; index++) {
+                liveIds.set(students.idAt(index));
+            }
+        }
+
+        @Override
+        public void studentRemoved(Student student, int index, int movedFrom) {
+            liveIds.clear(student.getId());
+        }
+
+        @Override
+        public void rosterCleared(int previousSize) {
+            liveIds.clear();
+        }
+    };
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Serves {@code students}. {@code idAllocator} and {@code onChange} run inside
+     * {@link RosterAccess#write}, the first for each new student, the second after every
+     * change. The search index must already be built, and {@code changes} must record
+     * {@code students}.
+     */
+    GradeApiServer(StudentRepository students, StudentSearchIndex searchIndex, RosterChangeFeed changes,
+                   RosterAccess access, IntSupplier idAllocator, Runnable onChange) {
+        this.students = students;
+        this.searchIndex = searchIndex;
+        this.changes = changes;
+        this.access = access;
+        this.idAllocator = idAllocator;
+        this.onChange = onChange;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        Path rosterFile = Path.of("student_grades.roster");
+        String host = "127.0.0.1";
+        int port = DEFAULT_PORT;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--roster" -> rosterFile = Path.of(valueOf(args, ++i));
+                    case "--host" -> host = valueOf(args, ++i);
+                    case "--port" -> port = Integer.parseInt(valueOf(args, ++i));
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            serve(rosterFile, new InetSocketAddress(host, port));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static String valueOf(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+
+    /**
+     * Opens the roster the way the window does and serves it until the process is stopped.
+     * Changes are journaled as they happen, synced every few seconds and saved on shutdown.
+     */
+    private static void serve(Path rosterFile, InetSocketAddress address) throws IOException {
+        String name = rosterFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        Path legacyFile = rosterFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".dat");
+
+        StudentRepository students = System.getProperty("gradetracker.storage", "").equals("columnar")
+                ? new ColumnarStudentRepository() : new IndexedStudentRepository();
+        RosterStore store = new RosterStore(rosterFile, legacyFile);
+        int[] nextStudentId = {store.open(students)};
+        for (String problem : store.getLoadProblems()) {
+            System.err.println(rosterFile + ": " + problem);
+        }
+        boolean[] dirty = {false};
+        StudentSearchIndex searchIndex = new StudentSearchIndex(students);
+        searchIndex.ensureBuilt();
+        RosterChangeFeed changes = new RosterChangeFeed(students, RosterChangeFeed.DEFAULT_CAPACITY);
+
+        LockedAccess access = new LockedAccess();
+        GradeApiServer api = new GradeApiServer(students, searchIndex, changes, access,
+                () -> nextStudentId[0]++, () -> dirty[0] = true);
+        api.start(address);
+        System.out.println("Serving " + students.size() + " students from " + rosterFile
+                + " on http://" + address.getHostString() + ":" + api.getAddress().getPort());
+
+        Thread autosave = Thread.ofVirtual().name("roster-autosave").start(() -> {
+            while (true) {
+                try {
+                    TimeUnit.SECONDS.sleep(AUTOSAVE_INTERVAL_SECONDS);
+                    saveIfDirty(store, students, access, nextStudentId, dirty);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    System.err.println("Error saving roster: " + e.getMessage());
+                }
+            }
+        });
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.stop();
+            autosave.interrupt();
+            try {
+                saveIfDirty(store, students, access, nextStudentId, dirty);
+                store.close(true);
+            } catch (Exception e) {
+                System.err.println("Error saving roster: " + e.getMessage());
+            }
+        }, "roster-shutdown"));
+    }
+
+    private static void saveIfDirty(RosterStore store, StudentRepository students, RosterAccess access,
+                                    int[] nextStudentId, boolean[] dirty) throws Exception {
+        Callable<Void> save = access.write(() -> {
+            if (!dirty[0]) return null;
+            dirty[0] = false;
+            try {
+                return store.prepareSave(students, nextStudentId[0]);
+            } catch (IOException e) {
+                dirty[0] = true;
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        });
+        if (save == null) return;
+        try {
+            save.call();
+        } catch (Exception e) {
+            // Edits made since the flag was cleared set it again; this one may not have been saved either.
+            access.write(() -> dirty[0] = true);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts listening on {@code address}. Port 0 picks a free port; see {@link #getAddress()}.
+     * Indexes the roster's ids first, so call it where the roster may be read.
+     */
+    public void start(InetSocketAddress address) throws IOException {
+        liveIds.clear();
+        for (int index = 0; index < students.size(); index++) {
+            liveIds.set(students.idAt(index));
+        }
+        students.addListener(idTracker);
+        // The JDK server writes the headers and the body separately, so with Nagle's algorithm
+        // every small response waits out the client's delayed ACK. It also closes keep-alive
+        // connections beyond a small limit, which would make thousands of clients reconnect.
+        setDefault("sun.net.httpserver.nodelay", "true");
+        setDefault("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+        try {
+            server = HttpServer.create(address, BACKLOG);
+        } catch (IOException | RuntimeException e) {
+            students.removeListener(idTracker);
+            throw e;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    private static void setDefault(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+
+    /** Stops accepting requests, gives running exchanges a second to finish, then stops. */
+    public void stop() {
+        if (server == null) return;
+        server.stop(1);
+        executor.shutdownNow();
+        students.removeListener(idTracker);
+        server = null;
+        executor = null;
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Metrics.Sample sample = REQUEST_TIMER.start();
+        try {
+            respond(exchange);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        Response response;
+        try {
+            response = route(exchange);
+        } catch (ApiException e) {
+            response = error(e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            response = error(503, e.getMessage());
+        } catch (RuntimeException e) {
+            response = error(500, "Internal error: " + e);
+        }
+        if (response.status >= 500) {
+            FAILURES.increment();
+        }
+
+        try (exchange) {
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (response.allow != null) {
+                exchange.getResponseHeaders().set("Allow", response.allow);
+            }
+            if (response.location != null) {
+                exchange.getResponseHeaders().set("Location", response.location);
+            }
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private Response route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        if (path.equals("/students") || path.equals("/students/")) {
+            return switch (method) {
+                case "GET" -> listStudents(query);
+                case "POST" -> createStudent(readBody(exchange));
+                default -> methodNotAllowed("GET, POST");
+            };
+        }
+        if (path.startsWith("/students/")) {
+            int id = parseId(path.substring("/students/".length()));
+            return switch (method) {
+                case "GET" -> getStudent(id);
+                case "PUT" -> updateStudent(id, readBody(exchange));
+                case "DELETE" -> deleteStudent(id);
+                default -> methodNotAllowed("GET, PUT, DELETE");
+            };
+        }
+        if (path.equals("/search")) {
+            return method.equals("GET") ? search(query) : methodNotAllowed("GET");
+        }
+        if (path.equals("/statistics")) {
+            return method.equals("GET") ? statistics() : methodNotAllowed("GET");
+        }
+        if (path.equals("/changes")) {
+            return method.equals("GET") ? changes(query) : methodNotAllowed("GET");
+        }
+        throw new ApiException(404, "No such resource: " + path);
+    }
+
+    private Response listStudents(Map<String, String> query) {
+        if (query.containsKey("after_id")) {
+            return listStudentsAfter(query);
+        }
+        int offset = intParameter(query, "offset", 0, 0, Integer.MAX_VALUE);
+        int limit = intParameter(query, "limit", DEFAULT_PAGE_SIZE, 0, MAX_PAGE_SIZE);
+
+        List<Student> page = new ArrayList<>();
+        long[] sequence = new long[1];
+        int total = access.read(() -> {
+            sequence[0] = changes.getLatestSequence();
+            int size = students.size();
+            for (int index = offset; index < size && index - offset < limit; index++) {
+                page.add(copyOf(students.get(index)));
+            }
+            return size;
+        });
+        StringBuilder json = new StringBuilder().append("{\"total\":").append(total)
+                .append(",\"feed\":").append(changes.getEpoch()).append(",\"sequence\":").append(sequence[0]);
+        return ok(page(json, offset, limit, page));
+    }
+
+    /** Pages in id order from {@code after_id}, so no removal or move between pages can skip a student. */
+    private Response listStudentsAfter(Map<String, String> query) {
+        if (query.containsKey("offset")) {
+            throw new IllegalArgumentException("Use either offset or after_id");
+        }
+        int afterId = intParameter(query, "after_id", 0, 0, Integer.MAX_VALUE - 1);
+        int limit = intParameter(query, "limit", DEFAULT_PAGE_SIZE, 0, MAX_PAGE_SIZE);
+
+        List<Student> page = new ArrayList<>();
+        long[] sequence = new long[1];
+        int total = access.read(() -> {
+            sequence[0] = changes.getLatestSequence();
+            for (int id = liveIds.nextSetBit(afterId + 1); id >= 0 && page.size() < limit;
+                 id = id == Integer.MAX_VALUE - 1 ? -1 : liveIds.nextSetBit(id + 1)) {
+                page.add(copyOf(students.findById(id)));
+            }
+            return students.size();
+        });
+        StringBuilder json = new StringBuilder().append("{\"total\":").append(total)
+                .append(",\"feed\":").append(changes.getEpoch()).append(",\"sequence\":").append(sequence[0])
+                .append(",\"after_id\":").append(afterId);
+        return ok(appendStudents(json, limit, page));
+    }
+
+    private Response getStudent(int id) {
+        Student student = access.read(() -> copyOf(students.findById(id)));
+        if (student == null) throw notFound(id);
+        return ok(appendStudent(new StringBuilder(), student).toString());
+    }
+
+    private Response createStudent(Map<String, Object> body) {
+        String name = nameOf(body);
+        int grade = gradeOf(body);
+        Student student = access.write(() -> {
+            Student added = new Student(idAllocator.getAsInt(), name, grade);
+            students.add(added);
+            onChange.run();
+            return copyOf(added);
+        });
+        Response response = new Response(201, appendStudent(new StringBuilder(), student).toString());
+        response.location = "/students/" + student.getId();
+        return response;
+    }
+
+    private Response updateStudent(int id, Map<String, Object> body) {
+        String name = nameOf(body);
+        int grade = gradeOf(body);
+        Student student = access.write(() -> {
+            Student updated = copyOf(students.update(id, name, grade));
+            if (updated != null) onChange.run();
+            return updated;
+        });
+        if (student == null) throw notFound(id);
+        return ok(appendStudent(new StringBuilder(), student).toString());
+    }
+
+    private Response deleteStudent(int id) {
+        Student student = access.write(() -> {
+            Student removed = students.remove(id);
+            if (removed != null) onChange.run();
+            return removed;
+        });
+        if (student == null) throw notFound(id);
+        return ok(appendStudent(new StringBuilder(), student).toString());
+    }
+
+    private Response search(Map<String, String> query) {
+        String text = query.getOrDefault("q", "").trim();
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("Missing search text: q");
+        }
+        int offset = intParameter(query, "offset", 0, 0, Integer.MAX_VALUE);
+        int limit = intParameter(query, "limit", DEFAULT_PAGE_SIZE, 0, MAX_PAGE_SIZE);
+
+        BitSet matches = searchIndex.search(text, () -> false);
+        int[] ids = matches.stream().skip(offset).limit(limit).toArray();
+        List<Student> page = new ArrayList<>(ids.length);
+        if (ids.length > 0) {
+            access.read(() -> {
+                for (int id : ids) {
+                    Student student = students.findById(id);
+                    if (student != null) page.add(copyOf(student));
+                }
+                return null;
+            });
+        }
+
+        StringBuilder json = new StringBuilder("{\"query\":");
+        Json.appendString(json, text).append(",\"total\":").append(matches.cardinality());
+        return ok(page(json, offset, limit, page));
+    }
+
+    /** Long-polls the change feed. Waiting parks this exchange's virtual thread and holds no lock. */
+    private Response changes(Map<String, String> query) {
+        String after = query.get("after");
+        long from;
+        if (after == null) {
+            from = changes.getLatestSequence();
+        } else {
+            try {
+                from = Long.parseLong(after);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("after must be a sequence number");
+            }
+        }
+        int limit = intParameter(query, "limit", MAX_PAGE_SIZE, 1, MAX_PAGE_SIZE);
+        int wait = intParameter(query, "wait", DEFAULT_CHANGES_WAIT_SECONDS, 0, MAX_CHANGES_WAIT_SECONDS);
+        String feed = query.get("feed");
+
+        RosterChangeFeed.Page page;
+        if (feed != null && !feed.equals(String.valueOf(changes.getEpoch()))) {
+            // Sequence numbers from another feed, e.g. before a restart, mean nothing here.
+            page = new RosterChangeFeed.Page(List.of(), changes.getLatestSequence(), true);
+        } else {
+            try {
+                page = changes.read(from, limit, wait, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The server is stopping");
+            }
+        }
+
+        StringBuilder json = new StringBuilder("{\"feed\":").append(changes.getEpoch())
+                .append(",\"latest\":").append(page.latest)
+                .append(",\"missed\":").append(page.missed)
+                .append(",\"changes\":[");
+        for (int i = 0; i < page.changes.size(); i++) {
+            RosterChangeFeed.Change change = page.changes.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"sequence\":").append(change.sequence).append(",\"type\":");
+            Json.appendString(json, change.type);
+            if (change.name != null) {
+                json.append(",\"id\":").append(change.id).append(",\"name\":");
+                Json.appendString(json, change.name).append(",\"grade\":").append(change.grade);
+            }
+            json.append('}');
+        }
+        return ok(json.append("]}").toString());
+    }
+
+    private Response statistics() {
+        long[] histogram = new long[GradeStatistics.MAX_GRADE + 1];
+        access.read(() -> {
+            students.statistics().copyHistogramInto(histogram);
+            return null;
+        });
+        GradeStatistics statistics = new GradeStatistics();
+        for (int grade = GradeStatistics.MIN_GRADE; grade <= GradeStatistics.MAX_GRADE; grade++) {
+            statistics.add(grade, histogram[grade]);
+        }
+
+        StringBuilder json = new StringBuilder("{\"count\":").append(statistics.getCount());
+        if (!statistics.isEmpty()) {
+            GradingScale scale = GradingScale.current();
+            long passing = 0;
+            Map<String, Long> letters = new LinkedHashMap<>();
+            for (int grade = GradeStatistics.MAX_GRADE; grade >= GradeStatistics.MIN_GRADE; grade--) {
+                letters.merge(scale.letterGradeFor(grade), histogram[grade], Long::sum);
+                if (grade >= scale.getPassingGrade()) passing += histogram[grade];
+            }
+
+            json.append(",\"average\":").append(String.format(Locale.ROOT, "%.2f", statistics.getMean()))
+                    .append(",\"standardDeviation\":")
+                    .append(String.format(Locale.ROOT, "%.2f", statistics.getStandardDeviation()))
+                    .append(",\"median\":").append(statistics.getMedian())
+                    .append(",\"highest\":").append(statistics.getMax())
+                    .append(",\"lowest\":").append(statistics.getMin())
+                    .append(",\"percentiles\":{\"25\":").append(statistics.getPercentile(25))
+                    .append(",\"75\":").append(statistics.getPercentile(75))
+                    .append(",\"90\":").append(statistics.getPercentile(90))
+                    .append("},\"passingGrade\":").append(scale.getPassingGrade())
+                    .append(",\"passRate\":")
+                    .append(String.format(Locale.ROOT, "%.4f", (double) passing / statistics.getCount()))
+                    .append(",\"letterGrades\":{");
+            boolean first = true;
+            for (Map.Entry<String, Long> letter : letters.entrySet()) {
+                if (!first) json.append(',');
+                first = false;
+                Json.appendString(json, letter.getKey()).append(':').append(letter.getValue());
+            }
+            json.append('}');
+        }
+        return ok(json.append('}').toString());
+    }
+
+    /** Detaches a repository row from the roster so it can be serialized after access ends. */
+    private static Student copyOf(Student student) {
+        return student == null ? null : new Student(student.getId(), student.getName(), student.getGrade());
+    }
+
+    private static String page(StringBuilder json, int offset, int limit, List<Student> students) {
+        return appendStudents(json.append(",\"offset\":").append(offset), limit, students);
+    }
+
+    private static String appendStudents(StringBuilder json, int limit, List<Student> students) {
+        json.append(",\"limit\":").append(limit).append(",\"students\":[");
+        for (int i = 0; i < students.size(); i++) {
+            if (i > 0) json.append(',');
+            appendStudent(json, students.get(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static StringBuilder appendStudent(StringBuilder json, Student student) {
+        json.append("{\"id\":").append(student.getId()).append(",\"name\":");
+        Json.appendString(json, student.getName());
+        json.append(",\"grade\":").append(student.getGrade()).append(",\"letterGrade\":");
+        Json.appendString(json, student.getLetterGrade()).append(",\"status\":");
+        return Json.appendString(json, student.getStatus()).append('}');
+    }
+
+    private static String nameOf(Map<String, Object> body) {
+        if (!(body.get("name") instanceof String name) || name.isBlank()) {
+            throw new IllegalArgumentException("\"name\" must be a non-empty string");
+        }
+        if (!Student.isValidName(name.trim())) {
+            throw new IllegalArgumentException("\"name\" must not contain line breaks or other control characters");
+        }
+        return name.trim();
+    }
+
+    private static int gradeOf(Map<String, Object> body) {
+        if (!(body.get("grade") instanceof Long grade)
+                || grade < GradeStatistics.MIN_GRADE || grade > GradeStatistics.MAX_GRADE) {
+            throw new IllegalArgumentException("\"grade\" must be a whole number between "
+                    + GradeStatistics.MIN_GRADE + " and " + GradeStatistics.MAX_GRADE);
+        }
+        return grade.intValue();
+    }
+
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "No such resource: /students/" + text);
+        }
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue, int min, int max) {
+        String value = query.get(name);
+        if (value == null) return defaultValue;
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= min && parsed <= max) return parsed;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(name + " must be a whole number between " + min + " and " + max);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) return parameters;
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) continue;
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.putIfAbsent(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+            }
+            return Json.parseObject(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Response ok(String body) {
+        return new Response(200, body);
+    }
+
+    private static Response methodNotAllowed(String allow) {
+        Response response = error(405, "Method not allowed");
+        response.allow = allow;
+        return response;
+    }
+
+    private static Response error(int status, String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        return new Response(status, Json.appendString(json, message == null ? "" : message).append('}').toString());
+    }
+
+    private static ApiException notFound(int id) {
+        return new ApiException(404, "No student with id " + id);
+    }
+
+    private static final class Response {
+        final int status;
+        final String body;
+        String allow;
+        String location;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
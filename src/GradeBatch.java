@@ -0,0 +1,238 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Non-interactive command-line mode for scheduled jobs. It never touches AWT or Swing.
+ * A saved roster snapshot is memory-mapped and the import is parsed as a stream, so neither
+ * has to fit in the heap. A roster that is new, still in the old serialized format or split
+ * into {@link RosterShards} is loaded into memory instead. Without {@code --save} nothing
+ * on disk is changed; with it, a new roster is created and an old one is migrated.
+ * Statistics, letter grades and the CSV format are the same as in the GUI.
+ * <p>
+ * Exit status is 0 on success, 1 if some imported rows were rejected or some shards of the
+ * roster could not be read, and 2 if the job could not run.
+ */
+public class GradeBatch {
+    private static final String USAGE = """
+            Usage: java GradeBatch [options]
+              --roster FILE        saved roster (e.g. student_grades.roster); its journals are applied
+              --import FILE        CSV with Name and Grade columns; - reads standard input
+              --skip-duplicates    skip imported names already in the roster or earlier in the import
+              --save               append the imported students to the roster
+              --export FILE        write the roster and the imported students as CSV (.gz to compress)
+              --report FILE        write a statistics report; - or omitted for standard output""";
+
+    private final Path rosterFile;
+    private final String importFile;
+    private final boolean skipDuplicates;
+    private final boolean save;
+    private final Path exportFile;
+    private final String reportFile;
+
+    private final GradeStatistics statistics = new GradeStatistics();
+    private long imported;
+    private long invalid;
+    private long duplicates;
+
+    private GradeBatch(String[] args) {
+        Path roster = null;
+        String importSource = null;
+        boolean skip = false;
+        boolean saveImport = false;
+        Path export = null;
+        String report = "-";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--roster" -> roster = Path.of(valueOf(args, ++i));
+                case "--import" -> importSource = valueOf(args, ++i);
+                case "--skip-duplicates" -> skip = true;
+                case "--save" -> saveImport = true;
+                case "--export" -> export = Path.of(valueOf(args, ++i));
+                case "--report" -> report = valueOf(args, ++i);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (saveImport && (roster == null || importSource == null)) {
+            throw new IllegalArgumentException("--save needs both --roster and --import");
+        }
+
+        rosterFile = roster;
+        importFile = importSource;
+        skipDuplicates = skip;
+        save = saveImport;
+        exportFile = export;
+        reportFile = report;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        GradeBatch batch;
+        try {
+            batch = new GradeBatch(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            System.exit(batch.run());
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            System.err.println("Error: file not found: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+        System.exit(2);
+    }
+
+    private static String valueOf(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+
+    private int run() throws IOException {
+        StudentRepository roster = null;
+        RosterStore store = null;
+        int nextStudentId = 1;
+        if (rosterFile != null) {
+            roster = Files.isRegularFile(rosterFile) && !RosterShards.isManifest(rosterFile)
+                    ? MappedStudentRepository.open(rosterFile) : new IndexedStudentRepository();
+            store = new RosterStore(rosterFile, legacyFileFor(rosterFile));
+            // Only a run that saves starts a journal; reports and exports leave the files as they are.
+            nextStudentId = save ? store.open(roster) : store.read(roster);
+            for (String problem : store.getLoadProblems()) {
+                System.err.println(rosterFile + ": " + problem);
+            }
+            long[] histogram = new long[GradeStatistics.MAX_GRADE + 1];
+            roster.statistics().copyHistogramInto(histogram);
+            for (int grade = GradeStatistics.MIN_GRADE; grade <= GradeStatistics.MAX_GRADE; grade++) {
+                statistics.add(grade, histogram[grade]);
+            }
+        }
+
+        boolean saved = false;
+        try (CsvExporter.RowWriter export = exportFile == null ? null
+                : new CsvExporter(1).openWriter(exportFile, exportFile.toString().endsWith(".gz"))) {
+            if (export != null && roster != null) {
+                for (Student student : roster) {
+                    export.write(student);
+                }
+            }
+            if (importFile != null) {
+                nextStudentId = importRows(roster, export, nextStudentId);
+            }
+            if (save) {
+                store.save(roster, nextStudentId);
+                saved = true;
+            }
+        } finally {
+            if (store != null) {
+                store.close(saved);
+            }
+        }
+
+        writeReport();
+        return invalid > 0 || store != null && !store.getLoadProblems().isEmpty() ? 1 : 0;
+    }
+
+    /** Streams the import into the statistics, the export and, with {@code --save}, the roster. */
+    private int importRows(StudentRepository roster, CsvExporter.RowWriter export, int firstId) throws IOException {
+        Set<String> seen = skipDuplicates ? new HashSet<>() : null;
+        int[] nextStudentId = {firstId};
+        try (InputStream in = importFile.equals("-") ? System.in : Files.newInputStream(Path.of(importFile))) {
+            String source = importFile.equals("-") ? "standard input" : importFile;
+            CsvImporter.stream(in, source, row -> {
+                if (seen != null && (roster != null && roster.containsName(row.name)
+                        || !seen.add(IndexedStudentRepository.foldName(row.name)))) {
+                    duplicates++;
+                    return;
+                }
+                int id = nextStudentId[0]++;
+                statistics.add(row.grade);
+                imported++;
+                try {
+                    if (export != null) {
+                        export.write(id, row.name, row.grade);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (save) {
+                    roster.add(new Student(id, row.name, row.grade));
+                }
+            }, problem -> {
+                invalid++;
+                System.err.println(source + ": " + problem);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return nextStudentId[0];
+    }
+
+    private void writeReport() throws IOException {
+        PrintStream out = reportFile.equals("-") ? System.out
+                : new PrintStream(Files.newOutputStream(Path.of(reportFile)), false, StandardCharsets.UTF_8);
+        try {
+            out.printf(Locale.ROOT, "Students:  %d%n", statistics.getCount());
+            if (!statistics.isEmpty()) {
+                GradingScale scale = GradingScale.current();
+                GradeAnalytics.Report report = new GradeAnalytics.Report("All students", statistics, scale);
+
+                out.printf(Locale.ROOT, "Average:   %.1f%n", statistics.getMean());
+                out.printf(Locale.ROOT, "Std dev:   %.1f%n", statistics.getStandardDeviation());
+                out.printf(Locale.ROOT, "Median:    %d%n", statistics.getMedian());
+                out.printf(Locale.ROOT, "Quartiles: %d / %d%n", statistics.getPercentile(25), statistics.getPercentile(75));
+                out.printf(Locale.ROOT, "Highest:   %d%n", statistics.getMax());
+                out.printf(Locale.ROOT, "Lowest:    %d%n", statistics.getMin());
+                out.printf(Locale.ROOT, "Pass rate: %.1f%% (passing grade %d)%n",
+                        100 * report.getPassRate(), scale.getPassingGrade());
+                out.println();
+                out.println("Letter grades:");
+                for (Map.Entry<String, Long> letter : report.letterCounts.entrySet()) {
+                    out.printf(Locale.ROOT, "  %-4s %12d  %5.1f%%%n", letter.getKey(), letter.getValue(),
+                            100.0 * letter.getValue() / statistics.getCount());
+                }
+            }
+            if (importFile != null) {
+                out.println();
+                out.printf(Locale.ROOT, "Imported:  %d students, %d invalid rows, %d duplicates skipped%n",
+                        imported, invalid, duplicates);
+            }
+            if (exportFile != null) {
+                out.println("Exported:  " + exportFile);
+            }
+        } finally {
+            if (out == System.out) {
+                out.flush();
+            } else {
+                out.close();
+            }
+        }
+        if (out.checkError()) {
+            throw new IOException("Could not write the report to " + reportFile);
+        }
+    }
+
+    /** The old serialized roster that {@link RosterStore} migrates, next to {@code rosterFile}. */
+    private static Path legacyFileFor(Path rosterFile) {
+        String name = rosterFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return rosterFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".dat");
+    }
+}
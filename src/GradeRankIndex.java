@@ -0,0 +1,298 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Order-statistic index over (grade, id): every student has a position in the order best
+ * grade first, ties by ascending id. A Fenwick tree over the 101 grade buckets counts the
+ * students at or above each grade, and each bucket keeps its ids sorted, so rank, select,
+ * top-K, bottom-K and grade-range queries cost a logarithmic search plus the size of the
+ * answer instead of a pass over the roster.
+ * <p>
+ * Like {@link StudentSearchIndex}, the index is built the first time it is needed and then
+ * kept up to date from repository events. Use it on the thread that mutates the roster.
+ */
+final class GradeRankIndex implements RosterListener {
+    private static final int BUCKETS = GradeStatistics.MAX_GRADE + 1;
+    private static final int TOP_BIT = Integer.highestOneBit(BUCKETS);
+    private static final int[] EMPTY = new int[0];
+
+    private final StudentRepository students;
+    /** Fenwick tree over bucket slots ordered best grade first: slot {@code s} holds grade {@code 100 - s}. */
+    private final int[] tree = new int[BUCKETS + 1];
+    private final int[][] idsByGrade = new int[BUCKETS][];
+    private final int[] counts = new int[BUCKETS];
+    private int size;
+    private boolean built;
+
+    public GradeRankIndex(StudentRepository students) {
+        this.students = students;
+        Arrays.fill(idsByGrade, EMPTY);
+        students.addListener(this);
+    }
+
+    /** Indexes the current roster if that has not happened yet. */
+    public void ensureBuilt() {
+        if (built) return;
+
+        int total = students.size();
+        int[] ids = new int[total];
+        byte[] grades = new byte[total];
+        students.copyColumns(ids, grades);
+        for (byte grade : grades) {
+            counts[grade]++;
+        }
+        int[] filled = new int[BUCKETS];
+        for (int grade = 0; grade < BUCKETS; grade++) {
+            idsByGrade[grade] = counts[grade] == 0 ? EMPTY : new int[counts[grade]];
+        }
+        for (int index = 0; index < total; index++) {
+            idsByGrade[grades[index]][filled[grades[index]]++] = ids[index];
+        }
+        for (int grade = 0; grade < BUCKETS; grade++) {
+            Arrays.sort(idsByGrade[grade], 0, counts[grade]);
+            add(grade, counts[grade]);
+        }
+        size = total;
+        built = true;
+    }
+
+    public int size() {
+        checkBuilt();
+        return size;
+    }
+
+    /** Students with a grade of at least {@code grade}. */
+    public int countAtLeast(int grade) {
+        checkBuilt();
+        GradeStatistics.checkGrade(grade);
+        return prefix(slotOf(grade));
+    }
+
+    /** Students with a grade from {@code low} to {@code high}, inclusive. */
+    public int countBetween(int low, int high) {
+        checkRange(low, high);
+        return countAtLeast(low) - (high == GradeStatistics.MAX_GRADE ? 0 : countAtLeast(high + 1));
+    }
+
+    /**
+     * Zero-based position of the student with {@code id} and {@code grade} in the order best
+     * grade first, ties by id, or -1 if the index does not hold that student.
+     */
+    public int positionOf(int id, int grade) {
+        checkBuilt();
+        GradeStatistics.checkGrade(grade);
+        int within = Arrays.binarySearch(idsByGrade[grade], 0, counts[grade], id);
+        if (within < 0) return -1;
+        return (grade == GradeStatistics.MAX_GRADE ? 0 : countAtLeast(grade + 1)) + within;
+    }
+
+    /** Id of the student at zero-based {@code position} in the order best grade first, ties by id. */
+    public int idAt(int position) {
+        checkBuilt();
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " of " + size);
+        }
+        int slot = slotAt(position);
+        int before = slot == 0 ? 0 : prefix(slot - 1);
+        return idsByGrade[GradeStatistics.MAX_GRADE - slot][position - before];
+    }
+
+    /**
+     * Ids of the students at positions {@code from} to {@code to - 1} in the order best grade
+     * first, ties by id. Costs one search plus the length of the range.
+     */
+    public int[] idsAt(int from, int to) {
+        checkBuilt();
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Positions " + from + " to " + to + " of " + size);
+        }
+        int[] result = new int[to - from];
+        if (result.length == 0) return result;
+
+        int slot = slotAt(from);
+        int grade = GradeStatistics.MAX_GRADE - slot;
+        int within = from - (slot == 0 ? 0 : prefix(slot - 1));
+        for (int filled = 0; filled < result.length; ) {
+            int take = Math.min(counts[grade] - within, result.length - filled);
+            System.arraycopy(idsByGrade[grade], within, result, filled, take);
+            filled += take;
+            grade--;
+            within = 0;
+        }
+        return result;
+    }
+
+    /** Ids of the {@code count} best students, best first. */
+    public int[] top(int count) {
+        checkBuilt();
+        return idsAt(0, Math.min(Math.max(0, count), size));
+    }
+
+    /** Ids of the {@code count} weakest students, weakest first. */
+    public int[] bottom(int count) {
+        checkBuilt();
+        int taken = Math.min(Math.max(0, count), size);
+        int[] ids = idsAt(size - taken, size);
+        for (int i = 0, j = ids.length - 1; i < j; i++, j--) {
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+
+    /** How many students the bottom {@code percent} percent covers, rounded up. */
+    public int countForPercent(double percent) {
+        checkBuilt();
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Percent must be between 0 and 100: " + percent);
+        }
+        return (int) Math.min(size, Math.ceil(percent / 100.0 * size));
+    }
+
+    /** Position of the best student with a grade from {@code low} to {@code high}, the first of {@link #countBetween}. */
+    public int firstPositionBetween(int low, int high) {
+        checkRange(low, high);
+        return high == GradeStatistics.MAX_GRADE ? 0 : countAtLeast(high + 1);
+    }
+
+    @Override
+    public void studentAdded(Student student, int index) {
+        if (built) insert(student.getId(), student.getGrade());
+    }
+
+    @Override
+    public void studentsAdded(int firstIndex, int lastIndex) {
+        if (!built) return;
+        if (lastIndex - firstIndex >= size) {
+            // A batch as large as the index, e.g. loading the roster, is quicker to index afresh.
+            reset();
+            built = false;
+            ensureBuilt();
+            return;
+        }
+        for (int index = firstIndex; index <= lastIndex; index++) {
+            insert(students.idAt(index), students.gradeAt(index));
+        }
+    }
+
+    @Override
+    public void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+        if (!built || student.getGrade() == oldGrade) return;
+        remove(student.getId(), oldGrade);
+        insert(student.getId(), student.getGrade());
+    }
+
+    @Override
+    public void studentRemoved(Student student, int index, int movedFrom) {
+        if (built) remove(student.getId(), student.getGrade());
+    }
+
+    @Override
+    public void studentsRemoved(int firstIndex, List<Student> removed) {
+        if (!built) return;
+        if (removed.size() >= size - removed.size()) {
+            // Removing at least as many students as are left, so index the rest afresh.
+            reset();
+            built = false;
+            ensureBuilt();
+            return;
+        }
+        for (int row = removed.size() - 1; row >= 0; row--) {
+            remove(removed.get(row).getId(), removed.get(row).getGrade());
+        }
+    }
+
+    @Override
+    public void rosterCleared(int previousSize) {
+        if (built) reset();
+    }
+
+    private void reset() {
+        Arrays.fill(idsByGrade, EMPTY);
+        Arrays.fill(counts, 0);
+        Arrays.fill(tree, 0);
+        size = 0;
+    }
+
+    private void insert(int id, int grade) {
+        int[] ids = idsByGrade[grade];
+        int count = counts[grade];
+        if (count == ids.length) {
+            ids = idsByGrade[grade] = Arrays.copyOf(ids, Math.max(16, count + (count >> 1)));
+        }
+        // Ids are handed out in increasing order, so new students usually go at the end.
+        int at = count == 0 || ids[count - 1] < id ? count : Arrays.binarySearch(ids, 0, count, id);
+        if (at >= 0 && at < count) {
+            throw new IllegalStateException("Student " + id + " is already ranked");
+        }
+        if (at < 0) {
+            at = -at - 1;
+            System.arraycopy(ids, at, ids, at + 1, count - at);
+        }
+        ids[at] = id;
+        counts[grade]++;
+        size++;
+        add(grade, 1);
+    }
+
+    private void remove(int id, int grade) {
+        int[] ids = idsByGrade[grade];
+        int count = counts[grade];
+        int at = Arrays.binarySearch(ids, 0, count, id);
+        if (at < 0) {
+            throw new IllegalStateException("Student " + id + " is not ranked at grade " + grade);
+        }
+        System.arraycopy(ids, at + 1, ids, at, count - at - 1);
+        counts[grade]--;
+        size--;
+        add(grade, -1);
+    }
+
+    private static int slotOf(int grade) {
+        return GradeStatistics.MAX_GRADE - grade;
+    }
+
+    private void add(int grade, int delta) {
+        for (int i = slotOf(grade) + 1; i <= BUCKETS; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Descends the Fenwick tree to the slot that holds zero-based {@code position}. */
+    private int slotAt(int position) {
+        int slot = 0;
+        int remaining = position;
+        for (int step = TOP_BIT; step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= BUCKETS && tree[next] <= remaining) {
+                slot = next;
+                remaining -= tree[next];
+            }
+        }
+        return slot;
+    }
+
+    /** Students in slots {@code 0..slot}, i.e. with a grade of at least {@code 100 - slot}. */
+    private int prefix(int slot) {
+        int sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void checkRange(int low, int high) {
+        GradeStatistics.checkGrade(low);
+        GradeStatistics.checkGrade(high);
+        if (low > high) {
+            throw new IllegalArgumentException("Lowest grade " + low + " is above highest grade " + high);
+        }
+    }
+
+    private void checkBuilt() {
+        if (!built) {
+            throw new IllegalStateException("Rank index has not been built");
+        }
+    }
+}
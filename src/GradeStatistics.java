@@ -0,0 +1,155 @@
+import java.util.Arrays;
+
+/**
+ * Running grade statistics backed by a 101-bucket histogram over the 0-100 range.
+ * Callers feed it add/remove/replace deltas; every query is answered without
+ * touching the roster.
+ */
+class GradeStatistics {
+    static final int MIN_GRADE = 0;
+    static final int MAX_GRADE = 100;
+
+    private final long[] buckets = new long[MAX_GRADE + 1];
+    private long count;
+    private long sum;
+    private int min = MAX_GRADE + 1;
+    private int max = MIN_GRADE - 1;
+
+    static void checkGrade(int grade) {
+        if (grade < MIN_GRADE || grade > MAX_GRADE) {
+            throw new IllegalArgumentException("Grade must be between " + MIN_GRADE + " and " + MAX_GRADE + ": " + grade);
+        }
+    }
+
+    public void add(int grade) {
+        checkGrade(grade);
+        buckets[grade]++;
+        count++;
+        sum += grade;
+        if (grade < min) min = grade;
+        if (grade > max) max = grade;
+    }
+
+    public void remove(int grade) {
+        checkGrade(grade);
+        if (buckets[grade] == 0) {
+            throw new IllegalStateException("No grade " + grade + " recorded");
+        }
+        buckets[grade]--;
+        count--;
+        sum -= grade;
+
+        if (count == 0) {
+            min = MAX_GRADE + 1;
+            max = MIN_GRADE - 1;
+            return;
+        }
+        if (buckets[grade] == 0) {
+            if (grade == min) {
+                while (buckets[min] == 0) min++;
+            }
+            if (grade == max) {
+                while (buckets[max] == 0) max--;
+            }
+        }
+    }
+
+    public void replace(int oldGrade, int newGrade) {
+        if (oldGrade == newGrade) return;
+        checkGrade(newGrade);
+        remove(oldGrade);
+        add(newGrade);
+    }
+
+    /** Adds {@code count} occurrences of {@code grade}, e.g. when merging histograms. */
+    public void add(int grade, long count) {
+        checkGrade(grade);
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        if (count == 0) return;
+        buckets[grade] += count;
+        this.count += count;
+        sum += grade * count;
+        if (grade < min) min = grade;
+        if (grade > max) max = grade;
+    }
+
+    /** Copies the per-grade counts into {@code target}, which must hold at least 101 entries. */
+    public void copyHistogramInto(long[] target) {
+        System.arraycopy(buckets, 0, target, 0, buckets.length);
+    }
+
+    public void clear() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        sum = 0;
+        min = MAX_GRADE + 1;
+        max = MIN_GRADE - 1;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long countOf(int grade) {
+        checkGrade(grade);
+        return buckets[grade];
+    }
+
+    public int getMin() {
+        return isEmpty() ? 0 : min;
+    }
+
+    public int getMax() {
+        return isEmpty() ? 0 : max;
+    }
+
+    public double getMean() {
+        return isEmpty() ? 0 : (double) sum / count;
+    }
+
+    /** Population standard deviation, summed over the histogram. */
+    public double getStandardDeviation() {
+        if (isEmpty()) return 0;
+
+        double mean = getMean();
+        double squares = 0;
+        for (int grade = min; grade <= max; grade++) {
+            double deviation = grade - mean;
+            squares += buckets[grade] * deviation * deviation;
+        }
+        return Math.sqrt(squares / count);
+    }
+
+    public int getMedian() {
+        return getPercentile(50);
+    }
+
+    /**
+     * Nearest-rank percentile: the smallest grade such that at least {@code percentile}
+     * percent of the recorded grades are less than or equal to it.
+     */
+    public int getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (isEmpty()) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int grade = min; grade <= max; grade++) {
+            seen += buckets[grade];
+            if (seen >= rank) return grade;
+        }
+        return max;
+    }
+}
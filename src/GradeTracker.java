@@ -1,33 +1,80 @@
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 
 public class GradeTracker {
-    private ArrayList<Student> students;
+    private final StudentRepository students;
+    private final GradeRankIndex ranks;
 
     public GradeTracker() {
-        students = new ArrayList<>();
+        this(new IndexedStudentRepository());
+    }
+
+    /** Tracks {@code students}, such as one course of a {@link Gradebook}; see {@link Gradebook#courseTracker}. */
+    GradeTracker(StudentRepository students) {
+        this.students = students;
+        ranks = new GradeRankIndex(students);
+        ranks.ensureBuilt();
     }
 
     public void addStudent(int id,String name, int grade) {
         students.add(new Student(id,name, grade));
     }
 
+    public Student findStudent(int id) {
+        return students.findById(id);
+    }
+
+    public boolean hasStudentNamed(String name) {
+        return students.containsName(name);
+    }
+
+    public boolean removeStudent(int id) {
+        return students.remove(id) != null;
+    }
+
     public int averageGrade() {
-        int average = 0;
-        for (Student student : students) {
-            average += student.getGrade();
-        }
-        return !students.isEmpty() ? average / students.size() : 0;
+        return (int) students.statistics().getMean();
     }
 
     public int highestGrade() {
-        if (students.isEmpty()) return 0;
-        return Collections.max(students, (x, y) -> x.getGrade() - y.getGrade()).getGrade();
+        return students.statistics().getMax();
     }
 
     public int lowestGrade() {
-        if (students.isEmpty()) return 0;
-        return Collections.min(students, (x, y) -> x.getGrade() - y.getGrade()).getGrade();
+        return students.statistics().getMin();
+    }
+
+    /** The {@code count} students with the highest grades, best first; equal grades in id order. */
+    public List<Student> topStudents(int count) {
+        return studentsWithIds(ranks.top(count));
+    }
+
+    /** The weakest {@code percent} percent of the students, rounded up, weakest first. */
+    public List<Student> bottomPercent(double percent) {
+        return studentsWithIds(ranks.bottom(ranks.countForPercent(percent)));
+    }
+
+    /**
+     * 1-based rank of the student among all students, best grade first and equal grades in
+     * id order, or -1 if there is no student with that id.
+     */
+    public int rankOf(int id) {
+        Student student = students.findById(id);
+        return student == null ? -1 : ranks.positionOf(id, student.getGrade()) + 1;
+    }
+
+    /** Students with a grade from {@code lowGrade} to {@code highGrade}, inclusive, best first. */
+    public List<Student> studentsBetween(int lowGrade, int highGrade) {
+        int first = ranks.firstPositionBetween(lowGrade, highGrade);
+        return studentsWithIds(ranks.idsAt(first, first + ranks.countBetween(lowGrade, highGrade)));
+    }
+
+    private List<Student> studentsWithIds(int[] ids) {
+        List<Student> found = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            found.add(students.findById(id));
+        }
+        return found;
     }
 
 
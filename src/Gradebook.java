@@ -0,0 +1,302 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * School-wide gradebook: students enrolled in courses, each course offered in a term and
+ * graded through weighted assessments. A student's final grade in a course is the
+ * weighted average of the assessments graded so far, rounded half up; ungraded
+ * assessments do not count yet.
+ * <p>
+ * Every enrollment keeps its weighted sum, so recording a score updates its final grade
+ * in constant time. The change is then applied as a delta to the course, term and student
+ * aggregates, and no query ever scans other courses. Each course's graded students are
+ * also kept as a {@link StudentRepository} whose grades are the final grades, and
+ * {@link #courseTracker} puts a {@link GradeTracker} over it, so the single-roster queries
+ * and rankings work on one course.
+ */
+class Gradebook {
+    static final int NO_GRADE = -1;
+
+    private final Map<Integer, String> studentNames = new HashMap<>();
+    private final Map<String, Course> courses = new LinkedHashMap<>();
+    private final Map<Integer, Map<String, Enrollment>> enrollmentsByStudent = new HashMap<>();
+    private final Map<String, GradeStatistics> termStatistics = new HashMap<>();
+    private final Map<Integer, GradeStatistics> studentStatistics = new HashMap<>();
+
+    public void addStudent(int id, String name) {
+        if (studentNames.putIfAbsent(id, name) != null) {
+            throw new IllegalArgumentException("Duplicate student id: " + id);
+        }
+        enrollmentsByStudent.put(id, new HashMap<>());
+    }
+
+    public String getStudentName(int id) {
+        return studentNames.get(id);
+    }
+
+    public void renameStudent(int id, String name) {
+        checkStudent(id);
+        studentNames.put(id, name);
+        for (Enrollment enrollment : enrollmentsByStudent.get(id).values()) {
+            if (enrollment.finalGrade != NO_GRADE) {
+                enrollment.course.roster.update(id, name, enrollment.finalGrade);
+            }
+        }
+    }
+
+    public Course addCourse(String courseId, String term, String title) {
+        if (courses.containsKey(courseId)) {
+            throw new IllegalArgumentException("Duplicate course id: " + courseId);
+        }
+        Course course = new Course(courseId, term, title);
+        courses.put(courseId, course);
+        return course;
+    }
+
+    public Course getCourse(String courseId) {
+        Course course = courses.get(courseId);
+        if (course == null) {
+            throw new IllegalArgumentException("No such course: " + courseId);
+        }
+        return course;
+    }
+
+    public Collection<Course> getCourses() {
+        return Collections.unmodifiableCollection(courses.values());
+    }
+
+    /** Adds an assessment worth {@code weight} relative to the course's other assessments. */
+    public void addAssessment(String courseId, String name, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Assessment weight must be positive: " + weight);
+        }
+        Course course = getCourse(courseId);
+        if (course.assessmentIndexes.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate assessment in " + courseId + ": " + name);
+        }
+        course.assessmentIndexes.put(name, course.assessments.size());
+        course.assessments.add(name);
+        course.weights = Arrays.copyOf(course.weights, course.assessments.size());
+        course.weights[course.weights.length - 1] = weight;
+    }
+
+    public void enroll(int studentId, String courseId) {
+        checkStudent(studentId);
+        Course course = getCourse(courseId);
+        Map<String, Enrollment> enrollments = enrollmentsByStudent.get(studentId);
+        if (enrollments.containsKey(courseId)) {
+            throw new IllegalArgumentException("Student " + studentId + " is already enrolled in " + courseId);
+        }
+        enrollments.put(courseId, new Enrollment(studentId, course));
+        course.enrolled++;
+    }
+
+    /** Removes the enrollment together with its scores. Returns false if there was none. */
+    public boolean withdraw(int studentId, String courseId) {
+        Map<String, Enrollment> enrollments = enrollmentsByStudent.get(studentId);
+        Enrollment enrollment = enrollments == null ? null : enrollments.remove(courseId);
+        if (enrollment == null) return false;
+
+        setFinalGrade(enrollment, NO_GRADE);
+        enrollment.course.enrolled--;
+        return true;
+    }
+
+    public void recordScore(int studentId, String courseId, String assessment, int score) {
+        GradeStatistics.checkGrade(score);
+        Enrollment enrollment = enrollment(studentId, courseId);
+        int index = enrollment.course.assessmentIndex(assessment);
+        enrollment.setScore(index, score);
+    }
+
+    public void clearScore(int studentId, String courseId, String assessment) {
+        Enrollment enrollment = enrollment(studentId, courseId);
+        int index = enrollment.course.assessmentIndex(assessment);
+        enrollment.setScore(index, NO_GRADE);
+    }
+
+    /** Returns the recorded score, or {@link #NO_GRADE}. */
+    public int getScore(int studentId, String courseId, String assessment) {
+        Enrollment enrollment = enrollment(studentId, courseId);
+        int index = enrollment.course.assessmentIndex(assessment);
+        return index < enrollment.scores.length ? enrollment.scores[index] : NO_GRADE;
+    }
+
+    /** Returns the weighted final grade, or {@link #NO_GRADE} if nothing has been graded yet. */
+    public int getFinalGrade(int studentId, String courseId) {
+        return enrollment(studentId, courseId).finalGrade;
+    }
+
+    /** The course's graded students, with their final grades. Read-only; changes go through the gradebook. */
+    public StudentRepository courseRoster(String courseId) {
+        return getCourse(courseId).view;
+    }
+
+    /**
+     * The course as a {@link GradeTracker} whose averages and rankings follow the final
+     * grades. Adding or removing students through it throws; enroll and record scores here.
+     */
+    public GradeTracker courseTracker(String courseId) {
+        Course course = getCourse(courseId);
+        if (course.tracker == null) {
+            course.tracker = new GradeTracker(course.view);
+        }
+        return course.tracker;
+    }
+
+    public GradeStatistics courseStatistics(String courseId) {
+        return getCourse(courseId).view.statistics();
+    }
+
+    /** Final grades across every course of {@code term}. */
+    public GradeStatistics termStatistics(String term) {
+        return termStatistics.computeIfAbsent(term, key -> new GradeStatistics());
+    }
+
+    /** Final grades of one student across all courses and terms. */
+    public GradeStatistics studentStatistics(int studentId) {
+        checkStudent(studentId);
+        return studentStatistics.computeIfAbsent(studentId, key -> new GradeStatistics());
+    }
+
+    /** Ids of the courses the student is enrolled in. */
+    public Collection<String> coursesOf(int studentId) {
+        checkStudent(studentId);
+        return Collections.unmodifiableCollection(enrollmentsByStudent.get(studentId).keySet());
+    }
+
+    private Enrollment enrollment(int studentId, String courseId) {
+        checkStudent(studentId);
+        Enrollment enrollment = enrollmentsByStudent.get(studentId).get(courseId);
+        if (enrollment == null) {
+            getCourse(courseId);
+            throw new IllegalArgumentException("Student " + studentId + " is not enrolled in " + courseId);
+        }
+        return enrollment;
+    }
+
+    private void checkStudent(int studentId) {
+        if (!studentNames.containsKey(studentId)) {
+            throw new IllegalArgumentException("No such student: " + studentId);
+        }
+    }
+
+    /** Applies a final grade change to the course roster and the term and student aggregates. */
+    private void setFinalGrade(Enrollment enrollment, int finalGrade) {
+        int previous = enrollment.finalGrade;
+        if (previous == finalGrade) return;
+        enrollment.finalGrade = finalGrade;
+
+        Course course = enrollment.course;
+        int studentId = enrollment.studentId;
+        if (previous == NO_GRADE) {
+            course.roster.add(new Student(studentId, studentNames.get(studentId), finalGrade));
+        } else if (finalGrade == NO_GRADE) {
+            course.roster.remove(studentId);
+        } else {
+            course.roster.update(studentId, studentNames.get(studentId), finalGrade);
+        }
+
+        GradeStatistics term = termStatistics(course.term);
+        GradeStatistics student = studentStatistics(studentId);
+        if (previous != NO_GRADE) {
+            term.remove(previous);
+            student.remove(previous);
+        }
+        if (finalGrade != NO_GRADE) {
+            term.add(finalGrade);
+            student.add(finalGrade);
+        }
+    }
+
+    static final class Course {
+        private final String id;
+        private final String term;
+        private final String title;
+        private final List<String> assessments = new ArrayList<>();
+        private final Map<String, Integer> assessmentIndexes = new HashMap<>();
+        private int[] weights = new int[0];
+        private final IndexedStudentRepository roster = new IndexedStudentRepository();
+        private final StudentRepository view = new ReadOnlyStudentRepository(roster);
+        private GradeTracker tracker;
+        private int enrolled;
+
+        private Course(String id, String term, String title) {
+            this.id = id;
+            this.term = term;
+            this.title = title;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public List<String> getAssessments() {
+            return Collections.unmodifiableList(assessments);
+        }
+
+        public int getWeight(String assessment) {
+            return weights[assessmentIndex(assessment)];
+        }
+
+        public int getEnrolledCount() {
+            return enrolled;
+        }
+
+        private int assessmentIndex(String assessment) {
+            Integer index = assessmentIndexes.get(assessment);
+            if (index == null) {
+                throw new IllegalArgumentException("No assessment " + assessment + " in " + id);
+            }
+            return index;
+        }
+    }
+
+    private final class Enrollment {
+        private final int studentId;
+        private final Course course;
+        private int[] scores = new int[0];
+        private long weightedSum;
+        private long gradedWeight;
+        private int finalGrade = NO_GRADE;
+
+        Enrollment(int studentId, Course course) {
+            this.studentId = studentId;
+            this.course = course;
+        }
+
+        void setScore(int index, int score) {
+            if (index >= scores.length) {
+                int oldLength = scores.length;
+                scores = Arrays.copyOf(scores, course.weights.length);
+                Arrays.fill(scores, oldLength, scores.length, NO_GRADE);
+            }
+            int weight = course.weights[index];
+            if (scores[index] != NO_GRADE) {
+                weightedSum -= (long) weight * scores[index];
+                gradedWeight -= weight;
+            }
+            scores[index] = score;
+            if (score != NO_GRADE) {
+                weightedSum += (long) weight * score;
+                gradedWeight += weight;
+            }
+            setFinalGrade(this, gradedWeight == 0 ? NO_GRADE
+                    : (int) ((2 * weightedSum + gradedWeight) / (2 * gradedWeight)));
+        }
+    }
+}
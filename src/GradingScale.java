@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**
+ * Maps grades to letter grades and pass/fail status. Every grade from 0 to 100 is resolved
+ * once when the scale is built, so lookups are a single array load and return shared,
+ * interned strings.
+ * <p>
+ * The scale in use can be configured with {@code -Dgradetracker.gradingScale}, e.g.
+ * {@code "A=90,B=80,C=70,D=60,F=0;pass=60"}: letter grades with their minimum grade,
+ * highest first, and optionally the passing grade.
+ */
+final class GradingScale {
+    static final String PASS = "Pass";
+    static final String FAIL = "Fail";
+
+    static final GradingScale STANDARD = new GradingScale(
+            new String[]{"A+", "A", "A-", "B+", "B", "B-", "C+", "C", "C-", "D+", "D", "F"},
+            new int[]{97, 93, 90, 87, 83, 80, 77, 73, 70, 67, 60, 0},
+            60);
+
+    private static volatile GradingScale current = fromProperty();
+
+    private final String[] letters;
+    private final int[] minimums;
+    private final int passingGrade;
+    private final String[] letterByGrade = new String[GradeStatistics.MAX_GRADE + 1];
+    private final String[] statusByGrade = new String[GradeStatistics.MAX_GRADE + 1];
+
+    /**
+     * Creates a scale where {@code letters[i]} applies from {@code minimums[i]} up to the next
+     * higher cutoff. Minimums must be strictly descending and the last one must be 0.
+     */
+    public GradingScale(String[] letters, int[] minimums, int passingGrade) {
+        if (letters.length == 0 || letters.length != minimums.length) {
+            throw new IllegalArgumentException("Every letter grade needs exactly one minimum grade");
+        }
+        for (int i = 0; i < minimums.length; i++) {
+            GradeStatistics.checkGrade(minimums[i]);
+            if (i > 0 && minimums[i] >= minimums[i - 1]) {
+                throw new IllegalArgumentException("Minimum grades must be strictly descending");
+            }
+        }
+        if (minimums[minimums.length - 1] != GradeStatistics.MIN_GRADE) {
+            throw new IllegalArgumentException("The lowest letter grade must start at " + GradeStatistics.MIN_GRADE);
+        }
+        GradeStatistics.checkGrade(passingGrade);
+
+        this.letters = letters.clone();
+        this.minimums = minimums.clone();
+        this.passingGrade = passingGrade;
+
+        int band = 0;
+        for (int grade = GradeStatistics.MAX_GRADE; grade >= GradeStatistics.MIN_GRADE; grade--) {
+            while (grade < minimums[band]) band++;
+            letterByGrade[grade] = letters[band].intern();
+            statusByGrade[grade] = grade >= passingGrade ? PASS : FAIL;
+        }
+    }
+
+    /** The scale used by {@link Student} and the exporters. */
+    public static GradingScale current() {
+        return current;
+    }
+
+    public static void setCurrent(GradingScale scale) {
+        current = scale;
+    }
+
+    /** Parses a scale in the {@code -Dgradetracker.gradingScale} format. */
+    public static GradingScale parse(String spec) {
+        String[] parts = spec.split(";");
+        int passingGrade = -1;
+        for (int i = 1; i < parts.length; i++) {
+            String[] option = parts[i].split("=", 2);
+            if (option.length != 2 || !option[0].trim().equalsIgnoreCase("pass")) {
+                throw new IllegalArgumentException("Unknown grading scale option: " + parts[i].trim());
+            }
+            passingGrade = parseGrade(option[1]);
+        }
+
+        String[] bands = parts[0].split(",");
+        String[] letters = new String[bands.length];
+        int[] minimums = new int[bands.length];
+        for (int i = 0; i < bands.length; i++) {
+            String[] band = bands[i].split("=", 2);
+            if (band.length != 2 || band[0].isBlank()) {
+                throw new IllegalArgumentException("Expected LETTER=MINIMUM but found: " + bands[i].trim());
+            }
+            letters[i] = band[0].trim();
+            minimums[i] = parseGrade(band[1]);
+        }
+        if (passingGrade < 0) {
+            passingGrade = minimums.length > 1 ? minimums[minimums.length - 2] : GradeStatistics.MIN_GRADE;
+        }
+        return new GradingScale(letters, minimums, passingGrade);
+    }
+
+    private static int parseGrade(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a grade: " + text.trim());
+        }
+    }
+
+    private static GradingScale fromProperty() {
+        String spec = System.getProperty("gradetracker.gradingScale");
+        if (spec == null || spec.isBlank()) {
+            return STANDARD;
+        }
+        try {
+            return parse(spec);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring invalid gradetracker.gradingScale: " + e.getMessage());
+            return STANDARD;
+        }
+    }
+
+    public String letterGradeFor(int grade) {
+        return letterByGrade[grade];
+    }
+
+    public String statusFor(int grade) {
+        return statusByGrade[grade];
+    }
+
+    public int getPassingGrade() {
+        return passingGrade;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder spec = new StringBuilder();
+        for (int i = 0; i < letters.length; i++) {
+            if (i > 0) spec.append(',');
+            spec.append(letters[i]).append('=').append(minimums[i]);
+        }
+        return spec.append(";pass=").append(passingGrade).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GradingScale other && passingGrade == other.passingGrade
+                && Arrays.equals(letters, other.letters) && Arrays.equals(minimums, other.minimums);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(letters) + Arrays.hashCode(minimums)) + passingGrade;
+    }
+}
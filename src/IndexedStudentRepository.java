@@ -0,0 +1,354 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Array-backed repository with a primitive id index and a case-folded name index.
+ * Lookups, duplicate-name checks and deletes are constant time; a delete moves the
+ * last student into the freed slot instead of shifting the array. {@link #detachAll()}
+ * hands the array and indexes over as they are, and taking them back rebuilds nothing.
+ */
+class IndexedStudentRepository implements StudentRepository {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Student[] students;
+    private int size;
+    private IntIntHashMap positionsById;
+    private Map<String, Integer> nameCounts;
+    private final GradeStatistics statistics;
+    private final List<RosterListener> listeners;
+
+    public IndexedStudentRepository() {
+        students = new Student[INITIAL_CAPACITY];
+        positionsById = new IntIntHashMap();
+        nameCounts = new HashMap<>();
+        statistics = new GradeStatistics();
+        listeners = new ArrayList<>();
+    }
+
+    static String foldName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void add(Student student) {
+        append(student);
+        for (RosterListener listener : listeners) {
+            listener.studentAdded(student, size - 1);
+        }
+    }
+
+    @Override
+    public void addAll(List<Student> batch) {
+        if (batch.isEmpty()) return;
+
+        int firstIndex = size;
+        ensureCapacity(size + batch.size());
+        positionsById.ensureCapacity(size + batch.size());
+        try {
+            for (Student student : batch) {
+                append(student);
+            }
+        } finally {
+            if (size > firstIndex) {
+                for (RosterListener listener : listeners) {
+                    listener.studentsAdded(firstIndex, size - 1);
+                }
+            }
+        }
+    }
+
+    private void append(Student student) {
+        GradeStatistics.checkGrade(student.getGrade());
+        if (positionsById.containsKey(student.getId())) {
+            throw new IllegalArgumentException("Duplicate student id: " + student.getId());
+        }
+        ensureCapacity(size + 1);
+        students[size] = student;
+        positionsById.put(student.getId(), size);
+        size++;
+        nameCounts.merge(foldName(student.getName()), 1, Integer::sum);
+        statistics.add(student.getGrade());
+    }
+
+    @Override
+    public Student findById(int id) {
+        int index = positionsById.get(id);
+        return index == IntIntHashMap.NO_VALUE ? null : students[index];
+    }
+
+    @Override
+    public boolean containsName(String name) {
+        return nameCounts.containsKey(foldName(name));
+    }
+
+    @Override
+    public Student update(int id, String name, int grade) {
+        GradeStatistics.checkGrade(grade);
+        int index = indexOf(id);
+        if (index == -1) return null;
+
+        Student student = students[index];
+        String oldName = student.getName();
+        int oldGrade = student.getGrade();
+        if (!oldName.equals(name)) {
+            decrementName(oldName);
+            nameCounts.merge(foldName(name), 1, Integer::sum);
+            student.setName(name);
+        }
+        statistics.replace(oldGrade, grade);
+        student.setGrade(grade);
+
+        for (RosterListener listener : listeners) {
+            listener.studentUpdated(student, index, oldName, oldGrade);
+        }
+        return student;
+    }
+
+    @Override
+    public Student remove(int id) {
+        int index = positionsById.remove(id);
+        if (index == IntIntHashMap.NO_VALUE) return null;
+
+        Student removed = students[index];
+        int last = --size;
+        int movedFrom = -1;
+        if (index != last) {
+            students[index] = students[last];
+            positionsById.put(students[index].getId(), index);
+            movedFrom = last;
+        }
+        students[last] = null;
+
+        decrementName(removed.getName());
+        statistics.remove(removed.getGrade());
+
+        for (RosterListener listener : listeners) {
+            listener.studentRemoved(removed, index, movedFrom);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        int previousSize = size;
+        Arrays.fill(students, 0, size, null);
+        size = 0;
+        positionsById.clear();
+        nameCounts.clear();
+        statistics.clear();
+
+        for (RosterListener listener : listeners) {
+            listener.rosterCleared(previousSize);
+        }
+    }
+
+    /** Hands the students and their indexes over without copying them and starts again with empty ones. */
+    @Override
+    public StudentColumns detachAll() {
+        long[] histogram = new long[GradeStatistics.MAX_GRADE + 1];
+        statistics.copyHistogramInto(histogram);
+        Detached detached = new Detached(this, size, students, positionsById, nameCounts, histogram);
+        int previousSize = size;
+        students = new Student[INITIAL_CAPACITY];
+        size = 0;
+        positionsById = new IntIntHashMap();
+        nameCounts = new HashMap<>();
+        statistics.clear();
+
+        for (RosterListener listener : listeners) {
+            listener.rosterCleared(previousSize);
+        }
+        return detached;
+    }
+
+    /**
+     * Takes back students this repository detached, as they are, when it is empty; they must
+     * not be used again afterwards. Other columns are added row by row.
+     */
+    @Override
+    public void addAll(StudentColumns batch) {
+        if (batch.size == 0) return;
+        if (size == 0 && batch instanceof Detached detached && detached.owner == this) {
+            reattach(detached);
+            return;
+        }
+        addAll(batch.toStudents());
+    }
+
+    private void reattach(Detached detached) {
+        if (detached.reattached) {
+            throw new IllegalStateException("These students were already taken back");
+        }
+        detached.reattached = true;
+        students = detached.students;
+        size = detached.size;
+        positionsById = detached.positionsById;
+        nameCounts = detached.nameCounts;
+        for (int grade = 0; grade < detached.histogram.length; grade++) {
+            statistics.add(grade, detached.histogram[grade]);
+        }
+
+        for (RosterListener listener : listeners) {
+            listener.studentsAdded(0, size - 1);
+        }
+    }
+
+    /**
+     * Removes the batch in one step when its students fill the end of the roster in any
+     * order, which is where a bulk insert left them; otherwise removes them one by one.
+     */
+    @Override
+    public void removeAll(StudentColumns batch) {
+        int firstIndex = size - batch.size;
+        if (batch.size == 0 || !fillsEnd(batch.packed().ids, batch.size, firstIndex)) {
+            StudentRepository.super.removeAll(batch);
+            return;
+        }
+
+        List<Student> removed = Arrays.asList(Arrays.copyOfRange(students, firstIndex, size));
+        for (Student student : removed) {
+            positionsById.remove(student.getId());
+            decrementName(student.getName());
+            statistics.remove(student.getGrade());
+        }
+        Arrays.fill(students, firstIndex, size, null);
+        size = firstIndex;
+
+        for (RosterListener listener : listeners) {
+            listener.studentsRemoved(firstIndex, removed);
+        }
+    }
+
+    /** Whether {@code ids} are all in the roster at {@code firstIndex} or later; ids never repeat. */
+    private boolean fillsEnd(int[] ids, int count, int firstIndex) {
+        if (firstIndex < 0) return false;
+        for (int row = 0; row < count; row++) {
+            int index = positionsById.get(ids[row]);
+            if (index == IntIntHashMap.NO_VALUE || index < firstIndex) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Student get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return students[index];
+    }
+
+    @Override
+    public void copyColumns(int[] ids, byte[] grades) {
+        for (int index = 0; index < size; index++) {
+            ids[index] = students[index].getId();
+            grades[index] = (byte) students[index].getGrade();
+        }
+    }
+
+    @Override
+    public int indexOf(int id) {
+        int index = positionsById.get(id);
+        return index == IntIntHashMap.NO_VALUE ? -1 : index;
+    }
+
+    @Override
+    public List<Student> toList() {
+        return new ArrayList<>(Arrays.asList(students).subList(0, size));
+    }
+
+    @Override
+    public GradeStatistics statistics() {
+        return statistics;
+    }
+
+    @Override
+    public void addListener(RosterListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(RosterListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public Iterator<Student> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Student next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return students[next++];
+            }
+        };
+    }
+
+    private void decrementName(String name) {
+        nameCounts.computeIfPresent(foldName(name), (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    /** Students handed over by {@link #detachAll()}, with the indexes that were built over them. */
+    private static final class Detached extends StudentColumns {
+        private final IndexedStudentRepository owner;
+        private final Student[] students;
+        private final IntIntHashMap positionsById;
+        private final Map<String, Integer> nameCounts;
+        private final long[] histogram;
+        private boolean reattached;
+
+        Detached(IndexedStudentRepository owner, int size, Student[] students, IntIntHashMap positionsById,
+                 Map<String, Integer> nameCounts, long[] histogram) {
+            super(size, null, null, null, null, null);
+            this.owner = owner;
+            this.students = students;
+            this.positionsById = positionsById;
+            this.nameCounts = nameCounts;
+            this.histogram = histogram;
+        }
+
+        @Override
+        public StudentColumns packed() {
+            return pack(row -> students[row], size);
+        }
+
+        @Override
+        public String nameAt(int row) {
+            return students[row].getName();
+        }
+
+        @Override
+        public Student get(int row) {
+            Student student = students[row];
+            return new Student(student.getId(), student.getName(), student.getGrade());
+        }
+
+        /** About 120 bytes a student: the array slot, the object, its name and both index entries. */
+        @Override
+        public long estimatedBytes() {
+            return 4L * students.length + 120L * size;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > students.length) {
+            students = Arrays.copyOf(students, Math.max(capacity, students.length + (students.length >> 1)));
+        }
+    }
+}
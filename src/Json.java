@@ -0,0 +1,201 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the HTTP API, so the tracker keeps no external dependencies.
+ * Parsed objects become {@link LinkedHashMap}s, arrays {@link ArrayList}s, integral
+ * numbers {@link Long}s and other numbers {@link Double}s.
+ */
+final class Json {
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /** Parses a JSON object. Throws {@link IllegalArgumentException} if {@code text} is not one. */
+    public static Map<String, Object> parseObject(String text) {
+        Json parser = new Json(text);
+        parser.skipWhitespace();
+        if (parser.peek() != '{') {
+            throw parser.error("Expected a JSON object");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> object = (Map<String, Object>) parser.value();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.error("Unexpected trailing characters");
+        }
+        return object;
+    }
+
+    /** Appends {@code value} as a JSON string literal. */
+    public static StringBuilder appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"');
+    }
+
+    private Object value() {
+        skipWhitespace();
+        char c = peek();
+        switch (c) {
+            case '{' -> {
+                position++;
+                Map<String, Object> object = new LinkedHashMap<>();
+                skipWhitespace();
+                if (peek() == '}') {
+                    position++;
+                    return object;
+                }
+                while (true) {
+                    skipWhitespace();
+                    if (peek() != '"') throw error("Expected a property name");
+                    String key = string();
+                    skipWhitespace();
+                    expect(':');
+                    object.put(key, value());
+                    skipWhitespace();
+                    if (peek() == ',') {
+                        position++;
+                    } else {
+                        expect('}');
+                        return object;
+                    }
+                }
+            }
+            case '[' -> {
+                position++;
+                List<Object> array = new ArrayList<>();
+                skipWhitespace();
+                if (peek() == ']') {
+                    position++;
+                    return array;
+                }
+                while (true) {
+                    array.add(value());
+                    skipWhitespace();
+                    if (peek() == ',') {
+                        position++;
+                    } else {
+                        expect(']');
+                        return array;
+                    }
+                }
+            }
+            case '"' -> {
+                return string();
+            }
+            case 't' -> {
+                literal("true");
+                return Boolean.TRUE;
+            }
+            case 'f' -> {
+                literal("false");
+                return Boolean.FALSE;
+            }
+            case 'n' -> {
+                literal("null");
+                return null;
+            }
+            default -> {
+                return number();
+            }
+        }
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            if (position >= text.length()) throw error("Unterminated string");
+            char c = text.charAt(position++);
+            if (c == '"') return out.toString();
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (position >= text.length()) throw error("Unterminated string");
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> out.append(escaped);
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) throw error("Invalid unicode escape");
+                    try {
+                        out.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                }
+                default -> throw error("Invalid escape \\" + escaped);
+            }
+        }
+    }
+
+    private Object number() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        String number = text.substring(start, position);
+        if (number.isEmpty()) throw error("Unexpected character");
+        try {
+            if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                return Long.parseLong(number);
+            }
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number " + number);
+        }
+    }
+
+    private void literal(String literal) {
+        if (!text.startsWith(literal, position)) throw error("Unexpected character");
+        position += literal.length();
+    }
+
+    private void expect(char c) {
+        if (peek() != c) throw error("Expected '" + c + "'");
+        position++;
+    }
+
+    private char peek() {
+        if (position >= text.length()) throw error("Unexpected end of JSON");
+        return text.charAt(position);
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + position);
+    }
+}
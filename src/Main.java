@@ -4,6 +4,7 @@ public class Main {
     public static void main(String[] args) {
         Scanner input = new Scanner(System.in);
         GradeTracker gradeTracker = new GradeTracker();
+        int nextStudentId = 1;
 
         while (true) {
             System.out.println("\n Welcome to the grade tracker");
@@ -17,8 +18,13 @@ public class Main {
                     String name = input.nextLine();
                     System.out.print("Enter grade: ");
                     int grade = input.nextInt();
-                    gradeTracker.addStudent(0, name, grade);
-                    System.out.println("Success");
+                    try {
+                        gradeTracker.addStudent(nextStudentId, name, grade);
+                        nextStudentId++;
+                        System.out.println("Success");
+                    } catch (IllegalArgumentException e) {
+                        System.out.println(e.getMessage());
+                    }
                     break;
                 case 2:
                     gradeTracker.display();
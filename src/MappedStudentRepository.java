@@ -0,0 +1,414 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Repository that serves the roster straight from a memory-mapped {@link RosterSnapshot}.
+ * Ids and grades are read from the mapped columns; a name is only decoded when its row
+ * is requested, and decoded rows are kept in a small bounded cache. Opening a roster
+ * costs one pass over the grade column for the statistics, whatever its size.
+ * <p>
+ * Changes are kept in an in-heap overlay keyed by position. The id and name indexes are
+ * built from the mapped columns the first time a lookup needs them.
+ */
+class MappedStudentRepository implements StudentRepository {
+    private static final int DECODED_CACHE_SIZE = 4096;
+
+    private final Path file;
+    private MappedByteBuffer mapped;
+    private int mappedCount;
+    private int storedNextStudentId;
+    private long journalGeneration;
+
+    private int size;
+    private final Map<Integer, Student> overrides = new HashMap<>();
+    private final Map<Integer, Student> decoded = new LinkedHashMap<>(DECODED_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Student> eldest) {
+            return size() > DECODED_CACHE_SIZE;
+        }
+    };
+
+    private IntIntHashMap positionsById;
+    private Map<String, Integer> nameCounts;
+    private final GradeStatistics statistics = new GradeStatistics();
+    private final List<RosterListener> listeners = new ArrayList<>();
+
+    private MappedStudentRepository(Path file) {
+        this.file = file;
+    }
+
+    public static MappedStudentRepository open(Path file) throws IOException {
+        MappedStudentRepository repository = new MappedStudentRepository(file);
+        repository.map();
+        return repository;
+    }
+
+    /** Drops all in-heap changes and maps the file again, e.g. after a new snapshot was saved. */
+    public void remap() throws IOException {
+        int previousSize = size;
+        map();
+        for (RosterListener listener : listeners) {
+            listener.rosterCleared(previousSize);
+            if (size > 0) {
+                listener.studentsAdded(0, size - 1);
+            }
+        }
+    }
+
+    public int getStoredNextStudentId() {
+        return storedNextStudentId;
+    }
+
+    public long getJournalGeneration() {
+        return journalGeneration;
+    }
+
+    /**
+     * The roster as it stands, for a snapshot written on another thread while this repository
+     * keeps changing. Rows still in the mapped file are read from it; only the changed rows are
+     * copied.
+     */
+    public RosterSnapshot.Rows freeze() {
+        ByteBuffer rows = mapped.duplicate();
+        int count = mappedCount;
+        int frozenSize = size;
+        Map<Integer, Student> changed = new HashMap<>();
+        for (Map.Entry<Integer, Student> entry : overrides.entrySet()) {
+            Student student = entry.getValue();
+            changed.put(entry.getKey(), new Student(student.getId(), student.getName(), student.getGrade()));
+        }
+        int ids = (int) RosterSnapshot.idsOffset();
+        int grades = (int) RosterSnapshot.gradesOffset(count);
+        int offsets = (int) RosterSnapshot.nameOffsetsOffset(count);
+        int heap = (int) RosterSnapshot.nameHeapOffset(count);
+
+        return new RosterSnapshot.Rows() {
+            @Override
+            public int size() {
+                return frozenSize;
+            }
+
+            @Override
+            public int idAt(int index) {
+                Student student = changed.get(index);
+                return student != null ? student.getId() : rows.getInt(ids + 4 * index);
+            }
+
+            @Override
+            public int gradeAt(int index) {
+                Student student = changed.get(index);
+                return student != null ? student.getGrade() : rows.get(grades + index);
+            }
+
+            @Override
+            public int nameLength(int index) {
+                Student student = changed.get(index);
+                if (student != null) return student.getName().getBytes(StandardCharsets.UTF_8).length;
+                return rows.getInt(offsets + 4 * (index + 1)) - rows.getInt(offsets + 4 * index);
+            }
+
+            @Override
+            public byte[] nameAt(int index) {
+                Student student = changed.get(index);
+                if (student != null) return student.getName().getBytes(StandardCharsets.UTF_8);
+                int start = rows.getInt(offsets + 4 * index);
+                byte[] bytes = new byte[rows.getInt(offsets + 4 * (index + 1)) - start];
+                rows.get(heap + start, bytes);
+                return bytes;
+            }
+        };
+    }
+
+    private void map() throws IOException {
+        // A snapshot saved while this file was mapped may be waiting next to it; see RosterSnapshot.promote.
+        Path current = RosterSnapshot.current(file);
+        try (FileChannel channel = FileChannel.open(current, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = RosterSnapshot.readHeader(buffer, current);
+            if (channel.size() != RosterSnapshot.nameHeapOffset(count) + buffer.getLong(16)) {
+                throw new IOException("Roster snapshot " + current + " is truncated or corrupt");
+            }
+
+            mapped = buffer;
+            mappedCount = count;
+            storedNextStudentId = buffer.getInt(12);
+            journalGeneration = buffer.getLong(24);
+        }
+
+        size = mappedCount;
+        overrides.clear();
+        decoded.clear();
+        positionsById = null;
+        nameCounts = null;
+
+        statistics.clear();
+        int grades = (int) RosterSnapshot.gradesOffset(mappedCount);
+        for (int i = 0; i < mappedCount; i++) {
+            statistics.add(mapped.get(grades + i));
+        }
+    }
+
+    @Override
+    public void add(Student student) {
+        append(student);
+        for (RosterListener listener : listeners) {
+            listener.studentAdded(student, size - 1);
+        }
+    }
+
+    @Override
+    public void addAll(List<Student> batch) {
+        if (batch.isEmpty()) return;
+
+        int firstIndex = size;
+        try {
+            for (Student student : batch) {
+                append(student);
+            }
+        } finally {
+            if (size > firstIndex) {
+                for (RosterListener listener : listeners) {
+                    listener.studentsAdded(firstIndex, size - 1);
+                }
+            }
+        }
+    }
+
+    private void append(Student student) {
+        GradeStatistics.checkGrade(student.getGrade());
+        IntIntHashMap positions = positions();
+        if (positions.containsKey(student.getId())) {
+            throw new IllegalArgumentException("Duplicate student id: " + student.getId());
+        }
+        overrides.put(size, student);
+        positions.put(student.getId(), size);
+        size++;
+        incrementName(student.getName());
+        statistics.add(student.getGrade());
+    }
+
+    @Override
+    public Student findById(int id) {
+        int index = indexOf(id);
+        return index == -1 ? null : get(index);
+    }
+
+    @Override
+    public boolean containsName(String name) {
+        return names().containsKey(IndexedStudentRepository.foldName(name));
+    }
+
+    @Override
+    public Student update(int id, String name, int grade) {
+        GradeStatistics.checkGrade(grade);
+        int index = indexOf(id);
+        if (index == -1) return null;
+
+        Student student = get(index);
+        String oldName = student.getName();
+        int oldGrade = student.getGrade();
+        if (!oldName.equals(name)) {
+            decrementName(oldName);
+            incrementName(name);
+            student.setName(name);
+        }
+        statistics.replace(oldGrade, grade);
+        student.setGrade(grade);
+        overrides.put(index, student);
+        decoded.remove(index);
+
+        for (RosterListener listener : listeners) {
+            listener.studentUpdated(student, index, oldName, oldGrade);
+        }
+        return student;
+    }
+
+    @Override
+    public Student remove(int id) {
+        int index = positions().remove(id);
+        if (index == IntIntHashMap.NO_VALUE) return null;
+
+        Student removed = get(index);
+        int last = size - 1;
+        int movedFrom = -1;
+        if (index != last) {
+            Student moved = get(last);
+            overrides.put(index, moved);
+            positionsById.put(moved.getId(), index);
+            movedFrom = last;
+        }
+        overrides.remove(last);
+        decoded.remove(index);
+        decoded.remove(last);
+        size--;
+
+        decrementName(removed.getName());
+        statistics.remove(removed.getGrade());
+
+        for (RosterListener listener : listeners) {
+            listener.studentRemoved(removed, index, movedFrom);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        int previousSize = size;
+        size = 0;
+        mappedCount = 0;
+        overrides.clear();
+        decoded.clear();
+        positionsById = new IntIntHashMap();
+        nameCounts = new HashMap<>();
+        statistics.clear();
+
+        for (RosterListener listener : listeners) {
+            listener.rosterCleared(previousSize);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Student get(int index) {
+        checkIndex(index);
+        Student student = overrides.get(index);
+        if (student != null) return student;
+
+        return decoded.computeIfAbsent(index, this::decode);
+    }
+
+    @Override
+    public int idAt(int index) {
+        checkIndex(index);
+        Student student = overrides.get(index);
+        return student != null ? student.getId() : mapped.getInt((int) RosterSnapshot.idsOffset() + 4 * index);
+    }
+
+    @Override
+    public int gradeAt(int index) {
+        checkIndex(index);
+        Student student = overrides.get(index);
+        return student != null ? student.getGrade() : mapped.get((int) RosterSnapshot.gradesOffset(mappedCount) + index);
+    }
+
+    @Override
+    public int indexOf(int id) {
+        int index = positions().get(id);
+        return index == IntIntHashMap.NO_VALUE ? -1 : index;
+    }
+
+    @Override
+    public List<Student> toList() {
+        List<Student> students = new ArrayList<>(size);
+        for (Student student : this) {
+            students.add(student);
+        }
+        return students;
+    }
+
+    @Override
+    public GradeStatistics statistics() {
+        return statistics;
+    }
+
+    @Override
+    public void addListener(RosterListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(RosterListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public Iterator<Student> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Student next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int index = next++;
+                Student student = overrides.get(index);
+                if (student == null) student = decoded.get(index);
+                return student != null ? student : decode(index);
+            }
+        };
+    }
+
+    private Student decode(int index) {
+        int id = mapped.getInt((int) RosterSnapshot.idsOffset() + 4 * index);
+        int grade = mapped.get((int) RosterSnapshot.gradesOffset(mappedCount) + index);
+        return new Student(id, decodeName(index), grade);
+    }
+
+    private String decodeName(int index) {
+        int offsets = (int) RosterSnapshot.nameOffsetsOffset(mappedCount);
+        int start = mapped.getInt(offsets + 4 * index);
+        int end = mapped.getInt(offsets + 4 * (index + 1));
+        byte[] bytes = new byte[end - start];
+        mapped.get((int) RosterSnapshot.nameHeapOffset(mappedCount) + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private IntIntHashMap positions() {
+        if (positionsById == null) {
+            positionsById = new IntIntHashMap(size);
+            for (int i = 0; i < size; i++) {
+                positionsById.put(idAt(i), i);
+            }
+        }
+        return positionsById;
+    }
+
+    private Map<String, Integer> names() {
+        if (nameCounts == null) {
+            nameCounts = new HashMap<>();
+            for (Student student : this) {
+                nameCounts.merge(IndexedStudentRepository.foldName(student.getName()), 1, Integer::sum);
+            }
+        }
+        return nameCounts;
+    }
+
+    /** Name counts are only maintained once built; until then {@link #names()} will see the change. */
+    private void incrementName(String name) {
+        if (nameCounts != null) {
+            nameCounts.merge(IndexedStudentRepository.foldName(name), 1, Integer::sum);
+        }
+    }
+
+    private void decrementName(String name) {
+        if (nameCounts != null) {
+            nameCounts.computeIfPresent(IndexedStudentRepository.foldName(name), (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide registry of counters, latency timers and gauges. Metric names follow
+ * Prometheus conventions: every name gets a {@code gradetracker_} prefix, timers are
+ * reported in seconds and counters end in {@code _total}.
+ * <p>
+ * Each timed operation is also committed as a JFR {@link OperationEvent} when a flight
+ * recording has that event enabled. Metrics are on by default;
+ * {@code -Dgradetracker.metrics=false} turns every timer and counter into a no-op that
+ * the JIT removes.
+ */
+final class Metrics {
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("gradetracker.metrics"));
+
+    private static final String PREFIX = "gradetracker_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final Map<String, Metric> REGISTRY = new LinkedHashMap<>();
+
+    static {
+        gauge("heap_used_bytes", "Heap memory in use",
+                () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        gauge("heap_max_bytes", "Maximum heap size", () -> {
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            return heap.getMax() < 0 ? heap.getCommitted() : heap.getMax();
+        });
+    }
+
+    private Metrics() {
+    }
+
+    /** Returns the counter registered under {@code name}, creating it on first use. */
+    public static Counter counter(String name, String help) {
+        return register(new Counter(PREFIX + name + "_total", help), Counter.class);
+    }
+
+    /** Returns the timer registered under {@code name}, creating it on first use. */
+    public static Timer timer(String name, String help) {
+        return register(new Timer(PREFIX + name + "_seconds", help, name), Timer.class);
+    }
+
+    /** Registers a gauge, replacing any earlier gauge of that name. {@code value} is read on the reporting thread. */
+    public static void gauge(String name, String help, DoubleSupplier value) {
+        synchronized (REGISTRY) {
+            REGISTRY.put(PREFIX + name, new Gauge(PREFIX + name, help, value));
+        }
+    }
+
+    /** Every registered metric, in registration order. */
+    public static List<Metric> all() {
+        synchronized (REGISTRY) {
+            return new ArrayList<>(REGISTRY.values());
+        }
+    }
+
+    /** Renders every metric in the Prometheus text exposition format. */
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        for (Metric metric : all()) {
+            out.append("# HELP ").append(metric.getName()).append(' ').append(metric.getHelp()).append('\n');
+            out.append("# TYPE ").append(metric.getName()).append(' ').append(metric.type()).append('\n');
+            metric.appendSamples(out);
+        }
+        return out.toString();
+    }
+
+    /** Writes {@link #toPrometheus()} to {@code file}, replacing it in one step so collectors never see half a dump. */
+    public static void writePrometheus(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temporary, toPrometheus(), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static <T extends Metric> T register(T metric, Class<T> type) {
+        synchronized (REGISTRY) {
+            Metric existing = REGISTRY.putIfAbsent(metric.getName(), metric);
+            if (existing == null) return metric;
+            if (!type.isInstance(existing)) {
+                throw new IllegalArgumentException(metric.getName() + " is already registered as a " + existing.type());
+            }
+            return type.cast(existing);
+        }
+    }
+
+    abstract static class Metric {
+        private final String name;
+        private final String help;
+
+        Metric(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        abstract String type();
+
+        abstract void appendSamples(StringBuilder out);
+    }
+
+    static final class Counter extends Metric {
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name, String help) {
+            super(name, help);
+        }
+
+        public void increment() {
+            if (ENABLED) count.increment();
+        }
+
+        public long get() {
+            return count.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void appendSamples(StringBuilder out) {
+            out.append(getName()).append(' ').append(get()).append('\n');
+        }
+    }
+
+    /** Latency histogram of one operation, fed by {@link Sample}s. */
+    static final class Timer extends Metric {
+        private final String operation;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Timer(String name, String help, String operation) {
+            super(name, help);
+            this.operation = operation;
+        }
+
+        /** Starts timing one run of the operation. Stop the sample once, when the run ends. */
+        public Sample start() {
+            return ENABLED ? new Sample(this) : Sample.DISABLED;
+        }
+
+        public LatencyHistogram.Snapshot snapshot() {
+            return histogram.snapshot();
+        }
+
+        @Override
+        String type() {
+            return "summary";
+        }
+
+        @Override
+        void appendSamples(StringBuilder out) {
+            LatencyHistogram.Snapshot snapshot = snapshot();
+            for (double quantile : QUANTILES) {
+                out.append(getName()).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(snapshot.getPercentileNanos(quantile * 100))).append('\n');
+            }
+            out.append(getName()).append("_sum ").append(seconds(snapshot.getSumNanos())).append('\n');
+            out.append(getName()).append("_count ").append(snapshot.getCount()).append('\n');
+        }
+
+        private static double seconds(long nanos) {
+            return nanos / 1e9;
+        }
+    }
+
+    /** One timed run of an operation. */
+    static final class Sample {
+        private static final Sample DISABLED = new Sample(null);
+
+        private final Timer timer;
+        private final long started;
+        private final OperationEvent event;
+
+        private Sample(Timer timer) {
+            this.timer = timer;
+            if (timer == null) {
+                started = 0;
+                event = null;
+                return;
+            }
+            event = new OperationEvent();
+            event.begin();
+            started = System.nanoTime();
+        }
+
+        public void stop() {
+            if (timer == null) return;
+
+            timer.histogram.record(System.nanoTime() - started);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = timer.operation;
+                event.commit();
+            }
+        }
+    }
+
+    static final class Gauge extends Metric {
+        private final DoubleSupplier value;
+
+        private Gauge(String name, String help, DoubleSupplier value) {
+            super(name, help);
+            this.value = value;
+        }
+
+        public double get() {
+            return value.getAsDouble();
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+
+        @Override
+        void appendSamples(StringBuilder out) {
+            double current = get();
+            out.append(getName()).append(' ');
+            if (current == Math.rint(current) && Math.abs(current) < 1e15) {
+                out.append((long) current);
+            } else {
+                out.append(current);
+            }
+            out.append('\n');
+        }
+    }
+
+    @Name("gradetracker.Operation")
+    @Label("Grade Tracker Operation")
+    @Category("Grade Tracker")
+    @Description("A timed tracker operation, such as loading the roster or refreshing the statistics")
+    static final class OperationEvent extends jdk.jfr.Event {
+        @Label("Operation")
+        String operation;
+    }
+}
@@ -0,0 +1,194 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.Locale;
+
+/**
+ * Rank queries answered from a {@link GradeRankIndex}: the best students, the weakest
+ * percent, a grade range and where one student stands. Each query is a logarithmic search
+ * plus the rows it shows, so it runs on the EDT whatever the roster size.
+ */
+class RankingsPanel extends JPanel {
+    static final int MAX_ROWS = 1000;
+
+    private static final int NEIGHBOURS = 5;
+    private static final String[] COLUMNS = {"Rank", "ID", "Student Name", "Grade", "Letter Grade"};
+
+    private final StudentRepository students;
+    private final GradeRankIndex ranks;
+    private final RankTableModel model = new RankTableModel();
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JSpinner topCount = new JSpinner(new SpinnerNumberModel(10, 1, MAX_ROWS, 1));
+    private final JSpinner bottomPercent = new JSpinner(new SpinnerNumberModel(5.0, 0.5, 100.0, 0.5));
+    private final JSpinner lowGrade = new JSpinner(new SpinnerNumberModel(80, 0, GradeStatistics.MAX_GRADE, 1));
+    private final JSpinner highGrade = new JSpinner(new SpinnerNumberModel(89, 0, GradeStatistics.MAX_GRADE, 1));
+    private final JSpinner studentId = new JSpinner(new SpinnerNumberModel(1, 1, Integer.MAX_VALUE, 1));
+
+    /** {@code selectedId} is the student to fill in for the rank query, or 0 for none. */
+    public RankingsPanel(StudentRepository students, GradeRankIndex ranks, int selectedId) {
+        super(new BorderLayout(0, 5));
+        this.students = students;
+        this.ranks = ranks;
+        setBackground(Color.WHITE);
+        setBorder(new EmptyBorder(10, 10, 10, 10));
+        if (selectedId > 0) {
+            studentId.setValue(selectedId);
+        }
+
+        JPanel queries = new JPanel(new GridLayout(0, 1));
+        queries.setBackground(Color.WHITE);
+        queries.add(createQuery(this::showTop, "Top", topCount, "students"));
+        queries.add(createQuery(this::showBottom, "Bottom", bottomPercent, "%"));
+        queries.add(createQuery(this::showRange, "Grades from", lowGrade, "to", highGrade));
+        queries.add(createQuery(this::showRank, "Rank of student ID", studentId));
+
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(520, 280));
+
+        add(queries, BorderLayout.NORTH);
+        add(scrollPane, BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+        if (selectedId > 0) {
+            showRank();
+        } else {
+            showTop();
+        }
+    }
+
+    /** A row of labels and spinners followed by a Show button that runs {@code query}. */
+    private static JPanel createQuery(Runnable query, Object... parts) {
+        JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        row.setBackground(Color.WHITE);
+        for (Object part : parts) {
+            row.add(part instanceof Component component ? component : new JLabel(part.toString()));
+        }
+        JButton showButton = new JButton("Show");
+        showButton.addActionListener(e -> query.run());
+        row.add(showButton);
+        return row;
+    }
+
+    private void showTop() {
+        ranks.ensureBuilt();
+        int[] ids = ranks.top((Integer) topCount.getValue());
+        show(ids, 0, 1);
+        setStatus(ids.length == 0 ? "The roster is empty."
+                : String.format(Locale.ROOT, "Top %,d of %,d students.", ids.length, ranks.size()));
+    }
+
+    private void showBottom() {
+        ranks.ensureBuilt();
+        double percent = ((Number) bottomPercent.getValue()).doubleValue();
+        int count = ranks.countForPercent(percent);
+        int[] ids = ranks.bottom(Math.min(count, MAX_ROWS));
+        show(ids, ranks.size() - 1, -1);
+        if (ids.length == 0) {
+            setStatus("The roster is empty.");
+            return;
+        }
+        Student best = students.findById(ranks.idAt(ranks.size() - count));
+        setStatus(String.format(Locale.ROOT, "The bottom %s%% is %,d of %,d students, with grades up to %d%s.",
+                bottomPercent.getValue(), count, ranks.size(), best.getGrade(), shownOf(ids.length, count)));
+    }
+
+    private void showRange() {
+        ranks.ensureBuilt();
+        int low = (Integer) lowGrade.getValue();
+        int high = (Integer) highGrade.getValue();
+        if (low > high) {
+            show(new int[0], 0, 1);
+            setStatus("The lowest grade must not be above the highest.");
+            return;
+        }
+        int count = ranks.countBetween(low, high);
+        int first = ranks.firstPositionBetween(low, high);
+        show(ranks.idsAt(first, first + Math.min(count, MAX_ROWS)), first, 1);
+        setStatus(String.format(Locale.ROOT, "%,d of %,d students have a grade from %d to %d%s.",
+                count, ranks.size(), low, high, shownOf(Math.min(count, MAX_ROWS), count)));
+    }
+
+    /** Shows the student with the students ranked just above and below. */
+    private void showRank() {
+        ranks.ensureBuilt();
+        int id = (Integer) studentId.getValue();
+        Student student = students.findById(id);
+        if (student == null) {
+            show(new int[0], 0, 1);
+            setStatus("No student has ID " + id + ".");
+            return;
+        }
+        int grade = student.getGrade();
+        int position = ranks.positionOf(id, grade);
+        int from = Math.max(0, position - NEIGHBOURS);
+        show(ranks.idsAt(from, Math.min(ranks.size(), position + NEIGHBOURS + 1)), from, 1);
+        int above = grade == GradeStatistics.MAX_GRADE ? 0 : ranks.countAtLeast(grade + 1);
+        setStatus(String.format(Locale.ROOT, "%s is ranked %,d of %,d: %,d students have a higher grade and %,d more share %d.",
+                student.getName(), position + 1, ranks.size(), above, ranks.countBetween(grade, grade) - 1, grade));
+    }
+
+    private static String shownOf(int shown, int count) {
+        return shown < count ? String.format(Locale.ROOT, " (showing %,d)", shown) : "";
+    }
+
+    private void setStatus(String text) {
+        statusLabel.setText(text);
+    }
+
+    /** Shows {@code ids}, the first at zero-based {@code firstPosition} and each next one {@code step} further. */
+    private void show(int[] ids, int firstPosition, int step) {
+        Student[] rows = new Student[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Student student = students.findById(ids[i]);
+            rows[i] = new Student(student.getId(), student.getName(), student.getGrade());
+        }
+        model.show(rows, firstPosition, step);
+    }
+
+    private static final class RankTableModel extends AbstractTableModel {
+        private Student[] rows = new Student[0];
+        private int firstPosition;
+        private int step = 1;
+
+        void show(Student[] rows, int firstPosition, int step) {
+            this.rows = rows;
+            this.firstPosition = firstPosition;
+            this.step = step;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 2 || column == 4 ? String.class : Integer.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Student student = rows[row];
+            return switch (column) {
+                case 0 -> firstPosition + row * step + 1;
+                case 1 -> student.getId();
+                case 2 -> student.getName();
+                case 3 -> student.getGrade();
+                default -> GradingScale.current().letterGradeFor(student.getGrade());
+            };
+        }
+    }
+}
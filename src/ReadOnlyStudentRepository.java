@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Read-only view of another repository that follows its changes. Every mutator throws
+ * {@link UnsupportedOperationException}, and students and statistics are handed out as
+ * copies, so a caller cannot edit them behind the owner's indexes. Listeners are passed
+ * through, so tables, rank indexes and change feeds can follow the view.
+ */
+final class ReadOnlyStudentRepository implements StudentRepository {
+    private final StudentRepository students;
+
+    public ReadOnlyStudentRepository(StudentRepository students) {
+        this.students = students;
+    }
+
+    @Override
+    public void add(Student student) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addAll(List<Student> students) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addAll(StudentColumns columns) {
+        throw readOnly();
+    }
+
+    @Override
+    public Student update(int id, String name, int grade) {
+        throw readOnly();
+    }
+
+    @Override
+    public Student remove(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeAll(StudentColumns batch) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    @Override
+    public StudentColumns detachAll() {
+        throw readOnly();
+    }
+
+    @Override
+    public Student findById(int id) {
+        return copyOf(students.findById(id));
+    }
+
+    @Override
+    public boolean containsName(String name) {
+        return students.containsName(name);
+    }
+
+    @Override
+    public int size() {
+        return students.size();
+    }
+
+    @Override
+    public Student get(int index) {
+        return copyOf(students.get(index));
+    }
+
+    @Override
+    public int idAt(int index) {
+        return students.idAt(index);
+    }
+
+    @Override
+    public int gradeAt(int index) {
+        return students.gradeAt(index);
+    }
+
+    @Override
+    public void copyColumns(int[] ids, byte[] grades) {
+        students.copyColumns(ids, grades);
+    }
+
+    @Override
+    public int indexOf(int id) {
+        return students.indexOf(id);
+    }
+
+    @Override
+    public List<Student> toList() {
+        List<Student> copies = new ArrayList<>(students.size());
+        for (Student student : students) {
+            copies.add(copyOf(student));
+        }
+        return copies;
+    }
+
+    @Override
+    public GradeStatistics statistics() {
+        long[] histogram = new long[GradeStatistics.MAX_GRADE + 1];
+        students.statistics().copyHistogramInto(histogram);
+        GradeStatistics copy = new GradeStatistics();
+        for (int grade = GradeStatistics.MIN_GRADE; grade <= GradeStatistics.MAX_GRADE; grade++) {
+            copy.add(grade, histogram[grade]);
+        }
+        return copy;
+    }
+
+    @Override
+    public void addListener(RosterListener listener) {
+        students.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(RosterListener listener) {
+        students.removeListener(listener);
+    }
+
+    @Override
+    public Iterator<Student> iterator() {
+        Iterator<Student> iterator = students.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Student next() {
+                return copyOf(iterator.next());
+            }
+        };
+    }
+
+    private static Student copyOf(Student student) {
+        return student == null ? null : new Student(student.getId(), student.getName(), student.getGrade());
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("This roster is read-only");
+    }
+}
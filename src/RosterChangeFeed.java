@@ -0,0 +1,261 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered feed of roster changes for systems that mirror the roster. Every repository event
+ * becomes one {@link Change} with the next sequence number: an add, update or delete carries
+ * the student as it is afterwards (a delete, as it was), and a clear removes everyone. The
+ * changes are keyed by id, so applying one again is harmless.
+ * <p>
+ * The feed keeps the latest {@code capacity} changes in a ring buffer. Consumers pull at
+ * their own pace, with a {@link Subscription} or {@link #read} from a sequence number, and
+ * the roster never waits for them: a consumer that falls a whole ring behind is told it
+ * {@linkplain Page#missed missed} changes and resyncs from a copy of the roster, then
+ * reads on from the sequence number that copy was taken at. A bulk insert or remove larger
+ * than the ring only records its last rows. Sequence numbers start from 1 in every process;
+ * {@link #getEpoch()} tells feeds apart.
+ * <p>
+ * Changes are recorded on the thread that mutates the roster. Reading is thread-safe, and
+ * waiting for changes parks a virtual thread without pinning it.
+ */
+final class RosterChangeFeed implements RosterListener {
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    static final String ADD = "add";
+    static final String UPDATE = "update";
+    static final String DELETE = "delete";
+    static final String CLEAR = "clear";
+
+    private final StudentRepository students;
+    private final long epoch = System.currentTimeMillis();
+    private final int mask;
+    private final String[] types;
+    private final int[] ids;
+    private final String[] names;
+    private final byte[] grades;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    /** Sequence number of the latest change, 0 before the first. */
+    private volatile long latest;
+
+    /** Records the changes made to {@code students}; {@code capacity} is rounded up to a power of two. */
+    public RosterChangeFeed(StudentRepository students, int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.students = students;
+        mask = size - 1;
+        types = new String[size];
+        ids = new int[size];
+        names = new String[size];
+        grades = new byte[size];
+        Metrics.gauge("change_feed_sequence", "Sequence number of the latest roster change", () -> latest);
+        Metrics.gauge("change_feed_max_lag", "Changes the furthest behind change feed subscriber has yet to read",
+                this::getMaxLag);
+        students.addListener(this);
+    }
+
+    /** Identifies this feed; sequence numbers from a feed with another epoch mean nothing here. */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getLatestSequence() {
+        return latest;
+    }
+
+    /** Starts reading with the next change. */
+    public Subscription subscribe() {
+        return subscribe(latest);
+    }
+
+    /** Starts reading with the change after {@code after}; 0 is from the first. */
+    public Subscription subscribe(long after) {
+        Subscription subscription = new Subscription(after);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Copies at most {@code max} changes after sequence number {@code after}, waiting up to
+     * {@code timeout} for the first if there is none yet. Returns no changes when the ring no
+     * longer holds the next one, or {@code after} is ahead of the feed.
+     */
+    public Page read(long after, int max, long timeout, TimeUnit unit) throws InterruptedException {
+        if (max < 1) {
+            throw new IllegalArgumentException("Must read at least one change: " + max);
+        }
+        lock.lock();
+        try {
+            long nanos = unit.toNanos(timeout);
+            while (latest == after && nanos > 0) {
+                nanos = appended.awaitNanos(nanos);
+            }
+            long newest = latest;
+            if (after < newest - (mask + 1) || after > newest || after < 0) {
+                return new Page(List.of(), newest, true);
+            }
+            int count = (int) Math.min(max, newest - after);
+            List<Change> changes = new ArrayList<>(count);
+            for (long sequence = after + 1; sequence <= after + count; sequence++) {
+                int slot = (int) sequence & mask;
+                changes.add(new Change(sequence, types[slot], ids[slot], names[slot], grades[slot]));
+            }
+            return new Page(changes, newest, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long getMaxLag() {
+        long newest = latest;
+        long lag = 0;
+        for (Subscription subscription : subscriptions) {
+            lag = Math.max(lag, newest - subscription.position);
+        }
+        return lag;
+    }
+
+    @Override
+    public void studentAdded(Student student, int index) {
+        append(ADD, student.getId(), student.getName(), student.getGrade());
+    }
+
+    @Override
+    public void studentsAdded(int firstIndex, int lastIndex) {
+        lock.lock();
+        try {
+            int count = lastIndex - firstIndex + 1;
+            int recorded = Math.min(count, mask + 1);
+            // Rows the ring would overwrite before anyone could read them only take sequence numbers.
+            latest += count - recorded;
+            for (int index = lastIndex - recorded + 1; index <= lastIndex; index++) {
+                store(ADD, students.idAt(index), students.get(index).getName(), students.gradeAt(index));
+            }
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+        append(UPDATE, student.getId(), student.getName(), student.getGrade());
+    }
+
+    @Override
+    public void studentRemoved(Student student, int index, int movedFrom) {
+        append(DELETE, student.getId(), student.getName(), student.getGrade());
+    }
+
+    @Override
+    public void studentsRemoved(int firstIndex, List<Student> removed) {
+        lock.lock();
+        try {
+            int recorded = Math.min(removed.size(), mask + 1);
+            // Reported last first, like single removes; only the last the ring can hold are kept.
+            latest += removed.size() - recorded;
+            for (int row = recorded - 1; row >= 0; row--) {
+                Student student = removed.get(row);
+                store(DELETE, student.getId(), student.getName(), student.getGrade());
+            }
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void rosterCleared(int previousSize) {
+        append(CLEAR, 0, null, 0);
+    }
+
+    private void append(String type, int id, String name, int grade) {
+        lock.lock();
+        try {
+            store(type, id, name, grade);
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(String type, int id, String name, int grade) {
+        int slot = (int) (latest + 1) & mask;
+        types[slot] = type;
+        ids[slot] = id;
+        names[slot] = name;
+        grades[slot] = (byte) grade;
+        latest++;
+    }
+
+    /** One change. A clear has id 0 and no name. */
+    static final class Change {
+        final long sequence;
+        final String type;
+        final int id;
+        final String name;
+        final int grade;
+
+        Change(long sequence, String type, int id, String name, int grade) {
+            this.sequence = sequence;
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.grade = grade;
+        }
+    }
+
+    static final class Page {
+        final List<Change> changes;
+        /** Sequence number of the latest change when the page was read. */
+        final long latest;
+        /** Changes after the requested one are gone; resync from a copy of the roster. */
+        final boolean missed;
+
+        Page(List<Change> changes, long latest, boolean missed) {
+            this.changes = changes;
+            this.latest = latest;
+            this.missed = missed;
+        }
+    }
+
+    /**
+     * A consumer's place in the feed. It moves on with every page it reads; after a missed
+     * page it continues from the latest change, which is where a resync leaves the consumer.
+     * Close it when done so it no longer counts towards the lag gauge.
+     */
+    final class Subscription implements AutoCloseable {
+        private volatile long position;
+
+        private Subscription(long position) {
+            this.position = position;
+        }
+
+        /** Sequence number of the last change read, or skipped after a missed page. */
+        public long getPosition() {
+            return position;
+        }
+
+        public Page poll(int max, long timeout, TimeUnit unit) throws InterruptedException {
+            Page page = read(position, max, timeout, unit);
+            if (page.missed) {
+                position = page.latest;
+            } else if (!page.changes.isEmpty()) {
+                position = page.changes.get(page.changes.size() - 1).sequence;
+            }
+            return page;
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,486 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Undo and redo for the roster. The history listens to the repository and records every
+ * change as a compact delta: the id, name and grade it touched, never a copy of the roster.
+ * Bulk inserts are packed into {@link StudentColumns} and undone with one bulk remove, and
+ * {@link #clear()} keeps what the repository hands over, so undoing a clear does not
+ * re-add students one by one (the in-memory repositories take their arrays straight back).
+ * <p>
+ * Entries are evicted oldest first once the history holds more than its byte budget, set
+ * in megabytes with {@code -Dgradetracker.undoBudgetMB} (default: an eighth of the heap).
+ * A clear the history did not ask for, such as loading the saved roster, forgets
+ * everything. Call it on the EDT.
+ */
+class RosterHistory implements RosterListener {
+    static final long DEFAULT_BUDGET_BYTES = budgetFromProperty();
+
+    private static final long ENTRY_BYTES = 96;
+
+    private final StudentRepository students;
+    private final long budgetBytes;
+    private final Deque<Edit> undoStack = new ArrayDeque<>();
+    private final Deque<Edit> redoStack = new ArrayDeque<>();
+    private final List<Runnable> changeListeners = new ArrayList<>();
+    private long bytes;
+    private Group group;
+    private boolean applying;
+    private boolean clearing;
+    private boolean suspended;
+
+    public RosterHistory(StudentRepository students, long budgetBytes) {
+        this.students = students;
+        this.budgetBytes = budgetBytes;
+        students.addListener(this);
+    }
+
+    private static long budgetFromProperty() {
+        long fallback = Runtime.getRuntime().maxMemory() / 8;
+        String megabytes = System.getProperty("gradetracker.undoBudgetMB");
+        if (megabytes == null || megabytes.isBlank()) return fallback;
+        try {
+            return Math.max(0, Long.parseLong(megabytes.trim())) * 1024 * 1024;
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid gradetracker.undoBudgetMB: " + megabytes);
+            return fallback;
+        }
+    }
+
+    /** {@code listener} runs whenever what can be undone or redone changes. */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Records every change until {@link #endGroup()} as one entry, e.g. an import that is
+     * appended in chunks.
+     */
+    public void beginGroup(String label) {
+        endGroup();
+        group = new Group(label);
+    }
+
+    public void endGroup() {
+        Group finished = group;
+        group = null;
+        if (finished != null && !finished.edits.isEmpty()) {
+            push(finished);
+        }
+    }
+
+    /** Clears the roster so that it can be undone. */
+    public void clear() {
+        endGroup();
+        if (suspended) {
+            students.clear();
+            return;
+        }
+        clearing = true;
+        StudentColumns detached;
+        try {
+            detached = students.detachAll();
+        } finally {
+            clearing = false;
+        }
+        if (detached.size > 0) {
+            record(new Cleared(detached));
+        }
+    }
+
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    /** What {@link #undo()} would undo, e.g. "Delete Alice Johnson", or {@code null}. */
+    public String getUndoLabel() {
+        return undoStack.isEmpty() ? null : undoStack.peekLast().label();
+    }
+
+    public String getRedoLabel() {
+        return redoStack.isEmpty() ? null : redoStack.peekLast().label();
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void undo() {
+        endGroup();
+        if (undoStack.isEmpty()) return;
+        Edit edit = undoStack.removeLast();
+        bytes -= edit.bytes();
+        apply(edit, true);
+        redoStack.addLast(edit);
+        bytes += edit.bytes();
+        fireChanged();
+    }
+
+    public void redo() {
+        endGroup();
+        if (redoStack.isEmpty()) return;
+        Edit edit = redoStack.removeLast();
+        bytes -= edit.bytes();
+        apply(edit, false);
+        undoStack.addLast(edit);
+        bytes += edit.bytes();
+        evict();
+        fireChanged();
+    }
+
+    /** Forgets everything and stops recording until {@link #resume()}, e.g. while the roster is loaded. */
+    public void suspend() {
+        reset();
+        suspended = true;
+    }
+
+    public void resume() {
+        suspended = false;
+    }
+
+    /** Forgets every entry. */
+    public void reset() {
+        group = null;
+        undoStack.clear();
+        redoStack.clear();
+        bytes = 0;
+        fireChanged();
+    }
+
+    private void apply(Edit edit, boolean undo) {
+        applying = true;
+        try {
+            if (undo) {
+                edit.undo(students);
+            } else {
+                edit.redo(students);
+            }
+        } catch (RuntimeException e) {
+            // The roster no longer matches the history, e.g. an id was taken again.
+            reset();
+            throw e;
+        } finally {
+            applying = false;
+        }
+    }
+
+    @Override
+    public void studentAdded(Student student, int index) {
+        record(new Added(student.getId(), student.getName(), student.getGrade()));
+    }
+
+    @Override
+    public void studentsAdded(int firstIndex, int lastIndex) {
+        if (applying || suspended) return;
+        record(new AddedAll(StudentColumns.pack(students, firstIndex, lastIndex + 1)));
+    }
+
+    @Override
+    public void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+        record(new Updated(student.getId(), oldName, oldGrade, student.getName(), student.getGrade()));
+    }
+
+    @Override
+    public void studentRemoved(Student student, int index, int movedFrom) {
+        record(new Removed(student.getId(), student.getName(), student.getGrade()));
+    }
+
+    @Override
+    public void studentsRemoved(int firstIndex, List<Student> removed) {
+        if (applying || suspended) return;
+        record(new RemovedAll(StudentColumns.pack(removed::get, removed.size())));
+    }
+
+    @Override
+    public void rosterCleared(int previousSize) {
+        if (!applying && !clearing) {
+            reset();
+        }
+    }
+
+    private void record(Edit edit) {
+        if (applying || suspended) return;
+        if (group != null) {
+            group.edits.add(edit);
+            group.bytes += edit.bytes();
+            return;
+        }
+        push(edit);
+    }
+
+    private void push(Edit edit) {
+        bytes -= redoBytes();
+        redoStack.clear();
+        undoStack.addLast(edit);
+        bytes += edit.bytes();
+        evict();
+        fireChanged();
+    }
+
+    private long redoBytes() {
+        long total = 0;
+        for (Edit edit : redoStack) total += edit.bytes();
+        return total;
+    }
+
+    private void evict() {
+        while (bytes > budgetBytes && !undoStack.isEmpty()) {
+            bytes -= undoStack.removeFirst().bytes();
+        }
+        while (bytes > budgetBytes && !redoStack.isEmpty()) {
+            bytes -= redoStack.removeFirst().bytes();
+        }
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    private static long stringBytes(String text) {
+        return 40L + text.length();
+    }
+
+    /** One recorded change. Undo must restore the roster exactly as redo found it, and back. */
+    private abstract static class Edit {
+        abstract String label();
+
+        abstract long bytes();
+
+        abstract void undo(StudentRepository students);
+
+        abstract void redo(StudentRepository students);
+    }
+
+    private static final class Added extends Edit {
+        private final int id;
+        private final String name;
+        private final int grade;
+
+        Added(int id, String name, int grade) {
+            this.id = id;
+            this.name = name;
+            this.grade = grade;
+        }
+
+        @Override
+        String label() {
+            return "Add " + name;
+        }
+
+        @Override
+        long bytes() {
+            return ENTRY_BYTES + stringBytes(name);
+        }
+
+        @Override
+        void undo(StudentRepository students) {
+            students.remove(id);
+        }
+
+        @Override
+        void redo(StudentRepository students) {
+            students.add(new Student(id, name, grade));
+        }
+    }
+
+    private static final class AddedAll extends Edit {
+        private final StudentColumns added;
+
+        AddedAll(StudentColumns added) {
+            this.added = added;
+        }
+
+        @Override
+        String label() {
+            return added.size == 1 ? "Add " + added.nameAt(0) : "Add " + added.size + " Students";
+        }
+
+        @Override
+        long bytes() {
+            return ENTRY_BYTES + added.estimatedBytes();
+        }
+
+        @Override
+        void undo(StudentRepository students) {
+            students.removeAll(added);
+        }
+
+        @Override
+        void redo(StudentRepository students) {
+            students.addAll(added);
+        }
+    }
+
+    private static final class Updated extends Edit {
+        private final int id;
+        private final String oldName;
+        private final int oldGrade;
+        private final String newName;
+        private final int newGrade;
+
+        Updated(int id, String oldName, int oldGrade, String newName, int newGrade) {
+            this.id = id;
+            this.oldName = oldName;
+            this.oldGrade = oldGrade;
+            this.newName = newName;
+            this.newGrade = newGrade;
+        }
+
+        @Override
+        String label() {
+            return "Update " + newName;
+        }
+
+        @Override
+        long bytes() {
+            return ENTRY_BYTES + stringBytes(oldName) + (newName.equals(oldName) ? 0 : stringBytes(newName));
+        }
+
+        @Override
+        void undo(StudentRepository students) {
+            students.update(id, oldName, oldGrade);
+        }
+
+        @Override
+        void redo(StudentRepository students) {
+            students.update(id, newName, newGrade);
+        }
+    }
+
+    private static final class Removed extends Edit {
+        private final int id;
+        private final String name;
+        private final int grade;
+
+        Removed(int id, String name, int grade) {
+            this.id = id;
+            this.name = name;
+            this.grade = grade;
+        }
+
+        @Override
+        String label() {
+            return "Delete " + name;
+        }
+
+        @Override
+        long bytes() {
+            return ENTRY_BYTES + stringBytes(name);
+        }
+
+        @Override
+        void undo(StudentRepository students) {
+            students.add(new Student(id, name, grade));
+        }
+
+        @Override
+        void redo(StudentRepository students) {
+            students.remove(id);
+        }
+    }
+
+    private static final class RemovedAll extends Edit {
+        private final StudentColumns removed;
+
+        RemovedAll(StudentColumns removed) {
+            this.removed = removed;
+        }
+
+        @Override
+        String label() {
+            return removed.size == 1 ? "Delete " + removed.nameAt(0) : "Delete " + removed.size + " Students";
+        }
+
+        @Override
+        long bytes() {
+            return ENTRY_BYTES + removed.estimatedBytes();
+        }
+
+        @Override
+        void undo(StudentRepository students) {
+            students.addAll(removed);
+        }
+
+        @Override
+        void redo(StudentRepository students) {
+            students.removeAll(removed);
+        }
+    }
+
+    /** Holds the detached roster while the clear is done, and nothing once it is undone. */
+    private static final class Cleared extends Edit {
+        private StudentColumns detached;
+        private final int size;
+
+        Cleared(StudentColumns detached) {
+            this.detached = detached;
+            size = detached.size;
+        }
+
+        @Override
+        String label() {
+            return "Clear All Data";
+        }
+
+        @Override
+        long bytes() {
+            return ENTRY_BYTES + (detached == null ? 0 : detached.estimatedBytes());
+        }
+
+        @Override
+        void undo(StudentRepository students) {
+            students.addAll(detached);
+            detached = null;
+        }
+
+        @Override
+        void redo(StudentRepository students) {
+            detached = students.detachAll();
+            if (detached.size != size) {
+                throw new IllegalStateException("Expected " + size + " students to clear but found " + detached.size);
+            }
+        }
+    }
+
+    private static final class Group extends Edit {
+        private final String label;
+        private final List<Edit> edits = new ArrayList<>();
+        private long bytes = ENTRY_BYTES;
+
+        Group(String label) {
+            this.label = label;
+        }
+
+        @Override
+        String label() {
+            return label;
+        }
+
+        @Override
+        long bytes() {
+            return bytes;
+        }
+
+        @Override
+        void undo(StudentRepository students) {
+            for (int i = edits.size() - 1; i >= 0; i--) {
+                edits.get(i).undo(students);
+            }
+        }
+
+        @Override
+        void redo(StudentRepository students) {
+            for (Edit edit : edits) {
+                edit.redo(students);
+            }
+        }
+    }
+}
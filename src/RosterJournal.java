@@ -0,0 +1,320 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of roster changes. Each repository event becomes a small
+ * checksummed record; records are buffered in memory and a background thread writes and
+ * fsyncs them in batches. Journal files are numbered by generation, and a snapshot
+ * records the first generation it does not contain.
+ * <pre>
+ * record  int bodyLength, int crc32(body), body
+ * body    byte op, int id, byte grade, int nameLength, UTF-8 name
+ * </pre>
+ */
+final class RosterJournal implements RosterListener, Closeable {
+    private static final byte OP_ADD = 1;
+    private static final byte OP_UPDATE = 2;
+    private static final byte OP_REMOVE = 3;
+    private static final byte OP_CLEAR = 4;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int BODY_HEADER_SIZE = 10;
+    private static final long FLUSH_INTERVAL_MILLIS = 100;
+
+    private final Path snapshotFile;
+    private final StudentRepository students;
+    private final ScheduledExecutorService flusher;
+    private final Object fileLock = new Object();
+
+    private FileChannel channel;
+    private long generation;
+    private long savepoint;
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+    private IOException flushFailure;
+
+    private RosterJournal(Path snapshotFile, long generation, StudentRepository students) throws IOException {
+        this.snapshotFile = snapshotFile;
+        this.students = students;
+        openGeneration(generation);
+        savepoint = channel.size();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "roster-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::backgroundFlush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /** Opens the journal for appending and starts recording changes made to {@code students}. */
+    public static RosterJournal open(Path snapshotFile, long generation, StudentRepository students) throws IOException {
+        RosterJournal journal = new RosterJournal(snapshotFile, generation, students);
+        students.addListener(journal);
+        return journal;
+    }
+
+    static Path fileFor(Path snapshotFile, long generation) {
+        return snapshotFile.resolveSibling(snapshotFile.getFileName() + ".journal." + generation);
+    }
+
+    /** Returns the journal files next to {@code snapshotFile}, oldest generation first. */
+    static List<Path> files(Path snapshotFile) throws IOException {
+        String prefix = snapshotFile.getFileName() + ".journal.";
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path file : stream) {
+                if (generationOf(file, prefix) >= 0) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(file -> generationOf(file, prefix)));
+        return files;
+    }
+
+    static long generationOf(Path journalFile, Path snapshotFile) {
+        return generationOf(journalFile, snapshotFile.getFileName() + ".journal.");
+    }
+
+    private static long generationOf(Path file, String prefix) {
+        try {
+            return Long.parseLong(file.getFileName().toString().substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Applies the records in {@code file} to {@code students} and returns the next student id
+     * they imply. A torn or corrupt tail left by a crash is cut off.
+     */
+    static int replay(Path file, StudentRepository students, int nextStudentId) throws IOException {
+        return replay(file, students, nextStudentId, true);
+    }
+
+    /** Like {@link #replay(Path, StudentRepository, int)}, but only skips a torn tail unless {@code repair} is set. */
+    static int replay(Path file, StudentRepository students, int nextStudentId, boolean repair) throws IOException {
+        try (FileChannel channel = repair
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Journal too large: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break;
+            }
+            buffer.flip();
+
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < BODY_HEADER_SIZE || length > buffer.remaining()) {
+                    buffer.position(start);
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.array(), buffer.position(), length);
+                if ((int) crc.getValue() != checksum) {
+                    buffer.position(start);
+                    break;
+                }
+
+                byte op = buffer.get();
+                int id = buffer.getInt();
+                int grade = buffer.get();
+                int nameLength = buffer.getInt();
+                if (nameLength != length - BODY_HEADER_SIZE) {
+                    throw new IOException("Corrupt journal record in " + file);
+                }
+                String name = new String(buffer.array(), buffer.position(), nameLength, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + nameLength);
+
+                switch (op) {
+                    case OP_ADD -> {
+                        students.add(new Student(id, name, grade));
+                        nextStudentId = Math.max(nextStudentId, id + 1);
+                    }
+                    case OP_UPDATE -> students.update(id, name, grade);
+                    case OP_REMOVE -> students.remove(id);
+                    // Ids keep counting up after a clear, so none is handed out twice.
+                    case OP_CLEAR -> students.clear();
+                    default -> throw new IOException("Unknown journal record " + op + " in " + file);
+                }
+            }
+
+            if (repair && buffer.position() < size) {
+                channel.truncate(buffer.position());
+            }
+            return nextStudentId;
+        }
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /** Bytes journaled in the current generation, including records not yet written. */
+    public long size() throws IOException {
+        synchronized (fileLock) {
+            synchronized (this) {
+                return channel.size() + pending.position();
+            }
+        }
+    }
+
+    /** Writes and fsyncs every pending record and marks the result as the last savepoint. */
+    public void sync() throws IOException {
+        synchronized (fileLock) {
+            rethrowFlushFailure();
+            flushPending();
+            channel.force(false);
+            savepoint = channel.size();
+        }
+    }
+
+    /** Drops every change recorded since the last {@link #sync()}. */
+    public void discardUnsaved() throws IOException {
+        synchronized (fileLock) {
+            synchronized (this) {
+                pending.clear();
+            }
+            channel.truncate(savepoint);
+            channel.force(false);
+            flushFailure = null;
+        }
+    }
+
+    /** Syncs the current generation and continues in a new, empty one. Returns the new generation. */
+    public long rotate() throws IOException {
+        synchronized (fileLock) {
+            sync();
+            channel.close();
+            openGeneration(generation + 1);
+            savepoint = 0;
+            return generation;
+        }
+    }
+
+    /** Stops recording and closes the file. Pending records that were not synced are lost. */
+    @Override
+    public void close() throws IOException {
+        students.removeListener(this);
+        flusher.shutdownNow();
+        synchronized (fileLock) {
+            channel.close();
+        }
+    }
+
+    @Override
+    public void studentAdded(Student student, int index) {
+        append(OP_ADD, student.getId(), student.getGrade(), student.getName());
+    }
+
+    @Override
+    public void studentsAdded(int firstIndex, int lastIndex) {
+        for (int i = firstIndex; i <= lastIndex; i++) {
+            studentAdded(students.get(i), i);
+        }
+    }
+
+    @Override
+    public void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+        append(OP_UPDATE, student.getId(), student.getGrade(), student.getName());
+    }
+
+    @Override
+    public void studentRemoved(Student student, int index, int movedFrom) {
+        append(OP_REMOVE, student.getId(), 0, "");
+    }
+
+    @Override
+    public void rosterCleared(int previousSize) {
+        append(OP_CLEAR, 0, 0, "");
+    }
+
+    private synchronized void append(byte op, int id, int grade, String name) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = BODY_HEADER_SIZE + nameBytes.length;
+        if (pending.remaining() < RECORD_HEADER_SIZE + length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + RECORD_HEADER_SIZE + length));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+
+        int start = pending.position();
+        pending.putInt(length);
+        pending.putInt(0);
+        pending.put(op);
+        pending.putInt(id);
+        pending.put((byte) grade);
+        pending.putInt(nameBytes.length);
+        pending.put(nameBytes);
+
+        CRC32 crc = new CRC32();
+        crc.update(pending.array(), start + RECORD_HEADER_SIZE, length);
+        pending.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void backgroundFlush() {
+        synchronized (fileLock) {
+            if (flushFailure != null || !channel.isOpen()) return;
+            try {
+                if (flushPending()) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                flushFailure = e;
+            }
+        }
+    }
+
+    /** Must hold {@code fileLock}. Returns whether anything was written. */
+    private boolean flushPending() throws IOException {
+        ByteBuffer batch;
+        synchronized (this) {
+            if (pending.position() == 0) return false;
+            batch = pending;
+            pending = ByteBuffer.allocate(batch.capacity());
+        }
+        batch.flip();
+        while (batch.hasRemaining()) {
+            channel.write(batch);
+        }
+        return true;
+    }
+
+    private void rethrowFlushFailure() throws IOException {
+        if (flushFailure != null) {
+            IOException failure = flushFailure;
+            flushFailure = null;
+            throw failure;
+        }
+    }
+
+    private void openGeneration(long generation) throws IOException {
+        this.generation = generation;
+        channel = FileChannel.open(fileFor(snapshotFile, generation),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
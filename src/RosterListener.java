@@ -0,0 +1,39 @@
+import java.util.List;
+
+/**
+ * Receives fine-grained mutation events from a {@link StudentRepository}. Indexes are
+ * positions in the repository's iteration order at the time of the event.
+ */
+interface RosterListener {
+
+    default void studentAdded(Student student, int index) {
+    }
+
+    /** Called after a bulk insert that appended the students at {@code firstIndex..lastIndex}. */
+    default void studentsAdded(int firstIndex, int lastIndex) {
+    }
+
+    default void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+    }
+
+    /**
+     * Called after {@code student} was removed from {@code index}. When another student was
+     * moved into the freed slot, {@code movedFrom} is its previous index, otherwise -1.
+     */
+    default void studentRemoved(Student student, int index, int movedFrom) {
+    }
+
+    /**
+     * Called after a bulk remove took {@code removed} off the end of the roster, where they
+     * were at {@code firstIndex} onwards in that order. By default each is reported to
+     * {@link #studentRemoved}, last first, as if they had been removed one by one.
+     */
+    default void studentsRemoved(int firstIndex, List<Student> removed) {
+        for (int row = removed.size() - 1; row >= 0; row--) {
+            studentRemoved(removed.get(row), firstIndex + row, -1);
+        }
+    }
+
+    default void rosterCleared(int previousSize) {
+    }
+}
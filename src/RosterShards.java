@@ -0,0 +1,344 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Roster snapshot split by student id into shards, each a {@link RosterSnapshot} in its own
+ * file. The snapshot path then holds a manifest naming the shard files:
+ * <pre>
+ * header   magic "SGTM", version, shard count, nextStudentId,
+ *          first journal generation not contained in the shards
+ * shards   per shard: generation of its file, file length, record count, crc32 of the file
+ * trailer  crc32 of everything before it
+ * </pre>
+ * Shard {@code i} holds the students whose id is {@code i} modulo the shard count, in id
+ * order, in {@code <snapshot>.shard<i>.<generation>}. A shard that did not change keeps its
+ * file when the roster is written again. Shards are read and written in parallel, and a shard
+ * whose file is missing or fails its checksum is skipped rather than failing the load.
+ */
+final class RosterShards {
+    static final int MAGIC = 0x5347544D;
+    static final short VERSION = 1;
+    static final int MAX_SHARDS = 1024;
+
+    private static final int HEADER_SIZE = 24;
+    private static final int ENTRY_SIZE = 24;
+    private static final Comparator<Student> BY_ID = Comparator.comparingInt(Student::getId);
+
+    private RosterShards() {
+    }
+
+    /** Where the shards of a stored roster are and what they hold. */
+    static final class Manifest {
+        final int nextStudentId;
+        final long journalGeneration;
+        final long[] generations;
+        final long[] lengths;
+        final int[] counts;
+        final int[] checksums;
+
+        Manifest(int shardCount, int nextStudentId, long journalGeneration) {
+            this.nextStudentId = nextStudentId;
+            this.journalGeneration = journalGeneration;
+            generations = new long[shardCount];
+            lengths = new long[shardCount];
+            counts = new int[shardCount];
+            checksums = new int[shardCount];
+        }
+
+        public int shardCount() {
+            return generations.length;
+        }
+    }
+
+    /** The students of every shard that could be read, merged in id order. */
+    static final class Loaded {
+        final RosterSnapshot snapshot;
+        final Manifest manifest;
+        /** Shards that were skipped because their file is missing or corrupt. */
+        final BitSet damaged;
+        final List<String> problems;
+
+        Loaded(RosterSnapshot snapshot, Manifest manifest, BitSet damaged, List<String> problems) {
+            this.snapshot = snapshot;
+            this.manifest = manifest;
+            this.damaged = damaged;
+            this.problems = problems;
+        }
+    }
+
+    /** Whether {@code file} holds a shard manifest rather than a plain snapshot. */
+    static boolean isManifest(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining()) {
+                if (channel.read(magic) < 0) return false;
+            }
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    static int shardOf(int id, int shardCount) {
+        return Math.floorMod(id, shardCount);
+    }
+
+    static Path fileFor(Path snapshotFile, int shard, long generation) {
+        return snapshotFile.resolveSibling(snapshotFile.getFileName() + ".shard" + shard + "." + generation);
+    }
+
+    static Manifest readManifest(Path file) throws IOException {
+        ByteBuffer buffer = RosterSnapshot.readFully(file);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a roster shard manifest");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported roster shard manifest version " + version + " in " + file);
+        }
+        int shardCount = buffer.getInt(8);
+        if (shardCount < 1 || shardCount > MAX_SHARDS || buffer.limit() != HEADER_SIZE + ENTRY_SIZE * shardCount + 4) {
+            throw new IOException("Roster shard manifest " + file + " is truncated or corrupt");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit() - 4);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+            throw new IOException("Roster shard manifest " + file + " fails its checksum");
+        }
+
+        Manifest manifest = new Manifest(shardCount, buffer.getInt(12), buffer.getLong(16));
+        for (int shard = 0; shard < shardCount; shard++) {
+            int entry = HEADER_SIZE + ENTRY_SIZE * shard;
+            manifest.generations[shard] = buffer.getLong(entry);
+            manifest.lengths[shard] = buffer.getLong(entry + 8);
+            manifest.counts[shard] = buffer.getInt(entry + 16);
+            manifest.checksums[shard] = buffer.getInt(entry + 20);
+        }
+        return manifest;
+    }
+
+    /** Reads every shard in parallel. Only an unreadable manifest fails the whole load. */
+    static Loaded read(Path file) throws IOException {
+        Manifest manifest = readManifest(file);
+        int shardCount = manifest.shardCount();
+        ExecutorService workers = newWorkers(shardCount);
+        try {
+            List<Future<List<Student>>> reads = new ArrayList<>(shardCount);
+            for (int shard = 0; shard < shardCount; shard++) {
+                int index = shard;
+                reads.add(workers.submit(() -> readShard(file, manifest, index)));
+            }
+
+            List<List<Student>> shards = new ArrayList<>(shardCount);
+            BitSet damaged = new BitSet();
+            List<String> problems = new ArrayList<>();
+            long total = 0;
+            for (int shard = 0; shard < shardCount; shard++) {
+                try {
+                    List<Student> students = await(reads.get(shard));
+                    shards.add(students);
+                    total += students.size();
+                } catch (IOException e) {
+                    damaged.set(shard);
+                    problems.add(e.getMessage());
+                }
+            }
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IOException("Roster " + file + " holds too many students: " + total);
+            }
+
+            Student[] merged = new Student[(int) total];
+            int filled = 0;
+            for (List<Student> students : shards) {
+                for (Student student : students) {
+                    merged[filled++] = student;
+                }
+            }
+            // Each shard is already in id order, so the sort only merges runs.
+            Arrays.parallelSort(merged, BY_ID);
+            RosterSnapshot snapshot = new RosterSnapshot(Arrays.asList(merged), manifest.nextStudentId,
+                    manifest.journalGeneration);
+            return new Loaded(snapshot, manifest, damaged, problems);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static List<Student> readShard(Path file, Manifest manifest, int shard) throws IOException {
+        Path shardFile = fileFor(file, shard, manifest.generations[shard]);
+        if (!Files.exists(shardFile)) {
+            throw new IOException("Shard file " + shardFile.getFileName() + " is missing");
+        }
+        ByteBuffer buffer = RosterSnapshot.readFully(shardFile);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit());
+        if (buffer.limit() != manifest.lengths[shard] || (int) crc.getValue() != manifest.checksums[shard]) {
+            throw new IOException("Shard file " + shardFile.getFileName() + " fails its checksum");
+        }
+        List<Student> students = RosterSnapshot.decode(buffer, shardFile).getStudents();
+        if (students.size() != manifest.counts[shard]) {
+            throw new IOException("Shard file " + shardFile.getFileName() + " does not match the manifest");
+        }
+        return students;
+    }
+
+    /**
+     * Writes the shards that have an entry in {@code shards} to new files in parallel, then a
+     * manifest that keeps {@code previous}'s files for the shards without one. Returns the new
+     * manifest. Files it no longer refers to are deleted, except the files of {@code damaged}
+     * shards, which are kept with a {@code .corrupt} suffix. The lists are sorted in place.
+     */
+    static Manifest write(Path file, List<List<Student>> shards, Manifest previous, BitSet damaged,
+                          int nextStudentId, long generation) throws IOException {
+        int shardCount = shards.size();
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_SHARDS + " shards are supported: " + shardCount);
+        }
+        boolean reusable = previous != null && previous.shardCount() == shardCount;
+        Manifest manifest = new Manifest(shardCount, nextStudentId, generation);
+
+        ExecutorService workers = newWorkers(shardCount);
+        try {
+            List<Future<Long>> writes = new ArrayList<>(shardCount);
+            for (int shard = 0; shard < shardCount; shard++) {
+                List<Student> students = shards.get(shard);
+                if (students == null) {
+                    if (!reusable) {
+                        throw new IllegalArgumentException("Shard " + shard + " has no stored file to keep");
+                    }
+                    writes.add(null);
+                    continue;
+                }
+                Path shardFile = fileFor(file, shard, generation);
+                writes.add(workers.submit(() -> {
+                    students.sort(BY_ID);
+                    return RosterSnapshot.write(shardFile, students, 0, generation);
+                }));
+            }
+
+            for (int shard = 0; shard < shardCount; shard++) {
+                Future<Long> write = writes.get(shard);
+                if (write == null) {
+                    manifest.generations[shard] = previous.generations[shard];
+                    manifest.lengths[shard] = previous.lengths[shard];
+                    manifest.counts[shard] = previous.counts[shard];
+                    manifest.checksums[shard] = previous.checksums[shard];
+                } else {
+                    manifest.checksums[shard] = (int) (long) await(write);
+                    manifest.generations[shard] = generation;
+                    manifest.lengths[shard] = Files.size(fileFor(file, shard, generation));
+                    manifest.counts[shard] = shards.get(shard).size();
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        writeManifest(file, manifest);
+        removeStaleFiles(file, manifest, previous, damaged);
+        return manifest;
+    }
+
+    private static void writeManifest(Path file, Manifest manifest) throws IOException {
+        int shardCount = manifest.shardCount();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + ENTRY_SIZE * shardCount + 4);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) 0);
+        buffer.putInt(shardCount);
+        buffer.putInt(manifest.nextStudentId);
+        buffer.putLong(manifest.journalGeneration);
+        for (int shard = 0; shard < shardCount; shard++) {
+            buffer.putLong(manifest.generations[shard]);
+            buffer.putLong(manifest.lengths[shard]);
+            buffer.putInt(manifest.counts[shard]);
+            buffer.putInt(manifest.checksums[shard]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the shard files next to {@code file} that {@code manifest} does not refer to, e.g.
+     * every one of them once the roster is stored as a plain snapshot again ({@code manifest} is
+     * {@code null}). The files {@code previous} named for {@code damaged} shards are renamed instead.
+     */
+    static void removeStaleFiles(Path file, Manifest manifest, Manifest previous, BitSet damaged)
+            throws IOException {
+        Set<Path> live = new HashSet<>();
+        if (manifest != null) {
+            for (int shard = 0; shard < manifest.shardCount(); shard++) {
+                live.add(fileFor(file, shard, manifest.generations[shard]).getFileName());
+            }
+        }
+        if (previous != null) {
+            for (int shard = damaged.nextSetBit(0); shard >= 0 && shard < previous.shardCount();
+                 shard = damaged.nextSetBit(shard + 1)) {
+                Path damagedFile = fileFor(file, shard, previous.generations[shard]);
+                if (!live.contains(damagedFile.getFileName()) && Files.exists(damagedFile)) {
+                    Files.move(damagedFile, damagedFile.resolveSibling(damagedFile.getFileName() + ".corrupt"),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, file.getFileName() + ".shard*")) {
+            for (Path stale : stream) {
+                if (!live.contains(stale.getFileName()) && !stale.getFileName().toString().endsWith(".corrupt")) {
+                    Files.deleteIfExists(stale);
+                }
+            }
+        }
+    }
+
+    private static ExecutorService newWorkers(int shardCount) {
+        int threads = Math.max(1, Math.min(shardCount, Runtime.getRuntime().availableProcessors()));
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "roster-shard-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading or writing roster shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,345 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary roster snapshot. The file is a fixed header followed by columns:
+ * <pre>
+ * header      magic "SGTR", version, flags, count, nextStudentId, name heap length,
+ *             first journal generation not contained in the snapshot
+ * ids         int[count]
+ * grades      byte[count], padded to a 4-byte boundary
+ * nameOffsets int[count + 1], offsets of each name in the heap
+ * nameHeap    UTF-8 bytes
+ * </pre>
+ * Snapshots are written to a temporary file and atomically moved into place. A snapshot that
+ * cannot replace the file in place, because the roster is mapped from it, is written to
+ * {@code <snapshot>.snapshot.<generation>} instead; see {@link #current} and {@link #promote}.
+ */
+final class RosterSnapshot {
+    static final int MAGIC = 0x53475452;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<Student> students;
+    private final int nextStudentId;
+    private final long journalGeneration;
+
+    RosterSnapshot(List<Student> students, int nextStudentId, long journalGeneration) {
+        this.students = students;
+        this.nextStudentId = nextStudentId;
+        this.journalGeneration = journalGeneration;
+    }
+
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    public int getNextStudentId() {
+        return nextStudentId;
+    }
+
+    public long getJournalGeneration() {
+        return journalGeneration;
+    }
+
+    static long idsOffset() {
+        return HEADER_SIZE;
+    }
+
+    static long gradesOffset(int count) {
+        return idsOffset() + 4L * count;
+    }
+
+    static long nameOffsetsOffset(int count) {
+        return (gradesOffset(count) + count + 3) & ~3L;
+    }
+
+    static long nameHeapOffset(int count) {
+        return nameOffsetsOffset(count) + 4L * (count + 1);
+    }
+
+    /**
+     * The rows of a snapshot to write, read by position, so that a snapshot can be streamed from
+     * a repository's columns rather than from a list of students.
+     */
+    interface Rows {
+        int size();
+
+        int idAt(int index);
+
+        int gradeAt(int index);
+
+        /** Length of the UTF-8 name; read before any name is written. */
+        int nameLength(int index);
+
+        /** The UTF-8 name, of {@link #nameLength} bytes. */
+        byte[] nameAt(int index);
+    }
+
+    /** Writes the snapshot and returns the CRC-32 of the file's contents. */
+    public static long write(Path path, List<Student> students, int nextStudentId, long journalGeneration)
+            throws IOException {
+        byte[][] names = new byte[students.size()][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = students.get(i).getName().getBytes(StandardCharsets.UTF_8);
+        }
+        return write(path, new Rows() {
+            @Override
+            public int size() {
+                return names.length;
+            }
+
+            @Override
+            public int idAt(int index) {
+                return students.get(index).getId();
+            }
+
+            @Override
+            public int gradeAt(int index) {
+                return students.get(index).getGrade();
+            }
+
+            @Override
+            public int nameLength(int index) {
+                return names[index].length;
+            }
+
+            @Override
+            public byte[] nameAt(int index) {
+                return names[index];
+            }
+        }, nextStudentId, journalGeneration);
+    }
+
+    /**
+     * Writes the snapshot row by row and returns the CRC-32 of the file's contents. Nothing is
+     * kept per row beyond the name being written.
+     */
+    public static long write(Path path, Rows rows, int nextStudentId, long journalGeneration) throws IOException {
+        int count = rows.size();
+        long heapLength = 0;
+        for (int i = 0; i < count; i++) {
+            heapLength += rows.nameLength(i);
+        }
+        if (heapLength > Integer.MAX_VALUE) {
+            throw new IOException("Roster names exceed the snapshot format limit");
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putShort((short) 0);
+            buffer.putInt(count);
+            buffer.putInt(nextStudentId);
+            buffer.putLong(heapLength);
+            buffer.putLong(journalGeneration);
+
+            for (int i = 0; i < count; i++) {
+                ensureRemaining(channel, buffer, crc, 4);
+                buffer.putInt(rows.idAt(i));
+            }
+            for (int i = 0; i < count; i++) {
+                ensureRemaining(channel, buffer, crc, 1);
+                buffer.put((byte) rows.gradeAt(i));
+            }
+            int padding = (int) (nameOffsetsOffset(count) - gradesOffset(count) - count);
+            ensureRemaining(channel, buffer, crc, padding);
+            for (int i = 0; i < padding; i++) {
+                buffer.put((byte) 0);
+            }
+
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                ensureRemaining(channel, buffer, crc, 4);
+                buffer.putInt(offset);
+                offset += rows.nameLength(i);
+            }
+            ensureRemaining(channel, buffer, crc, 4);
+            buffer.putInt(offset);
+
+            for (int i = 0; i < count; i++) {
+                byte[] name = rows.nameAt(i);
+                int written = 0;
+                while (written < name.length) {
+                    ensureRemaining(channel, buffer, crc, 1);
+                    int chunk = Math.min(buffer.remaining(), name.length - written);
+                    buffer.put(name, written, chunk);
+                    written += chunk;
+                }
+            }
+
+            flush(channel, buffer, crc);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return crc.getValue();
+    }
+
+    /** Where a snapshot of {@code generation} goes when {@code path} may be mapped. */
+    static Path generationFile(Path path, long generation) {
+        return path.resolveSibling(path.getFileName() + ".snapshot." + generation);
+    }
+
+    /** The generation files next to {@code path}, oldest first. */
+    static List<Path> generationFiles(Path path) throws IOException {
+        String prefix = path.getFileName() + ".snapshot.";
+        Path directory = path.toAbsolutePath().getParent();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path file : stream) {
+                if (generationOf(file, prefix) >= 0) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(file -> generationOf(file, prefix)));
+        return files;
+    }
+
+    static long generationOf(Path generationFile, Path path) {
+        return generationOf(generationFile, path.getFileName() + ".snapshot.");
+    }
+
+    private static long generationOf(Path file, String prefix) {
+        try {
+            return Long.parseLong(file.getFileName().toString().substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** The file holding the stored roster: the newest generation file if there is one, else {@code path}. */
+    static Path current(Path path) throws IOException {
+        List<Path> files = generationFiles(path);
+        return files.isEmpty() ? path : files.get(files.size() - 1);
+    }
+
+    /**
+     * Moves the newest generation file over {@code path} and deletes the older ones. A file that
+     * is still mapped, on a platform that locks mapped files, is left for a later call.
+     */
+    static void promote(Path path) throws IOException {
+        List<Path> files = generationFiles(path);
+        for (int i = files.size() - 1; i >= 0; i--) {
+            try {
+                if (i == files.size() - 1) {
+                    Files.move(files.get(i), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Files.deleteIfExists(files.get(i));
+                }
+            } catch (FileSystemException e) {
+                // Mapped; current() still finds the newest file, and a later promote() retries.
+            }
+        }
+    }
+
+    /** Deletes every generation file, once {@code path} itself holds a newer roster. */
+    static void removeGenerationFiles(Path path) throws IOException {
+        for (Path file : generationFiles(path)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public static RosterSnapshot read(Path path) throws IOException {
+        return decode(readFully(path), path);
+    }
+
+    /** Reads the whole file into a heap buffer, ready for {@link #decode}. */
+    static ByteBuffer readFully(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Roster snapshot too large: " + size + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of roster snapshot " + path);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    static RosterSnapshot decode(ByteBuffer buffer, Path path) throws IOException {
+        int count = readHeader(buffer, path);
+        int nextStudentId = buffer.getInt(12);
+        long heapLength = buffer.getLong(16);
+        if (buffer.limit() != nameHeapOffset(count) + heapLength) {
+            throw new IOException("Roster snapshot " + path + " is truncated or corrupt");
+        }
+
+        int ids = (int) idsOffset();
+        int grades = (int) gradesOffset(count);
+        int offsets = (int) nameOffsetsOffset(count);
+        int heap = (int) nameHeapOffset(count);
+        byte[] bytes = buffer.array();
+
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int grade = buffer.get(grades + i);
+            int start = buffer.getInt(offsets + 4 * i);
+            int end = buffer.getInt(offsets + 4 * (i + 1));
+            if (grade < GradeStatistics.MIN_GRADE || grade > GradeStatistics.MAX_GRADE
+                    || start < 0 || end < start || end > heapLength) {
+                throw new IOException("Roster snapshot " + path + " is corrupt at record " + i);
+            }
+            String name = new String(bytes, heap + start, end - start, StandardCharsets.UTF_8);
+            students.add(new Student(buffer.getInt(ids + 4 * i), name, grade));
+        }
+        return new RosterSnapshot(students, nextStudentId, buffer.getLong(24));
+    }
+
+    /** Validates the header and returns the record count. */
+    static int readHeader(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a roster snapshot");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported roster snapshot version " + version + " in " + path);
+        }
+        int count = buffer.getInt(8);
+        if (count < 0) {
+            throw new IOException("Roster snapshot " + path + " is corrupt");
+        }
+        return count;
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, CRC32 crc, int bytes)
+            throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer, crc);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,486 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Persists the roster as a {@link RosterSnapshot} plus a {@link RosterJournal} of the
+ * changes made since. Saving only syncs the journal; once it grows past a threshold it
+ * is rotated and a fresh snapshot is written in the background. Opening the store
+ * replays every journal generation the snapshot does not contain.
+ * <p>
+ * With more than one shard ({@code -Dgradetracker.shards}) the snapshot is written as
+ * {@link RosterShards}, read and written in parallel. The store tracks which shards changed
+ * since the last snapshot and a compaction rewrites only those. Either layout is read
+ * whatever the setting; a memory-mapped roster is always written as a single snapshot.
+ * <p>
+ * A roster still stored in the old Java-serialized format is migrated once on first load
+ * and the old file is kept alongside with a {@code .bak} suffix.
+ */
+class RosterStore {
+    static final int DEFAULT_SHARDS = shardsFromProperty();
+
+    private static final String LEGACY_FILTER = "maxdepth=4;maxrefs=100000000;"
+            + "java.util.ArrayList;java.lang.Object;Student;!*";
+    private static final long COMPACTION_THRESHOLD_BYTES = 4L * 1024 * 1024;
+
+    private final Path snapshotFile;
+    private final Path legacyFile;
+    private final int shardCount;
+    private final ExecutorService compactor;
+    private final ShardTracker shardTracker = new ShardTracker();
+
+    private RosterJournal journal;
+    private Future<?> compaction;
+
+    private volatile RosterShards.Manifest manifest;
+    private volatile BitSet damagedShards = new BitSet();
+    private volatile List<String> loadProblems = List.of();
+    private volatile boolean rewriteAllShards;
+    /** Set when a snapshot write failed, so the next save writes one again. */
+    private volatile boolean snapshotStale;
+    private final BitSet dirtyShards = new BitSet();
+    private StudentRepository tracked;
+
+    public RosterStore(Path snapshotFile, Path legacyFile) {
+        this(snapshotFile, legacyFile, DEFAULT_SHARDS);
+    }
+
+    public RosterStore(Path snapshotFile, Path legacyFile, int shardCount) {
+        if (shardCount < 1 || shardCount > RosterShards.MAX_SHARDS) {
+            throw new IllegalArgumentException("Between 1 and " + RosterShards.MAX_SHARDS + " shards are supported: "
+                    + shardCount);
+        }
+        this.snapshotFile = snapshotFile;
+        this.legacyFile = legacyFile;
+        this.shardCount = shardCount;
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "roster-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static int shardsFromProperty() {
+        String shards = System.getProperty("gradetracker.shards");
+        if (shards == null || shards.isBlank()) return 1;
+        try {
+            return Math.max(1, Math.min(RosterShards.MAX_SHARDS, Integer.parseInt(shards.trim())));
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid gradetracker.shards: " + shards);
+            return 1;
+        }
+    }
+
+    /**
+     * Replaces the contents of {@code students} with the stored roster, discarding unsaved
+     * changes, and starts journaling further changes. Returns the next free student id.
+     */
+    public int open(StudentRepository students) throws IOException {
+        beginOpen();
+        RosterSnapshot.promote(snapshotFile);
+
+        if (students instanceof MappedStudentRepository mapped) {
+            mapped.remap();
+            return finishOpen(students, mapped.getJournalGeneration(), mapped.getStoredNextStudentId());
+        }
+
+        RosterSnapshot snapshot = load();
+        students.clear();
+        if (snapshot == null) {
+            return finishOpen(students, 0, 1);
+        }
+        students.addAll(snapshot.getStudents());
+        return finishOpen(students, snapshot.getJournalGeneration(), snapshot.getNextStudentId());
+    }
+
+    /**
+     * Replaces the contents of {@code students} with the stored roster and its journals, like
+     * {@link #open}, but changes nothing on disk: no journal is started and old ones are kept,
+     * a torn journal tail is skipped rather than cut off, and a roster in the old serialized
+     * format is read without being migrated. Returns the next free student id.
+     */
+    public int read(StudentRepository students) throws IOException {
+        beginOpen();
+
+        long generation = 0;
+        int nextStudentId = 1;
+        if (students instanceof MappedStudentRepository mapped) {
+            mapped.remap();
+            generation = mapped.getJournalGeneration();
+            nextStudentId = mapped.getStoredNextStudentId();
+        } else {
+            RosterSnapshot snapshot = load(false);
+            students.clear();
+            if (snapshot != null) {
+                students.addAll(snapshot.getStudents());
+                generation = snapshot.getJournalGeneration();
+                nextStudentId = snapshot.getNextStudentId();
+            }
+        }
+        for (Path file : RosterJournal.files(snapshotFile)) {
+            if (RosterJournal.generationOf(file, snapshotFile) >= generation) {
+                nextStudentId = RosterJournal.replay(file, students, nextStudentId, false);
+            }
+        }
+        return nextStudentId;
+    }
+
+    /**
+     * First step of an incremental {@link #open}: stops journaling and discards unsaved changes,
+     * so the caller can {@link #load()} the snapshot off the EDT and fill the repository itself.
+     */
+    public void beginOpen() throws IOException {
+        closeJournal(false);
+        awaitCompaction();
+    }
+
+    /**
+     * Last step of an incremental {@link #open}, once {@code students} holds the snapshot: replays
+     * newer journal generations and starts journaling. Returns the next free student id.
+     */
+    public int finishOpen(StudentRepository students, long generation, int nextStudentId) throws IOException {
+        dirtyShards.clear();
+        dirtyShards.or(damagedShards);
+        startTracking(students);
+
+        long current = generation;
+        for (Path file : RosterJournal.files(snapshotFile)) {
+            long fileGeneration = RosterJournal.generationOf(file, snapshotFile);
+            if (fileGeneration < generation) {
+                Files.delete(file);
+            } else {
+                nextStudentId = RosterJournal.replay(file, students, nextStudentId);
+                current = fileGeneration;
+            }
+        }
+
+        journal = RosterJournal.open(snapshotFile, current, students);
+        return nextStudentId;
+    }
+
+    /** Whether the stored roster has been opened and changes are being journaled. */
+    public boolean isOpen() {
+        return journal != null;
+    }
+
+    /**
+     * Returns the stored snapshot, or {@code null} if nothing has been saved yet. Journals are not applied.
+     * Shards that cannot be read are left out; see {@link #getLoadProblems()}.
+     */
+    public RosterSnapshot load() throws IOException {
+        return load(true);
+    }
+
+    private RosterSnapshot load(boolean migrate) throws IOException {
+        manifest = null;
+        damagedShards = new BitSet();
+        loadProblems = List.of();
+        Path current = RosterSnapshot.current(snapshotFile);
+        if (!current.equals(snapshotFile)) {
+            return RosterSnapshot.read(current);
+        }
+        if (RosterShards.isManifest(snapshotFile)) {
+            RosterShards.Loaded loaded = RosterShards.read(snapshotFile);
+            manifest = loaded.manifest;
+            damagedShards = loaded.damaged;
+            loadProblems = List.copyOf(loaded.problems);
+            return loaded.snapshot;
+        }
+        if (Files.exists(snapshotFile)) {
+            return RosterSnapshot.read(snapshotFile);
+        }
+        if (Files.exists(legacyFile)) {
+            return migrate ? migrateLegacy() : readLegacy(legacyFile);
+        }
+        return null;
+    }
+
+    /**
+     * Why shards were left out of the last {@link #load()}, one message per shard. Their students
+     * are missing from the roster; the damaged files are kept with a {@code .corrupt} suffix when
+     * those shards are next written.
+     */
+    public List<String> getLoadProblems() {
+        return loadProblems;
+    }
+
+    /** Makes every change so far durable. Compacts the journal in the background when it has grown large. */
+    public void save(StudentRepository students, int nextStudentId) throws IOException {
+        try {
+            prepareSave(students, nextStudentId).call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Captures what has to be saved while the caller still owns the repository, and returns the
+     * I/O part of the save, which may run on any thread.
+     */
+    public Callable<Void> prepareSave(StudentRepository students, int nextStudentId) throws IOException {
+        if (journal == null) {
+            long generation = nextGeneration();
+            Callable<Void> snapshot = prepareCompaction(students, nextStudentId, generation);
+            journal = RosterJournal.open(snapshotFile, generation, students);
+            startTracking(students);
+            return snapshot;
+        }
+
+        RosterJournal current = journal;
+        if ((current.size() >= COMPACTION_THRESHOLD_BYTES || snapshotStale)
+                && (compaction == null || compaction.isDone())) {
+            long generation = current.rotate();
+            compaction = compactor.submit(prepareCompaction(students, nextStudentId, generation));
+        }
+        return () -> {
+            current.sync();
+            return null;
+        };
+    }
+
+    /** Stops journaling. Unless {@code keepChanges} is set, changes since the last save are dropped. */
+    public void close(boolean keepChanges) throws IOException {
+        closeJournal(keepChanges);
+        awaitCompaction();
+    }
+
+    private void awaitCompaction() throws IOException {
+        if (compaction == null) return;
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException("Background compaction failed", e.getCause());
+        } finally {
+            compaction = null;
+        }
+    }
+
+    private void closeJournal(boolean keepChanges) throws IOException {
+        stopTracking();
+        if (journal == null) return;
+
+        try {
+            if (keepChanges) {
+                journal.sync();
+            } else {
+                journal.discardUnsaved();
+            }
+        } finally {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Generation for a full snapshot written while no journal is open, e.g. after a failed load.
+     * It supersedes every journal and snapshot generation file on disk.
+     */
+    private long nextGeneration() throws IOException {
+        long generation = 0;
+        for (Path file : RosterJournal.files(snapshotFile)) {
+            generation = Math.max(generation, RosterJournal.generationOf(file, snapshotFile) + 1);
+        }
+        for (Path file : RosterSnapshot.generationFiles(snapshotFile)) {
+            generation = Math.max(generation, RosterSnapshot.generationOf(file, snapshotFile) + 1);
+        }
+        return generation;
+    }
+
+    /**
+     * Copies what the snapshot of {@code generation} needs while the caller still owns the
+     * repository: the whole roster, or the students of the shards that changed.
+     */
+    private Callable<Void> prepareCompaction(StudentRepository students, int nextStudentId, long generation) {
+        RosterShards.Manifest stored = manifest;
+        BitSet damaged = damagedShards;
+        snapshotStale = false;
+        if (students instanceof MappedStudentRepository mapped) {
+            // Streamed from the mapping, so the roster is never copied to the heap. The file being
+            // mapped cannot be replaced on every platform; promote() moves the new one in if it can.
+            RosterSnapshot.Rows rows = mapped.freeze();
+            return () -> {
+                try {
+                    RosterSnapshot.write(RosterSnapshot.generationFile(snapshotFile, generation), rows,
+                            nextStudentId, generation);
+                    RosterSnapshot.promote(snapshotFile);
+                    finishCompaction(null, stored, damaged, generation);
+                } catch (IOException | RuntimeException e) {
+                    snapshotStale = true;
+                    throw e;
+                }
+                return null;
+            };
+        }
+
+        int shards = shardCount;
+        if (shards == 1) {
+            List<Student> copy = copyOf(students);
+            return () -> {
+                try {
+                    RosterSnapshot.write(snapshotFile, copy, nextStudentId, generation);
+                    RosterSnapshot.removeGenerationFiles(snapshotFile);
+                    finishCompaction(null, stored, damaged, generation);
+                } catch (IOException | RuntimeException e) {
+                    snapshotStale = true;
+                    throw e;
+                }
+                return null;
+            };
+        }
+
+        BitSet changed = new BitSet();
+        if (stored == null || stored.shardCount() != shards || rewriteAllShards || tracked != students) {
+            changed.set(0, shards);
+        } else {
+            changed.or(dirtyShards);
+        }
+        dirtyShards.clear();
+        rewriteAllShards = false;
+        List<List<Student>> copies = copyShards(students, shards, changed);
+        return () -> {
+            try {
+                RosterShards.Manifest written = RosterShards.write(snapshotFile, copies, stored, damaged,
+                        nextStudentId, generation);
+                RosterSnapshot.removeGenerationFiles(snapshotFile);
+                finishCompaction(written, stored, damaged, generation);
+            } catch (IOException | RuntimeException e) {
+                // The shards copied above are no longer marked dirty, so write them all next time.
+                rewriteAllShards = true;
+                snapshotStale = true;
+                throw e;
+            }
+            return null;
+        };
+    }
+
+    private void finishCompaction(RosterShards.Manifest written, RosterShards.Manifest stored, BitSet damaged,
+                                  long generation) throws IOException {
+        manifest = written;
+        damagedShards = new BitSet();
+        if (written == null) {
+            RosterShards.removeStaleFiles(snapshotFile, null, stored, damaged);
+        }
+        for (Path file : RosterJournal.files(snapshotFile)) {
+            if (RosterJournal.generationOf(file, snapshotFile) < generation) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static List<Student> copyOf(StudentRepository students) {
+        List<Student> copy = new ArrayList<>(students.size());
+        for (Student student : students) {
+            copy.add(new Student(student.getId(), student.getName(), student.getGrade()));
+        }
+        return copy;
+    }
+
+    /** Copies the students of the {@code changed} shards; the other shards' entries are {@code null}. */
+    private static List<List<Student>> copyShards(StudentRepository students, int shards, BitSet changed) {
+        List<List<Student>> copies = new ArrayList<>(shards);
+        int expected = students.size() / shards + 16;
+        for (int shard = 0; shard < shards; shard++) {
+            copies.add(changed.get(shard) ? new ArrayList<>(expected) : null);
+        }
+        for (int index = 0; index < students.size(); index++) {
+            List<Student> copy = copies.get(RosterShards.shardOf(students.idAt(index), shards));
+            if (copy != null) {
+                Student student = students.get(index);
+                copy.add(new Student(student.getId(), student.getName(), student.getGrade()));
+            }
+        }
+        return copies;
+    }
+
+    private void startTracking(StudentRepository students) {
+        stopTracking();
+        if (shardCount > 1) {
+            tracked = students;
+            students.addListener(shardTracker);
+        }
+    }
+
+    private void stopTracking() {
+        if (tracked != null) {
+            tracked.removeListener(shardTracker);
+            tracked = null;
+        }
+    }
+
+    /** Marks the shard of every changed student, so that a compaction rewrites only those shards. */
+    private final class ShardTracker implements RosterListener {
+        private void changed(int id) {
+            dirtyShards.set(RosterShards.shardOf(id, shardCount));
+        }
+
+        @Override
+        public void studentAdded(Student student, int index) {
+            changed(student.getId());
+        }
+
+        @Override
+        public void studentsAdded(int firstIndex, int lastIndex) {
+            for (int index = firstIndex; index <= lastIndex; index++) {
+                changed(tracked.idAt(index));
+            }
+        }
+
+        @Override
+        public void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+            changed(student.getId());
+        }
+
+        @Override
+        public void studentRemoved(Student student, int index, int movedFrom) {
+            changed(student.getId());
+        }
+
+        @Override
+        public void rosterCleared(int previousSize) {
+            dirtyShards.set(0, shardCount);
+        }
+    }
+
+    private RosterSnapshot migrateLegacy() throws IOException {
+        RosterSnapshot legacy = readLegacy(legacyFile);
+        RosterSnapshot.write(snapshotFile, legacy.getStudents(), legacy.getNextStudentId(), 0);
+        Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".bak"),
+                StandardCopyOption.REPLACE_EXISTING);
+        return legacy;
+    }
+
+    /**
+     * Reads a roster written by the old {@code ObjectOutputStream} save path. The stream is
+     * filtered so that only the roster's own classes can be deserialized.
+     */
+    static RosterSnapshot readLegacy(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             ObjectInputStream ois = new ObjectInputStream(in)) {
+            ois.setObjectInputFilter(ObjectInputFilter.Config.createFilter(LEGACY_FILTER));
+
+            List<Student> students = new ArrayList<>();
+            for (Object student : (List<?>) ois.readObject()) {
+                students.add((Student) student);
+            }
+            return new RosterSnapshot(students, ois.readInt(), 0);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unrecognized legacy roster file " + file, e);
+        }
+    }
+}
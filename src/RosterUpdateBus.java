@@ -0,0 +1,178 @@
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces roster mutations for the UI. It listens to the repository on the EDT and
+ * folds every event into one pending {@link Batch}: the rows whose contents changed and
+ * the size before and after. A timer delivers that batch to the subscribers at most once
+ * per frame, so the table sees one delta and the statistics panel repaints once per frame,
+ * however many students were added, changed or removed in between. The timer only runs
+ * while changes are pending.
+ * <p>
+ * Indexes always refer to the repository's current order. A removal that shifts later
+ * rows marks them all as changed, and a swap removal marks only the slot that was refilled,
+ * so applying the batch leaves the subscriber's rows equal to the repository's.
+ */
+class RosterUpdateBus implements RosterListener {
+    static final int FRAME_MILLIS = 33;
+
+    private static final Metrics.Timer FLUSH_TIMER = Metrics.timer("ui_flush",
+            "Delivering one coalesced batch of roster changes to the table and statistics");
+    private static final Metrics.Counter COALESCED = Metrics.counter("ui_coalesced_changes",
+            "Roster events folded into UI batches");
+
+    private final StudentRepository students;
+    private final List<Consumer<Batch>> subscribers = new ArrayList<>();
+    private final Timer frameTimer;
+
+    private int publishedSize;
+    /** Smallest size the roster had since the last batch; rows from there on were replaced. */
+    private int lowestSize;
+    private boolean pending;
+    private boolean cleared;
+    private int firstChanged = Integer.MAX_VALUE;
+    private int lastChanged = -1;
+    private int changeCount;
+
+    public RosterUpdateBus(StudentRepository students) {
+        this.students = students;
+        publishedSize = students.size();
+        lowestSize = publishedSize;
+        frameTimer = new Timer(FRAME_MILLIS, e -> flush());
+        frameTimer.setCoalesce(true);
+        students.addListener(this);
+    }
+
+    /** Subscribes on the EDT. {@code subscriber} is called with every batch, in subscription order. */
+    public void subscribe(Consumer<Batch> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /** The roster size as of the last delivered batch, which is what subscribers have seen. */
+    public int getPublishedSize() {
+        return publishedSize;
+    }
+
+    /** Delivers pending changes now, e.g. before reading the table's selection or changing its filter. */
+    public void flush() {
+        if (!pending) {
+            frameTimer.stop();
+            return;
+        }
+        Metrics.Sample sample = FLUSH_TIMER.start();
+        try {
+            int size = students.size();
+            int common = Math.min(publishedSize, size);
+            int first = firstChanged;
+            int last = lastChanged;
+            if (lowestSize < common) {
+                first = Math.min(first, lowestSize);
+                last = common - 1;
+            }
+            Batch batch = new Batch(publishedSize, size, cleared, first, Math.min(last, common - 1), changeCount);
+            publishedSize = size;
+            lowestSize = size;
+            pending = false;
+            cleared = false;
+            firstChanged = Integer.MAX_VALUE;
+            lastChanged = -1;
+            changeCount = 0;
+
+            for (Consumer<Batch> subscriber : subscribers) {
+                subscriber.accept(batch);
+            }
+        } finally {
+            sample.stop();
+        }
+    }
+
+    @Override
+    public void studentAdded(Student student, int index) {
+        if (index < students.size() - 1) {
+            changed(index, students.size() - 1);
+        } else {
+            changed();
+        }
+    }
+
+    @Override
+    public void studentsAdded(int firstIndex, int lastIndex) {
+        if (lastIndex < students.size() - 1) {
+            changed(firstIndex, students.size() - 1);
+        } else {
+            changed();
+        }
+    }
+
+    @Override
+    public void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+        changed(index, index);
+    }
+
+    @Override
+    public void studentRemoved(Student student, int index, int movedFrom) {
+        lowestSize = Math.min(lowestSize, students.size());
+        if (movedFrom != -1) {
+            changed(index, index);
+        } else if (index < students.size()) {
+            changed(index, students.size() - 1);
+        } else {
+            changed();
+        }
+    }
+
+    @Override
+    public void studentsRemoved(int firstIndex, List<Student> removed) {
+        lowestSize = Math.min(lowestSize, students.size());
+        changed();
+    }
+
+    @Override
+    public void rosterCleared(int previousSize) {
+        cleared = true;
+        lowestSize = 0;
+        firstChanged = Integer.MAX_VALUE;
+        lastChanged = -1;
+        changed();
+    }
+
+    private void changed(int first, int last) {
+        firstChanged = Math.min(firstChanged, first);
+        lastChanged = Math.max(lastChanged, last);
+        changed();
+    }
+
+    private void changed() {
+        COALESCED.increment();
+        changeCount++;
+        pending = true;
+        if (!frameTimer.isRunning()) {
+            frameTimer.start();
+        }
+    }
+
+    /** The net effect of the roster changes made during one frame. */
+    static final class Batch {
+        /** Size the subscribers last saw. */
+        final int previousSize;
+        final int size;
+        /** The roster was cleared; subscribers should reload everything. */
+        final boolean cleared;
+        /** Rows in this range, all below {@code min(previousSize, size)}, have new contents; empty if first > last. */
+        final int firstChanged;
+        final int lastChanged;
+        /** Number of repository events folded into this batch. */
+        final int changeCount;
+
+        Batch(int previousSize, int size, boolean cleared, int firstChanged, int lastChanged, int changeCount) {
+            this.previousSize = previousSize;
+            this.size = size;
+            this.cleared = cleared;
+            this.firstChanged = firstChanged;
+            this.lastChanged = lastChanged;
+            this.changeCount = changeCount;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Bounded LRU cache of the text the student table paints, keyed by student id. Painting a
+ * row again, e.g. while scrolling back and forth, costs one hash lookup and allocates
+ * nothing: no {@link Student} view, no boxed number and no {@code toString()}.
+ * <p>
+ * The cache listens to the repository and drops a student's row when it is updated or
+ * removed. Every row is also stamped with the cache's version, which moves on when the
+ * roster is cleared or the grading scale changes, so those invalidate every row at once.
+ * Use it on the EDT.
+ */
+final class RowRenderCache implements RosterListener {
+    static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int COLUMNS = 5;
+    private static final int STALE = -1;
+    private static final int NONE = -1;
+
+    private final StudentRepository students;
+    private final int capacity;
+    private final IntIntHashMap slotsById;
+    private final int[] ids;
+    private final int[] versions;
+    private final String[] texts;
+    // Doubly linked recency list over the slots, most recently painted first.
+    private final int[] newer;
+    private final int[] older;
+    private int newest = NONE;
+    private int oldest = NONE;
+    private int used;
+    private int version;
+    private GradingScale scale = GradingScale.current();
+    private volatile long hits;
+    private volatile long misses;
+
+    public RowRenderCache(StudentRepository students, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.students = students;
+        this.capacity = capacity;
+        slotsById = new IntIntHashMap(capacity);
+        ids = new int[capacity];
+        versions = new int[capacity];
+        texts = new String[capacity * COLUMNS];
+        newer = new int[capacity];
+        older = new int[capacity];
+        students.addListener(this);
+    }
+
+    /**
+     * The text of {@code column} for the student at {@code row} of the repository, or an empty
+     * string for a row that no longer exists. Columns are those of {@link StudentTableModel}.
+     */
+    public String textAt(int row, int column) {
+        if (row >= students.size()) return "";
+        GradingScale current = GradingScale.current();
+        if (current != scale) {
+            scale = current;
+            version++;
+        }
+
+        int id = students.idAt(row);
+        int slot = slotsById.get(id);
+        if (slot != IntIntHashMap.NO_VALUE && versions[slot] == version) {
+            hits++;
+        } else {
+            misses++;
+            if (slot == IntIntHashMap.NO_VALUE) {
+                slot = allocate(id);
+            }
+            render(slot, students.get(row));
+        }
+        if (slot != newest) {
+            unlink(slot);
+            linkNewest(slot);
+        }
+        return texts[slot * COLUMNS + column];
+    }
+
+    /** Share of {@link #textAt} calls answered from the cache, from 0 to 1. */
+    public double getHitRate() {
+        long hit = hits;
+        long total = hit + misses;
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    public int size() {
+        return used;
+    }
+
+    private void render(int slot, Student student) {
+        int base = slot * COLUMNS;
+        int grade = student.getGrade();
+        texts[base + StudentTableModel.ID_COLUMN] = Integer.toString(student.getId());
+        texts[base + StudentTableModel.NAME_COLUMN] = student.getName();
+        texts[base + StudentTableModel.GRADE_COLUMN] = Integer.toString(grade);
+        texts[base + StudentTableModel.LETTER_GRADE_COLUMN] = scale.letterGradeFor(grade);
+        texts[base + StudentTableModel.STATUS_COLUMN] = scale.statusFor(grade);
+        versions[slot] = version;
+    }
+
+    /** Takes a free slot, or the least recently painted one, for {@code id}. */
+    private int allocate(int id) {
+        int slot;
+        if (used < capacity) {
+            slot = used++;
+        } else {
+            slot = oldest;
+            unlink(slot);
+            slotsById.remove(ids[slot]);
+        }
+        ids[slot] = id;
+        slotsById.put(id, slot);
+        linkNewest(slot);
+        return slot;
+    }
+
+    private void linkNewest(int slot) {
+        newer[slot] = NONE;
+        older[slot] = newest;
+        if (newest != NONE) {
+            newer[newest] = slot;
+        }
+        newest = slot;
+        if (oldest == NONE) {
+            oldest = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        int before = newer[slot];
+        int after = older[slot];
+        if (before != NONE) {
+            older[before] = after;
+        } else if (newest == slot) {
+            newest = after;
+        }
+        if (after != NONE) {
+            newer[after] = before;
+        } else if (oldest == slot) {
+            oldest = before;
+        }
+        newer[slot] = NONE;
+        older[slot] = NONE;
+    }
+
+    private void invalidate(int id) {
+        int slot = slotsById.get(id);
+        if (slot != IntIntHashMap.NO_VALUE) {
+            versions[slot] = STALE;
+        }
+    }
+
+    @Override
+    public void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+        invalidate(student.getId());
+    }
+
+    @Override
+    public void studentRemoved(Student student, int index, int movedFrom) {
+        invalidate(student.getId());
+    }
+
+    @Override
+    public void rosterCleared(int previousSize) {
+        version++;
+    }
+}
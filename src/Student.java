@@ -15,6 +15,18 @@ class Student implements Serializable {
         this.grade = grade;
     }
 
+    /**
+     * Whether {@code name} may be stored: not blank, and free of line breaks and other control
+     * characters, which would split the student's row in an exported CSV.
+     */
+    static boolean isValidName(String name) {
+        if (name == null || name.isBlank()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isISOControl(name.charAt(i))) return false;
+        }
+        return true;
+    }
+
     public int getId() {
         return id;
     }
@@ -36,27 +48,16 @@ class Student implements Serializable {
     }
 
     public String getLetterGrade() {
-        if (grade >= 97) return "A+";
-        else if (grade >= 93) return "A";
-        else if (grade >= 90) return "A-";
-        else if (grade >= 87) return "B+";
-        else if (grade >= 83) return "B";
-        else if (grade >= 80) return "B-";
-        else if (grade >= 77) return "C+";
-        else if (grade >= 73) return "C";
-        else if (grade >= 70) return "C-";
-        else if (grade >= 67) return "D+";
-        else if (grade >= 60) return "D";
-        else return "F";
+        return GradingScale.current().letterGradeFor(getGrade());
     }
 
     public String getStatus() {
-        return grade >= 60 ? "Pass" : "Fail";
+        return GradingScale.current().statusFor(getGrade());
     }
 
     @Override
     public String toString() {
         return String.format("Student{id=%d, name='%s', grade=%d, letterGrade='%s'}",
-                id, name, grade, getLetterGrade());
+                getId(), getName(), getGrade(), getLetterGrade());
     }
 }
@@ -0,0 +1,98 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Students packed into primitive columns: ids, grades and UTF-8 names in one shared byte
+ * arena. This is the layout of
+ * {@link ColumnarStudentRepository}, which hands its columns over and takes them back
+ * without rebuilding anything; other repositories pack and unpack row by row.
+ * <p>
+ * Columns are never changed once built. The arena may hold bytes no row refers to. A
+ * subclass may hold its students in another form and leave the arrays null, as
+ * {@link IndexedStudentRepository#detachAll()} does; call {@link #packed()} before reading
+ * the arrays of columns from elsewhere.
+ */
+class StudentColumns {
+    final int size;
+    final int[] ids;
+    final byte[] grades;
+    final int[] nameOffsets;
+    final int[] nameLengths;
+    final byte[] arena;
+
+    /** Takes the arrays without copying; they may be longer than {@code size}. */
+    StudentColumns(int size, int[] ids, byte[] grades, int[] nameOffsets, int[] nameLengths, byte[] arena) {
+        this.size = size;
+        this.ids = ids;
+        this.grades = grades;
+        this.nameOffsets = nameOffsets;
+        this.nameLengths = nameLengths;
+        this.arena = arena;
+    }
+
+    /** Packs the students at {@code from..to-1} of {@code students}, in order. */
+    static StudentColumns pack(StudentRepository students, int from, int to) {
+        return pack(row -> students.get(from + row), to - from);
+    }
+
+    /** Packs {@code rows.apply(0)} to {@code rows.apply(size - 1)}, in order. */
+    static StudentColumns pack(IntFunction<Student> rows, int size) {
+        int[] ids = new int[size];
+        byte[] grades = new byte[size];
+        int[] nameOffsets = new int[size];
+        int[] nameLengths = new int[size];
+        byte[] arena = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, size * 16L))];
+        int arenaLength = 0;
+        for (int row = 0; row < size; row++) {
+            Student student = rows.apply(row);
+            String name = student.getName();
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > arena.length - arenaLength) {
+                long grown = Math.max((long) arenaLength + bytes.length, arena.length + (arena.length >> 1));
+                if (grown > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Cannot pack more than 2 GB of names");
+                }
+                arena = Arrays.copyOf(arena, (int) grown);
+            }
+            System.arraycopy(bytes, 0, arena, arenaLength, bytes.length);
+            ids[row] = student.getId();
+            grades[row] = (byte) student.getGrade();
+            nameOffsets[row] = arenaLength;
+            nameLengths[row] = bytes.length;
+            arenaLength += bytes.length;
+        }
+        if (arenaLength < arena.length) {
+            arena = Arrays.copyOf(arena, arenaLength);
+        }
+        return new StudentColumns(size, ids, grades, nameOffsets, nameLengths, arena);
+    }
+
+    /** Returns these students with every array filled in. */
+    public StudentColumns packed() {
+        return this;
+    }
+
+    public String nameAt(int row) {
+        return new String(arena, nameOffsets[row], nameLengths[row], StandardCharsets.UTF_8);
+    }
+
+    public Student get(int row) {
+        return new Student(ids[row], nameAt(row), grades[row]);
+    }
+
+    public List<Student> toStudents() {
+        List<Student> students = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            students.add(get(row));
+        }
+        return students;
+    }
+
+    /** Bytes held by the arrays, including unused capacity. */
+    public long estimatedBytes() {
+        return 4L * (ids.length + nameOffsets.length + nameLengths.length) + grades.length + arena.length + 5 * 16;
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.List;
+
+/**
+ * Storage for the roster. Implementations keep their lookup indexes and the running
+ * {@link GradeStatistics} in step with every mutation, so callers never need to scan.
+ */
+interface StudentRepository extends Iterable<Student> {
+
+    void add(Student student);
+
+    void addAll(List<Student> students);
+
+    Student findById(int id);
+
+    boolean containsName(String name);
+
+    /** Applies a name and grade change to the student with the given id and returns it, or {@code null}. */
+    Student update(int id, String name, int grade);
+
+    /** Removes the student with the given id and returns it, or {@code null} if there was none. */
+    Student remove(int id);
+
+    /**
+     * Removes the students with the ids in {@code batch}, e.g. to take back the bulk insert
+     * that appended them; ids not in the roster are skipped. Implementations remove a batch
+     * that fills the end of the roster in one step, reported by
+     * {@link RosterListener#studentsRemoved}.
+     */
+    default void removeAll(StudentColumns batch) {
+        int[] ids = batch.packed().ids;
+        for (int row = batch.size - 1; row >= 0; row--) {
+            remove(ids[row]);
+        }
+    }
+
+    void clear();
+
+    /**
+     * Clears the roster like {@link #clear()} and returns the students it held, in order,
+     * for a later {@link #addAll(StudentColumns)}.
+     */
+    default StudentColumns detachAll() {
+        StudentColumns detached = StudentColumns.pack(this, 0, size());
+        clear();
+        return detached;
+    }
+
+    /** Appends the packed students in order, reported as one bulk insert. */
+    default void addAll(StudentColumns columns) {
+        addAll(columns.toStudents());
+    }
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Returns the student at {@code index}, in the repository's current iteration order. */
+    Student get(int index);
+
+    /** Returns the id of the student at {@code index} without materializing anything else. */
+    default int idAt(int index) {
+        return get(index).getId();
+    }
+
+    /** Returns the grade of the student at {@code index} without materializing anything else. */
+    default int gradeAt(int index) {
+        return get(index).getGrade();
+    }
+
+    /** Copies the id and grade of every student, in iteration order, into arrays of at least {@link #size()}. */
+    default void copyColumns(int[] ids, byte[] grades) {
+        for (int index = 0; index < size(); index++) {
+            ids[index] = idAt(index);
+            grades[index] = (byte) gradeAt(index);
+        }
+    }
+
+    /** Returns the current index of the student with the given id, or -1. */
+    int indexOf(int id);
+
+    List<Student> toList();
+
+    GradeStatistics statistics();
+
+    void addListener(RosterListener listener);
+
+    void removeListener(RosterListener listener);
+}
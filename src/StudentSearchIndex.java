@@ -0,0 +1,355 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Case-insensitive substring index over student names. Each name is split into
+ * trigrams with a posting list of slots per trigram; a query walks the shortest
+ * posting list of its trigrams and verifies the candidates. Queries shorter than
+ * a trigram fall back to a scan of the indexed names.
+ * <p>
+ * Names are kept case-folded as UTF-8 in one byte arena, like the columns of
+ * {@link ColumnarStudentRepository}, so indexing a roster adds no object per student.
+ * Matching folded bytes is the same as matching the names ignoring case, because UTF-8
+ * never matches in the middle of a character.
+ * <p>
+ * The index is built on the EDT the first time it is needed, so opening a large roster
+ * does not pay for it up front. After that it is updated from repository events on the
+ * EDT and may be queried from background threads.
+ */
+class StudentSearchIndex implements RosterListener {
+    private static final int GRAM = 3;
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    private final StudentRepository students;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final int FREE = -1;
+    private static final int MIN_COMPACTION_BYTES = 1024 * 1024;
+
+    private final IntIntHashMap slotsById = new IntIntHashMap();
+    private int[] nameOffsets = new int[16];
+    /** Length of each slot's folded name in the arena, or {@code FREE}. */
+    private int[] nameLengths = new int[16];
+    private int[] idsBySlot = new int[16];
+    private byte[] arena = new byte[256];
+    private int arenaLength;
+    private int arenaGarbage;
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private long liveEntries;
+    private long staleEntries;
+    private volatile boolean built;
+
+    public StudentSearchIndex(StudentRepository students) {
+        this.students = students;
+        students.addListener(this);
+    }
+
+    /** Indexes the current roster if that has not happened yet. Must be called on the EDT. */
+    public void ensureBuilt() {
+        if (built) return;
+
+        lock.writeLock().lock();
+        try {
+            for (Student student : students) {
+                insert(student.getId(), student.getName());
+            }
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of all students whose name contains {@code query}, ignoring case,
+     * or {@code null} if {@code cancelled} reported true before the search finished.
+     */
+    public BitSet search(String query, BooleanSupplier cancelled) {
+        if (!built) {
+            throw new IllegalStateException("Search index has not been built");
+        }
+        lock.readLock().lock();
+        try {
+            BitSet matches = new BitSet();
+            String folded = fold(query);
+            byte[] pattern = folded.getBytes(StandardCharsets.UTF_8);
+            if (folded.length() < GRAM) {
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if ((slot % CANCEL_CHECK_INTERVAL) == 0 && cancelled.getAsBoolean()) return null;
+                    if (nameContains(slot, pattern)) {
+                        matches.set(idsBySlot[slot]);
+                    }
+                }
+                return matches;
+            }
+
+            Postings shortest = null;
+            for (int i = 0; i + GRAM <= folded.length(); i++) {
+                Postings candidate = postings.get(gram(folded, i));
+                if (candidate == null) return matches;
+                if (shortest == null || candidate.size < shortest.size) {
+                    shortest = candidate;
+                }
+            }
+
+            for (int i = 0; i < shortest.size; i++) {
+                if ((i % CANCEL_CHECK_INTERVAL) == 0 && cancelled.getAsBoolean()) return null;
+                int slot = shortest.slots[i];
+                if (nameContains(slot, pattern)) {
+                    matches.set(idsBySlot[slot]);
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void studentAdded(Student student, int index) {
+        if (!built) return;
+
+        lock.writeLock().lock();
+        try {
+            insert(student.getId(), student.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void studentsAdded(int firstIndex, int lastIndex) {
+        if (!built) return;
+
+        lock.writeLock().lock();
+        try {
+            for (int i = firstIndex; i <= lastIndex; i++) {
+                insert(students.idAt(i), students.get(i).getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void studentUpdated(Student student, int index, String oldName, int oldGrade) {
+        if (!built || oldName.equals(student.getName())) return;
+
+        lock.writeLock().lock();
+        try {
+            delete(student.getId());
+            insert(student.getId(), student.getName());
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void studentRemoved(Student student, int index, int movedFrom) {
+        if (!built) return;
+
+        lock.writeLock().lock();
+        try {
+            delete(student.getId());
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void studentsRemoved(int firstIndex, List<Student> removed) {
+        if (!built) return;
+
+        lock.writeLock().lock();
+        try {
+            for (Student student : removed) {
+                delete(student.getId());
+            }
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rosterCleared(int previousSize) {
+        if (!built) return;
+
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            slotCount = 0;
+            arenaLength = 0;
+            arenaGarbage = 0;
+            freeCount = 0;
+            postings.clear();
+            liveEntries = 0;
+            staleEntries = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(int id, String name) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == idsBySlot.length) {
+                nameOffsets = Arrays.copyOf(nameOffsets, slotCount * 2);
+                nameLengths = Arrays.copyOf(nameLengths, slotCount * 2);
+                idsBySlot = Arrays.copyOf(idsBySlot, slotCount * 2);
+            }
+            slot = slotCount++;
+        }
+        String folded = fold(name);
+        byte[] bytes = folded.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > arena.length - arenaLength) {
+            growArena(bytes.length);
+        }
+        System.arraycopy(bytes, 0, arena, arenaLength, bytes.length);
+        nameOffsets[slot] = arenaLength;
+        nameLengths[slot] = bytes.length;
+        arenaLength += bytes.length;
+        idsBySlot[slot] = id;
+        slotsById.put(id, slot);
+
+        for (long gram : grams(folded)) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(slot);
+            liveEntries++;
+        }
+    }
+
+    /** Frees the student's slot. Its posting entries become stale and are skipped by queries. */
+    private void delete(int id) {
+        int slot = slotsById.remove(id);
+        if (slot == IntIntHashMap.NO_VALUE) return;
+
+        int grams = grams(nameAt(slot)).size();
+        liveEntries -= grams;
+        staleEntries += grams;
+        arenaGarbage += nameLengths[slot];
+        nameLengths[slot] = FREE;
+
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private String nameAt(int slot) {
+        return new String(arena, nameOffsets[slot], nameLengths[slot], StandardCharsets.UTF_8);
+    }
+
+    /** Whether the folded name in {@code slot} contains the folded {@code pattern}; false for a free slot. */
+    private boolean nameContains(int slot, byte[] pattern) {
+        int length = nameLengths[slot];
+        if (length == FREE) return false;
+        int start = nameOffsets[slot];
+        int last = start + length - pattern.length;
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (arena[i + j] != pattern[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /** Makes room for {@code needed} more bytes, dropping the names of freed slots if they are most of the arena. */
+    private void growArena(int needed) {
+        long live = arenaLength - arenaGarbage;
+        if (arenaGarbage >= MIN_COMPACTION_BYTES && arenaGarbage > live && needed <= arena.length - live) {
+            byte[] compacted = new byte[arena.length];
+            int length = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (nameLengths[slot] == FREE) continue;
+                System.arraycopy(arena, nameOffsets[slot], compacted, length, nameLengths[slot]);
+                nameOffsets[slot] = length;
+                length += nameLengths[slot];
+            }
+            arena = compacted;
+            arenaLength = length;
+            arenaGarbage = 0;
+            return;
+        }
+        long grown = Math.max(live + arenaGarbage + needed, arena.length + ((long) arena.length >> 1));
+        if (grown > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Cannot index more than 2 GB of names");
+        }
+        arena = Arrays.copyOf(arena, (int) grown);
+    }
+
+    /**
+     * A freed slot can be reused by a student whose name does not share the old trigrams,
+     * which only costs an extra verification. Once stale entries outnumber live ones the
+     * posting lists are rebuilt from the live names.
+     */
+    private void compactIfStale() {
+        if (staleEntries <= liveEntries) return;
+
+        postings.clear();
+        liveEntries = 0;
+        staleEntries = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (nameLengths[slot] == FREE) continue;
+            for (long gram : grams(nameAt(slot))) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(slot);
+                liveEntries++;
+            }
+        }
+    }
+
+    /** Folds every character the way {@link String#regionMatches(boolean, int, String, int, int)} ignores case. */
+    private static String fold(String text) {
+        char[] folded = new char[text.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(Character.toUpperCase(text.charAt(i)));
+        }
+        return new String(folded);
+    }
+
+    /** Trigrams of an already folded name. */
+    private static Set<Long> grams(String folded) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= folded.length(); i++) {
+            grams.add(gram(folded, i));
+        }
+        return grams;
+    }
+
+    private static long gram(String folded, int offset) {
+        long gram = 0;
+        for (int i = offset; i < offset + GRAM; i++) {
+            gram = (gram << 16) | folded.charAt(i);
+        }
+        return gram;
+    }
+
+    private static class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
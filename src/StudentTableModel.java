@@ -0,0 +1,133 @@
+import javax.swing.JTable;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.Component;
+
+/**
+ * Table model that reads cells straight from the repository instead of keeping a copy
+ * of every row. Repository changes arrive coalesced through a {@link RosterUpdateBus},
+ * so the table and its sorter handle one delta per frame. Until a batch arrives, the row
+ * count stays at what the table was last told.
+ * <p>
+ * Painting goes through a {@link RowRenderCache}: install {@link CachedTextRenderer} on the
+ * columns and recently painted rows are drawn from cached text. The sorter still reads
+ * {@link #getValueAt}, which bypasses the cache so that sorting cannot flush it.
+ */
+class StudentTableModel extends AbstractTableModel {
+    static final int ID_COLUMN = 0;
+    static final int NAME_COLUMN = 1;
+    static final int GRADE_COLUMN = 2;
+    static final int LETTER_GRADE_COLUMN = 3;
+    static final int STATUS_COLUMN = 4;
+
+    private static final String[] COLUMN_NAMES = {"ID", "Student Name", "Grade", "Letter Grade", "Status"};
+    private static final Metrics.Timer REFRESH_TIMER = Metrics.timer("table_refresh",
+            "Updating the table, its sorter and filter after a roster change");
+
+    private final StudentRepository students;
+    private final RowRenderCache renderCache;
+    private int rowCount;
+
+    public StudentTableModel(StudentRepository students, RosterUpdateBus updates) {
+        this.students = students;
+        renderCache = new RowRenderCache(students, RowRenderCache.DEFAULT_CAPACITY);
+        rowCount = updates.getPublishedSize();
+        updates.subscribe(this::apply);
+        Metrics.gauge("table_row_cache_hit_ratio", "Share of painted table rows drawn from the row cache",
+                renderCache::getHitRate);
+    }
+
+    /** Times every table event, since the sorter re-sorts and re-filters inside it. */
+    @Override
+    public void fireTableChanged(TableModelEvent event) {
+        Metrics.Sample sample = REFRESH_TIMER.start();
+        try {
+            super.fireTableChanged(event);
+        } finally {
+            sample.stop();
+        }
+    }
+
+    public Student getStudentAt(int row) {
+        return students.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == ID_COLUMN || column == GRADE_COLUMN ? Integer.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        // Rows removed since the last batch are blank for the rest of the frame.
+        if (row >= students.size()) return null;
+        return switch (column) {
+            case ID_COLUMN -> students.idAt(row);
+            case NAME_COLUMN -> students.get(row).getName();
+            case GRADE_COLUMN -> students.gradeAt(row);
+            case LETTER_GRADE_COLUMN -> GradingScale.current().letterGradeFor(students.gradeAt(row));
+            case STATUS_COLUMN -> GradingScale.current().statusFor(students.gradeAt(row));
+            default -> throw new IndexOutOfBoundsException("Column: " + column);
+        };
+    }
+
+    /** The cell as painted; empty for rows removed since the last batch. */
+    public String getTextAt(int row, int column) {
+        if (column < 0 || column >= COLUMN_NAMES.length) {
+            throw new IndexOutOfBoundsException("Column: " + column);
+        }
+        return renderCache.textAt(row, column);
+    }
+
+    /** Paints {@link #getTextAt} instead of converting each cell's value. Numbers stay right-aligned. */
+    static final class CachedTextRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            StudentTableModel model = (StudentTableModel) table.getModel();
+            int modelColumn = table.convertColumnIndexToModel(column);
+            String text = model.getTextAt(table.convertRowIndexToModel(row), modelColumn);
+            setHorizontalAlignment(model.getColumnClass(modelColumn) == Integer.class ? RIGHT : LEADING);
+            return super.getTableCellRendererComponent(table, text, isSelected, hasFocus, row, column);
+        }
+    }
+
+    /** Applies one coalesced batch as at most three table events. */
+    private void apply(RosterUpdateBus.Batch batch) {
+        if (batch.cleared) {
+            rowCount = batch.size;
+            fireTableDataChanged();
+            return;
+        }
+        if (batch.firstChanged <= batch.lastChanged) {
+            fireTableRowsUpdated(batch.firstChanged, batch.lastChanged);
+        }
+        rowCount = batch.size;
+        if (batch.size < batch.previousSize) {
+            fireTableRowsDeleted(batch.size, batch.previousSize - 1);
+        } else if (batch.size > batch.previousSize) {
+            fireTableRowsInserted(batch.previousSize, batch.size - 1);
+        }
+    }
+}
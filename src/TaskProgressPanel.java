@@ -0,0 +1,70 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+
+/**
+ * Status strip that shows the progress of the one background task that may run at a
+ * time, with a button to cancel it. Hidden while idle.
+ */
+class TaskProgressPanel extends JPanel {
+    private final JLabel descriptionLabel;
+    private final JProgressBar progressBar;
+    private SwingWorker<?, ?> current;
+
+    public TaskProgressPanel(Color color) {
+        super(new BorderLayout(10, 0));
+        setBackground(Color.WHITE);
+        setBorder(new EmptyBorder(0, 15, 10, 15));
+
+        descriptionLabel = new JLabel();
+        descriptionLabel.setFont(new Font("SansSerif", Font.PLAIN, 12));
+
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setForeground(color);
+
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setFocusPainted(false);
+        cancelButton.addActionListener(e -> {
+            if (current != null) {
+                current.cancel(true);
+            }
+        });
+
+        add(descriptionLabel, BorderLayout.WEST);
+        add(progressBar, BorderLayout.CENTER);
+        add(cancelButton, BorderLayout.EAST);
+        setVisible(false);
+    }
+
+    public boolean isBusy() {
+        return current != null;
+    }
+
+    /** Starts {@code worker} and tracks its {@code progress} property until it is done. */
+    public void run(String description, SwingWorker<?, ?> worker) {
+        if (isBusy()) {
+            throw new IllegalStateException("A background task is already running");
+        }
+        current = worker;
+        descriptionLabel.setText(description);
+        progressBar.setIndeterminate(true);
+        progressBar.setValue(0);
+        progressBar.setString(description);
+        setVisible(true);
+
+        worker.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                int progress = (Integer) event.getNewValue();
+                progressBar.setIndeterminate(false);
+                progressBar.setValue(progress);
+                progressBar.setString(progress + "%");
+            } else if ("state".equals(event.getPropertyName())
+                    && event.getNewValue() == SwingWorker.StateValue.DONE && current == worker) {
+                current = null;
+                setVisible(false);
+            }
+        });
+        worker.execute();
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/** The columnar roster against the indexed one, through the same random changes. */
+class ColumnarStudentRepositoryTest {
+    private static final String[] NAMES = {"Ann", "ann", "ANN", "Émile", "émile", "Zoë", "Bob Smith", "İlker"};
+
+    @ParameterizedTest(name = "sparse ids: {0}")
+    @ValueSource(booleans = {false, true})
+    void matchesIndexedRepositoryThroughRandomChanges(boolean sparseIds) {
+        Random random = new Random(7);
+        ColumnarStudentRepository columnar = new ColumnarStudentRepository();
+        IndexedStudentRepository indexed = new IndexedStudentRepository();
+        List<Integer> live = new ArrayList<>();
+        Map<Integer, Student> views = new HashMap<>();
+        int nextId = 1;
+
+        for (int round = 0; round < 3000; round++) {
+            int operation = random.nextInt(10);
+            if (operation < 3 || live.isEmpty()) {
+                // Far-off ids turn the id index into a hash table.
+                int id = sparseIds && random.nextInt(20) == 0 ? 1_000_000 + random.nextInt(1 << 28) : nextId++;
+                if (live.contains(id)) continue;
+                String name = NAMES[random.nextInt(NAMES.length)] + " " + random.nextInt(10);
+                int grade = random.nextInt(101);
+                columnar.add(new Student(id, name, grade));
+                indexed.add(new Student(id, name, grade));
+                live.add(id);
+                views.put(id, columnar.findById(id));
+            } else if (operation < 5) {
+                List<Student> batch = new ArrayList<>();
+                for (int i = random.nextInt(20); i >= 0; i--) {
+                    batch.add(new Student(nextId, NAMES[random.nextInt(NAMES.length)], random.nextInt(101)));
+                    live.add(nextId++);
+                }
+                columnar.addAll(StudentColumns.pack(batch::get, batch.size()));
+                indexed.addAll(StudentColumns.pack(batch::get, batch.size()).toStudents());
+            } else if (operation < 7) {
+                int id = live.get(random.nextInt(live.size()));
+                String name = NAMES[random.nextInt(NAMES.length)];
+                int grade = random.nextInt(101);
+                columnar.update(id, name, grade);
+                indexed.update(id, name, grade);
+            } else if (operation < 9) {
+                int id = live.remove(random.nextInt(live.size()));
+                columnar.remove(id);
+                indexed.remove(id);
+            } else {
+                String name = NAMES[random.nextInt(NAMES.length)].toUpperCase() + " " + random.nextInt(10);
+                assertEquals(indexed.containsName(name), columnar.containsName(name), name);
+            }
+        }
+
+        assertEquals(indexed.size(), columnar.size());
+        for (Student expected : indexed) {
+            Student actual = columnar.findById(expected.getId());
+            assertNotNull(actual, "student " + expected.getId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getGrade(), actual.getGrade());
+        }
+        int scanned = 0;
+        for (Student actual : columnar) {
+            assertEquals(indexed.findById(actual.getId()).getName(), actual.getName());
+            scanned++;
+        }
+        assertEquals(indexed.size(), scanned);
+        // Views handed out earlier follow their student through the moves removals made.
+        for (int id : live) {
+            Student view = views.get(id);
+            if (view != null) {
+                assertEquals(indexed.findById(id).getName(), view.getName());
+                assertEquals(indexed.findById(id).getGrade(), view.getGrade());
+            }
+        }
+    }
+}
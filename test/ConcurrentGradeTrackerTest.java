@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Producers, a remover chasing them and a reader, all on one tracker at once. */
+class ConcurrentGradeTrackerTest {
+    private static final int BATCHES = 200;
+    private static final int BATCH_SIZE = 50;
+    private static final int SINGLES = 10_000;
+
+    @Test
+    void statisticsStayConsistentWhileStudentsComeAndGo() throws Exception {
+        ConcurrentGradeTracker tracker = new ConcurrentGradeTracker(4);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> batches = threads.submit(() -> {
+                for (int b = 0; b < BATCHES; b++) {
+                    List<Student> batch = new ArrayList<>(BATCH_SIZE);
+                    for (int i = 0; i < BATCH_SIZE; i++) {
+                        int id = b * BATCH_SIZE + i;
+                        batch.add(new Student(id, "Batch " + id, id % 101));
+                    }
+                    tracker.addStudents(batch);
+                }
+            });
+            Future<?> singles = threads.submit(() -> {
+                for (int i = 0; i < SINGLES; i++) {
+                    int id = BATCHES * BATCH_SIZE + i;
+                    tracker.addStudent(id, "Single " + id, id % 101);
+                }
+            });
+            // Removes every even id as soon as it shows up, racing the producers' counting.
+            Future<?> remover = threads.submit(() -> {
+                for (int id = 0; id < BATCHES * BATCH_SIZE + SINGLES; id += 2) {
+                    while (!tracker.removeStudent(id)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            Future<Integer> reader = threads.submit(() -> {
+                int reads = 0;
+                while (producing.get()) {
+                    GradeStatistics statistics = tracker.statistics();
+                    assertTrue(statistics.getCount() >= 0, "negative count " + statistics.getCount());
+                    for (int grade = GradeStatistics.MIN_GRADE; grade <= GradeStatistics.MAX_GRADE; grade++) {
+                        assertTrue(statistics.countOf(grade) >= 0, "negative bucket " + grade);
+                    }
+                    assertTrue(tracker.size() >= 0, "negative size " + tracker.size());
+                    assertTrue(tracker.gradeSum() >= 0, "negative sum " + tracker.gradeSum());
+                    reads++;
+                }
+                return reads;
+            });
+
+            batches.get(60, TimeUnit.SECONDS);
+            singles.get(60, TimeUnit.SECONDS);
+            remover.get(60, TimeUnit.SECONDS);
+            producing.set(false);
+            assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+        } finally {
+            threads.shutdownNow();
+        }
+
+        int total = BATCHES * BATCH_SIZE + SINGLES;
+        long expectedSum = 0;
+        for (int id = 1; id < total; id += 2) {
+            expectedSum += id % 101;
+        }
+        GradeStatistics statistics = tracker.statistics();
+        assertEquals(total / 2, tracker.size());
+        assertEquals(total / 2, statistics.getCount());
+        assertEquals(expectedSum, tracker.gradeSum());
+        assertEquals(expectedSum, statistics.getSum());
+        for (int id = 0; id < total; id++) {
+            assertEquals(id % 2 == 1, tracker.findStudent(id) != null, "student " + id);
+        }
+    }
+}
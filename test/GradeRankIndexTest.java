@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Rank and select against a sorted copy of the roster, through adds, updates, removes and clears. */
+class GradeRankIndexTest {
+
+    @Test
+    void matchesBruteForceThroughRandomChanges() {
+        Random random = new Random(42);
+        StudentRepository students = new IndexedStudentRepository();
+        GradeRankIndex ranks = new GradeRankIndex(students);
+        ranks.ensureBuilt();
+        int nextId = 1;
+
+        for (int round = 0; round < 200; round++) {
+            int operation = random.nextInt(10);
+            if (round == 100) {
+                students.clear();
+            } else if (operation < 4 || students.size() == 0) {
+                students.add(new Student(nextId++, "Student", random.nextInt(101)));
+            } else if (operation < 6) {
+                List<Student> batch = new ArrayList<>();
+                for (int i = random.nextInt(50); i >= 0; i--) {
+                    batch.add(new Student(nextId++, "Student", random.nextInt(101)));
+                }
+                students.addAll(batch);
+            } else if (operation < 8) {
+                int id = students.idAt(random.nextInt(students.size()));
+                students.update(id, "Student", random.nextInt(101));
+            } else {
+                students.remove(students.idAt(random.nextInt(students.size())));
+            }
+            check(students, ranks, random);
+        }
+    }
+
+    private static void check(StudentRepository students, GradeRankIndex ranks, Random random) {
+        List<Student> order = new ArrayList<>(students.toList());
+        order.sort(Comparator.comparingInt(Student::getGrade).reversed().thenComparingInt(Student::getId));
+        int[] expected = order.stream().mapToInt(Student::getId).toArray();
+
+        assertEquals(expected.length, ranks.size());
+        assertArrayEquals(expected, ranks.top(expected.length));
+        for (int position = 0; position < expected.length; position++) {
+            Student student = order.get(position);
+            assertEquals(expected[position], ranks.idAt(position));
+            assertEquals(position, ranks.positionOf(student.getId(), student.getGrade()));
+        }
+        if (expected.length > 0) {
+            int[] bottom = ranks.bottom(3);
+            for (int i = 0; i < bottom.length; i++) {
+                assertEquals(expected[expected.length - 1 - i], bottom[i]);
+            }
+        }
+
+        int low = random.nextInt(101);
+        int high = low + random.nextInt(101 - low);
+        int first = -1;
+        int count = 0;
+        for (int position = 0; position < order.size(); position++) {
+            int grade = order.get(position).getGrade();
+            if (grade >= low && grade <= high) {
+                if (first == -1) first = position;
+                count++;
+            }
+        }
+        assertEquals(count, ranks.countBetween(low, high));
+        if (count > 0) {
+            assertEquals(first, ranks.firstPositionBetween(low, high));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Undo and redo of clears and bulk adds on both in-memory repositories. */
+class RosterHistoryTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"indexed", "columnar"})
+    void undoingAClearRestoresTheRosterInOrder(String storage) {
+        StudentRepository students = repository(storage);
+        RosterHistory history = new RosterHistory(students, Long.MAX_VALUE);
+        students.addAll(batch(1, 500));
+        students.remove(17);
+        List<String> before = rows(students);
+        long sum = students.statistics().getSum();
+
+        history.clear();
+        assertEquals(0, students.size());
+        assertEquals("Clear All Data", history.getUndoLabel());
+
+        history.undo();
+        assertEquals(before, rows(students));
+        assertEquals(sum, students.statistics().getSum());
+        assertTrue(students.containsName("Student 42"));
+        assertFalse(students.containsName("Student 17"));
+        assertEquals(3, students.indexOf(4));
+
+        history.redo();
+        assertEquals(0, students.size());
+        assertEquals(0, students.statistics().getCount());
+        history.undo();
+        assertEquals(before, rows(students));
+
+        students.add(new Student(501, "After", 90));
+        assertEquals(before.size() + 1, students.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"indexed", "columnar"})
+    void undoingABulkAddTakesItBackInOneEvent(String storage) {
+        StudentRepository students = repository(storage);
+        RosterHistory history = new RosterHistory(students, Long.MAX_VALUE);
+        students.addAll(batch(1, 10));
+        List<String> before = rows(students);
+        int[] bulkRemoves = new int[1];
+        students.addListener(new RosterListener() {
+            @Override
+            public void studentsRemoved(int firstIndex, List<Student> removed) {
+                bulkRemoves[0]++;
+            }
+        });
+
+        students.addAll(batch(11, 1000));
+        assertEquals("Add 990 Students", history.getUndoLabel());
+        history.undo();
+        assertEquals(before, rows(students));
+        assertEquals(1, bulkRemoves[0]);
+        assertFalse(students.containsName("Student 11"));
+
+        history.redo();
+        assertEquals(1000, students.size());
+        assertEquals("Student 999", students.findById(999).getName());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"indexed", "columnar"})
+    void bulkAddIsUndoneAfterLaterEditsAreUndone(String storage) {
+        StudentRepository students = repository(storage);
+        RosterHistory history = new RosterHistory(students, Long.MAX_VALUE);
+        students.addAll(batch(1, 10));
+        List<String> before = rows(students);
+
+        students.addAll(batch(11, 100));
+        students.remove(50);
+        students.update(3, "Changed", 1);
+        students.remove(2);
+
+        history.undo();
+        history.undo();
+        history.undo();
+        history.undo();
+        assertEquals(before.size(), students.size());
+        assertEquals(sorted(before), sorted(rows(students)));
+        assertEquals(10, students.statistics().getCount());
+
+        history.redo();
+        history.redo();
+        history.redo();
+        history.redo();
+        assertEquals(98, students.size());
+        assertEquals("Changed", students.findById(3).getName());
+    }
+
+    private static StudentRepository repository(String storage) {
+        return storage.equals("columnar") ? new ColumnarStudentRepository() : new IndexedStudentRepository();
+    }
+
+    private static List<Student> batch(int firstId, int lastId) {
+        List<Student> batch = new ArrayList<>();
+        for (int id = firstId; id <= lastId; id++) {
+            batch.add(new Student(id, "Student " + id, id % 101));
+        }
+        return batch;
+    }
+
+    private static List<String> rows(StudentRepository students) {
+        List<String> rows = new ArrayList<>();
+        for (int index = 0; index < students.size(); index++) {
+            Student student = students.get(index);
+            rows.add(student.getId() + ":" + student.getName() + ":" + student.getGrade());
+        }
+        return rows;
+    }
+
+    private static List<String> sorted(List<String> rows) {
+        List<String> sorted = new ArrayList<>(rows);
+        sorted.sort(null);
+        return sorted;
+    }
+}
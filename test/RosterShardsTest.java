@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Loading a sharded roster when shard files are damaged or missing. */
+class RosterShardsTest {
+    private static final int SHARDS = 4;
+    private static final int STUDENTS = 200;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void corruptShardIsSkippedAndTheOthersLoad() throws IOException {
+        Path rosterFile = saveShardedRoster();
+        Path damaged = shardFile(rosterFile, 1);
+        try (FileChannel channel = FileChannel.open(damaged, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer middle = ByteBuffer.allocate(1);
+            long position = channel.size() / 2;
+            channel.read(middle, position);
+            middle.put(0, (byte) ~middle.get(0)).rewind();
+            channel.write(middle, position);
+        }
+
+        assertOnlyShardMissing(rosterFile, 1);
+    }
+
+    @Test
+    void missingShardIsSkippedAndTheOthersLoad() throws IOException {
+        Path rosterFile = saveShardedRoster();
+        Files.delete(shardFile(rosterFile, 3));
+
+        assertOnlyShardMissing(rosterFile, 3);
+    }
+
+    private void assertOnlyShardMissing(Path rosterFile, int missingShard) throws IOException {
+        RosterStore store = new RosterStore(rosterFile, directory.resolve("grades.dat"), SHARDS);
+        StudentRepository students = new IndexedStudentRepository();
+        try {
+            assertEquals(STUDENTS + 1, store.open(students));
+            assertEquals(1, store.getLoadProblems().size());
+        } finally {
+            store.close(true);
+        }
+        assertEquals(STUDENTS - STUDENTS / SHARDS, students.size());
+        for (int id = 1; id <= STUDENTS; id++) {
+            if (RosterShards.shardOf(id, SHARDS) == missingShard) {
+                assertNull(students.findById(id), "student " + id);
+            } else {
+                assertNotNull(students.findById(id), "student " + id);
+                assertEquals("Student " + id, students.findById(id).getName());
+            }
+        }
+    }
+
+    /** Writes a snapshot of {@link #STUDENTS} students split over {@link #SHARDS} shards. */
+    private Path saveShardedRoster() throws IOException {
+        Path rosterFile = directory.resolve("grades.roster");
+        List<Student> batch = new ArrayList<>();
+        for (int id = 1; id <= STUDENTS; id++) {
+            batch.add(new Student(id, "Student " + id, id % 101));
+        }
+        StudentRepository students = new IndexedStudentRepository();
+        students.addAll(batch);
+
+        RosterStore store = new RosterStore(rosterFile, directory.resolve("grades.dat"), SHARDS);
+        store.save(students, STUDENTS + 1);
+        store.close(true);
+        assertTrue(RosterShards.isManifest(rosterFile));
+        return rosterFile;
+    }
+
+    private static Path shardFile(Path rosterFile, int shard) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(rosterFile.getParent(),
+                rosterFile.getFileName() + ".shard" + shard + ".*")) {
+            stream.forEach(files::add);
+        }
+        assertEquals(1, files.size());
+        return files.get(0);
+    }
+}
@@ -0,0 +1,239 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Journal replay and crash recovery through {@link RosterStore}. */
+class RosterStoreTest {
+    @TempDir
+    Path directory;
+
+    private Path rosterFile;
+    private RosterStore store;
+
+    @BeforeEach
+    void setUp() {
+        rosterFile = directory.resolve("grades.roster");
+        store = newStore();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close(true);
+    }
+
+    @Test
+    void reopeningReplaysSavedChanges() throws IOException {
+        StudentRepository students = new IndexedStudentRepository();
+        int nextId = store.open(students);
+        for (int i = 0; i < 5; i++) {
+            students.add(new Student(nextId++, "Student " + i, 60 + i));
+        }
+        students.update(2, "Renamed", 99);
+        students.remove(4);
+        store.save(students, nextId);
+        students.add(new Student(nextId++, "Unsaved", 10));
+        store.close(false);
+
+        StudentRepository reopened = new IndexedStudentRepository();
+        store = newStore();
+        assertEquals(6, store.open(reopened));
+        assertEquals(List.of("1:Student 0:60", "2:Renamed:99", "3:Student 2:62", "5:Student 4:64"), sorted(reopened));
+    }
+
+    @Test
+    void tornTailIsCutOffAndLaterRecordsFollowTheValidOnes() throws IOException {
+        StudentRepository students = new IndexedStudentRepository();
+        int nextId = store.open(students);
+        for (int i = 0; i < 3; i++) {
+            students.add(new Student(nextId++, "Student " + i, 70));
+        }
+        store.save(students, nextId);
+        store.close(true);
+
+        Path journal = onlyJournal();
+        long validLength = Files.size(journal);
+        // A crash in the middle of a record: a length and part of a checksum.
+        Files.write(journal, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        StudentRepository reopened = new IndexedStudentRepository();
+        store = newStore();
+        nextId = store.open(reopened);
+        assertEquals(3, reopened.size());
+        assertEquals(validLength, Files.size(journal));
+
+        reopened.add(new Student(nextId++, "After the crash", 80));
+        store.save(reopened, nextId);
+        store.close(true);
+
+        StudentRepository again = new IndexedStudentRepository();
+        store = newStore();
+        assertEquals(5, store.open(again));
+        assertEquals(List.of("1:Student 0:70", "2:Student 1:70", "3:Student 2:70", "4:After the crash:80"),
+                sorted(again));
+    }
+
+    @Test
+    void recordWithBadChecksumEndsTheReplay() throws IOException {
+        StudentRepository students = new IndexedStudentRepository();
+        int nextId = store.open(students);
+        for (int i = 0; i < 3; i++) {
+            students.add(new Student(nextId++, "Student " + i, 70));
+        }
+        store.save(students, nextId);
+        store.close(true);
+
+        Path journal = onlyJournal();
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The last byte of the file is the last letter of the third student's name.
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 0x20)).rewind();
+            channel.write(last, channel.size() - 1);
+        }
+
+        StudentRepository reopened = new IndexedStudentRepository();
+        store = newStore();
+        assertEquals(3, store.open(reopened));
+        assertEquals(List.of("1:Student 0:70", "2:Student 1:70"), sorted(reopened));
+    }
+
+    @Test
+    void readOnlyReplayLeavesTornTailInPlace() throws IOException {
+        StudentRepository students = new IndexedStudentRepository();
+        int nextId = store.open(students);
+        students.add(new Student(nextId++, "Student", 70));
+        store.save(students, nextId);
+        store.close(true);
+
+        Path journal = onlyJournal();
+        Files.write(journal, new byte[]{0, 0, 0, 40}, StandardOpenOption.APPEND);
+        long tornLength = Files.size(journal);
+
+        StudentRepository read = new IndexedStudentRepository();
+        store = newStore();
+        assertEquals(2, store.read(read));
+        assertEquals(1, read.size());
+        assertEquals(tornLength, Files.size(journal));
+    }
+
+    @Test
+    void clearFollowedByRestartKeepsCountingIds() throws IOException {
+        StudentRepository students = new IndexedStudentRepository();
+        int nextId = store.open(students);
+        for (int i = 0; i < 3; i++) {
+            students.add(new Student(nextId++, "Student " + i, 50));
+        }
+        store.save(students, nextId);
+        students.clear();
+        store.save(students, nextId);
+        store.close(true);
+
+        StudentRepository reopened = new IndexedStudentRepository();
+        store = newStore();
+        assertEquals(4, store.open(reopened));
+        assertEquals(0, reopened.size());
+        assertNull(reopened.findById(1));
+    }
+
+    @Test
+    void failedSnapshotIsWrittenAgainOnTheNextSave() throws IOException {
+        StudentRepository students = new IndexedStudentRepository();
+        for (int i = 1; i <= 3; i++) {
+            students.add(new Student(i, "Student " + i, 40));
+        }
+        // A directory in the way of the snapshot's temporary file makes the first write fail.
+        Path blocker = Files.createDirectory(rosterFile.resolveSibling(rosterFile.getFileName() + ".tmp"));
+        assertThrows(IOException.class, () -> store.save(students, 4));
+        Files.delete(blocker);
+
+        students.add(new Student(4, "Student 4", 45));
+        store.save(students, 5);
+        store.close(true);
+
+        StudentRepository reopened = new IndexedStudentRepository();
+        store = newStore();
+        assertEquals(5, store.open(reopened));
+        assertEquals(List.of("1:Student 1:40", "2:Student 2:40", "3:Student 3:40", "4:Student 4:45"),
+                sorted(reopened));
+    }
+
+    @Test
+    void mappedRosterIsSavedFromItsColumnsWithItsChanges() throws IOException {
+        List<Student> stored = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            stored.add(new Student(i, "Stored " + i, i));
+        }
+        RosterSnapshot.write(rosterFile, stored, 51, 0);
+
+        MappedStudentRepository mapped = MappedStudentRepository.open(rosterFile);
+        mapped.update(7, "Renamed \u00e9", 99);
+        mapped.remove(3);
+        mapped.add(new Student(51, "Added", 12));
+        store.save(mapped, 52);
+        store.close(true);
+        assertEquals(List.of(), RosterSnapshot.generationFiles(rosterFile));
+
+        StudentRepository reopened = new IndexedStudentRepository();
+        store = newStore();
+        assertEquals(52, store.open(reopened));
+        assertEquals(50, reopened.size());
+        assertNull(reopened.findById(3));
+        assertEquals("Renamed \u00e9", reopened.findById(7).getName());
+        assertEquals(99, reopened.findById(7).getGrade());
+        assertEquals("Added", reopened.findById(51).getName());
+        assertEquals("Stored 50", reopened.findById(50).getName());
+    }
+
+    @Test
+    void generationFileLeftByAMappedSaveIsLoadedAndThenMovedIntoPlace() throws IOException {
+        RosterSnapshot.write(rosterFile, List.of(new Student(1, "Old", 10)), 2, 0);
+        // What a save leaves behind where the mapped roster file could not be replaced.
+        Path pending = RosterSnapshot.generationFile(rosterFile, 3);
+        RosterSnapshot.write(pending, List.of(new Student(1, "New", 20), new Student(2, "Added", 30)), 3, 3);
+
+        StudentRepository readOnly = new IndexedStudentRepository();
+        assertEquals(3, store.read(readOnly));
+        assertEquals(List.of("1:New:20", "2:Added:30"), sorted(readOnly));
+        assertEquals(List.of(pending), RosterSnapshot.generationFiles(rosterFile));
+
+        MappedStudentRepository mapped = MappedStudentRepository.open(rosterFile);
+        assertEquals(List.of("1:New:20", "2:Added:30"), sorted(mapped));
+        assertEquals(3, store.open(mapped));
+        assertEquals(List.of(), RosterSnapshot.generationFiles(rosterFile));
+        assertEquals(List.of("1:New:20", "2:Added:30"), sorted(mapped));
+    }
+
+    private RosterStore newStore() {
+        return new RosterStore(rosterFile, directory.resolve("grades.dat"), 1);
+    }
+
+    private Path onlyJournal() throws IOException {
+        List<Path> journals = RosterJournal.files(rosterFile);
+        assertEquals(1, journals.size());
+        return journals.get(0);
+    }
+
+    static List<String> sorted(StudentRepository students) {
+        List<String> rows = new ArrayList<>();
+        for (Student student : students) {
+            rows.add(student.getId() + ":" + student.getName() + ":" + student.getGrade());
+        }
+        rows.sort((a, b) -> Integer.compare(Integer.parseInt(a.substring(0, a.indexOf(':'))),
+                Integer.parseInt(b.substring(0, b.indexOf(':')))));
+        return rows;
+    }
+}